@@ -0,0 +1,5 @@
+#!/bin/bash
+
+set -v
+
+java -cp "lib/*:." io.github.micwan88.moneytab.MultiAccountRunner
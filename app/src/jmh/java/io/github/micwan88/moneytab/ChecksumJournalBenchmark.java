@@ -0,0 +1,135 @@
+package io.github.micwan88.moneytab;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.micwan88.moneytab.data.ChecksumJournal;
+
+/**
+ * Checksum file read / write with different history size, each invocation handle whole file once
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChecksumJournalBenchmark {
+	
+	private static final long RETENTION = TimeUnit.DAYS.toMillis(365L);
+	
+	@Param({"1000", "10000", "100000", "1000000"})
+	private int entryCount;
+	
+	private List<String> checksumList = new ArrayList<>();
+	
+	private Path tempDirPath = null;
+	
+	//Journal only, never compacted
+	private Path journalPath = null;
+	
+	//Compacted, so most are in index
+	private Path compactedJournalPath = null;
+	
+	//Fresh one for each write invocation
+	private Path writeJournalPath = null;
+	
+	private int writeCount = 0;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		for (int i=0; i<entryCount; i++)
+			checksumList.add(DigestUtils.sha256Hex("Notification " + i));
+		
+		tempDirPath = Files.createTempDirectory("checksum-bench");
+		
+		journalPath = tempDirPath.resolve("journal.dat");
+		writeJournal(journalPath).close();
+		
+		compactedJournalPath = tempDirPath.resolve("compacted.dat");
+		try (ChecksumJournal checksumJournal = writeJournal(compactedJournalPath)) {
+			checksumJournal.compact();
+		}
+	}
+	
+	private ChecksumJournal newJournal(Path path) {
+		return new ChecksumJournal(path, path.resolveSibling(path.getFileName() + ".idx"), RETENTION,
+				WebBotConst.CHECKSUM_JOURNAL_FSYNC_BATCH_SIZE, Integer.MAX_VALUE);
+	}
+	
+	private ChecksumJournal writeJournal(Path path) throws IOException {
+		ChecksumJournal checksumJournal = newJournal(path);
+		checksumJournal.load();
+		for (String checksum : checksumList)
+			checksumJournal.append(checksum);
+		checksumJournal.flush();
+		return checksumJournal;
+	}
+	
+	@Setup(Level.Invocation)
+	public void prepareWrite() {
+		writeJournalPath = tempDirPath.resolve("write-" + (writeCount++) + ".dat");
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> pathStream = Files.walk(tempDirPath)) {
+			pathStream.sorted(Comparator.reverseOrder()).forEach((path) -> path.toFile().delete());
+		}
+	}
+	
+	@Benchmark
+	public void write() throws IOException {
+		writeJournal(writeJournalPath).close();
+	}
+	
+	@Benchmark
+	public int loadJournal() throws IOException {
+		try (ChecksumJournal checksumJournal = newJournal(journalPath)) {
+			checksumJournal.load();
+			return checksumJournal.size();
+		}
+	}
+	
+	@Benchmark
+	public int loadCompacted() throws IOException {
+		try (ChecksumJournal checksumJournal = newJournal(compactedJournalPath)) {
+			checksumJournal.load();
+			return checksumJournal.size();
+		}
+	}
+	
+	/**
+	 * Load compacted file and then look up every checksum, like filterChecksum for whole history
+	 */
+	@Benchmark
+	public void loadCompactedAndLookup(Blackhole blackhole) throws IOException {
+		try (ChecksumJournal checksumJournal = newJournal(compactedJournalPath)) {
+			checksumJournal.load();
+			for (String checksum : checksumList)
+				blackhole.consume(checksumJournal.contains(checksum));
+		}
+	}
+}
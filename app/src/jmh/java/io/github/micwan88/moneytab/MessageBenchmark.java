@@ -0,0 +1,95 @@
+package io.github.micwan88.moneytab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.messaging.TelegramBot;
+
+/**
+ * Checksum hashing and building the Telegram message, without any network
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+	
+	//Typical notification and one over Telegram max length
+	@Param({"300", "6000"})
+	private int descriptionLength;
+	
+	private WebBot webBot = null;
+	
+	private List<NotificationItem> notificationItemList = new ArrayList<>();
+	
+	private String outMsg = null;
+	
+	private String postMsg = null;
+	
+	@Setup
+	public void setup() {
+		webBot = new WebBot();
+		
+		StringBuilder description = new StringBuilder();
+		while (description.length() < descriptionLength)
+			description.append("<新到影片> 市場 & Market update, ");
+		description.setLength(descriptionLength);
+		
+		for (int i=0; i<100; i++) {
+			String videoLink = i % 2 == 0 ? null : "https://www.youtube.com/watch?v=" + i;
+			String pageLink = videoLink == null ? null : WebBotConst.MONEYTAB_BASE_URL + "/channel/a/" + i;
+			notificationItemList.add(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "01.01.2023", "Channel " + i,
+					i + " " + description, pageLink, videoLink));
+		}
+		
+		outMsg = WebBot.constructOutMsg(notificationItemList.get(1));
+		postMsg = TelegramBot.preparePostMsg(outMsg);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		webBot.close();
+	}
+	
+	/**
+	 * For 100 items
+	 */
+	@Benchmark
+	public void populateChecksum(Blackhole blackhole) {
+		webBot.populateChecksum(notificationItemList);
+		blackhole.consume(notificationItemList.get(0).getChecksum());
+	}
+	
+	@Benchmark
+	public String constructOutMsg() {
+		return WebBot.constructOutMsg(notificationItemList.get(1));
+	}
+	
+	@Benchmark
+	public String preparePostMsg() {
+		return TelegramBot.preparePostMsg(outMsg);
+	}
+	
+	@Benchmark
+	public String buildSendMessageJson() {
+		return TelegramBot.buildSendMessageJson(postMsg, "-1001234567890");
+	}
+}
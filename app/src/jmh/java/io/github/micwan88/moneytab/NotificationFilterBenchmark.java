@@ -0,0 +1,105 @@
+package io.github.micwan88.moneytab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.NotificationFilter;
+import io.github.micwan88.moneytab.data.NotificationFilter.TITLE_MATCH_MODE;
+
+/**
+ * Filter construction from app properties string and per item filtering
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationFilterBenchmark {
+	
+	@Param({"10", "1000"})
+	private int filterSize;
+	
+	private String titleFilterString = null;
+	
+	private NotificationFilter dateFilter = null;
+	
+	private NotificationFilter titleFilter = null;
+	
+	private NotificationFilter titleKeywordFilter = null;
+	
+	private NotificationFilter checksumFilter = null;
+	
+	//Half matched, half not
+	private List<NotificationItem> notificationItemList = new ArrayList<>();
+	
+	@Setup
+	public void setup() {
+		List<String> titleList = new ArrayList<>();
+		List<String> checksumList = new ArrayList<>();
+		for (int i=0; i<filterSize; i++) {
+			titleList.add("Channel " + i);
+			checksumList.add(DigestUtils.sha256Hex("Notification " + i));
+		}
+		titleFilterString = String.join(",", titleList);
+		
+		dateFilter = new NotificationFilter("01.01.2023,02.01.2023");
+		titleFilter = new NotificationFilter(titleFilterString);
+		titleKeywordFilter = new NotificationFilter(titleFilterString);
+		titleKeywordFilter.setTitleMatchMode(TITLE_MATCH_MODE.KEYWORD);
+		checksumFilter = new NotificationFilter(checksumList, true);
+		
+		for (int i=0; i<100; i++) {
+			int itemIndex = i % 2 == 0 ? i % filterSize : filterSize + i;
+			NotificationItem notificationItem = new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "0" + (i % 3 + 1) + ".01.2023",
+					"Channel " + itemIndex, "Notification " + itemIndex);
+			notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
+			notificationItemList.add(notificationItem);
+		}
+	}
+	
+	@Benchmark
+	public NotificationFilter constructFromString() {
+		return new NotificationFilter(titleFilterString);
+	}
+	
+	@Benchmark
+	public void filterDate(Blackhole blackhole) {
+		for (NotificationItem notificationItem : notificationItemList)
+			blackhole.consume(dateFilter.filterDate(notificationItem));
+	}
+	
+	@Benchmark
+	public void filterTitle(Blackhole blackhole) {
+		for (NotificationItem notificationItem : notificationItemList)
+			blackhole.consume(titleFilter.filterTitle(notificationItem));
+	}
+	
+	@Benchmark
+	public void filterTitleKeyword(Blackhole blackhole) {
+		for (NotificationItem notificationItem : notificationItemList)
+			blackhole.consume(titleKeywordFilter.filterTitle(notificationItem));
+	}
+	
+	@Benchmark
+	public void filterChecksum(Blackhole blackhole) {
+		for (NotificationItem notificationItem : notificationItemList)
+			blackhole.consume(checksumFilter.filterChecksum(notificationItem));
+	}
+}
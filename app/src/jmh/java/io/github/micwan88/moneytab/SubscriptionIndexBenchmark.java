@@ -0,0 +1,61 @@
+package io.github.micwan88.moneytab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.SubscriptionIndex;
+
+/**
+ * Routing cost per item should stay flat when subscribers grow
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubscriptionIndexBenchmark {
+	
+	@Param({"3", "300"})
+	private int subscriberCount;
+	
+	private SubscriptionIndex subscriptionIndex = null;
+	
+	private List<NotificationItem> notificationItemList = new ArrayList<>();
+	
+	@Setup
+	public void setup() {
+		//Each subscriber follows a few series and keywords
+		subscriptionIndex = new SubscriptionIndex();
+		for (int i=0; i<subscriberCount; i++) {
+			subscriptionIndex.addSubscription(String.valueOf(100000 + i), "title:頻道 " + (i % 50) + ",title:頻道 " + ((i + 7) % 50)
+					+ ",keyword:關鍵字" + (i % 30) + (i % 10 == 0 ? ",type:" + WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS : ""));
+		}
+		
+		for (int i=0; i<100; i++) {
+			notificationItemList.add(new NotificationItem(i % 2 == 0 ? WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO : WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS,
+					"20.01.2023", "頻道 " + (i % 60), "頻道 " + (i % 60) + " 第 " + i + " 集已經上架，今集講關鍵字" + (i % 40) + "同埋其他內容"));
+		}
+	}
+	
+	@Benchmark
+	public void route(Blackhole blackhole) {
+		for (NotificationItem notificationItem : notificationItemList)
+			blackhole.consume(subscriptionIndex.route(notificationItem));
+	}
+}
@@ -0,0 +1,405 @@
+package io.github.micwan88.moneytab;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.github.micwan88.helperclass4j.AppPropertiesUtil;
+import io.github.micwan88.moneytab.messaging.TelegramBot;
+
+/**
+ * Run several accounts in one JVM on a bounded worker pool.
+ *
+ * Accounts are listed in moneytab.runner.accounts, and each account takes app.properties as base
+ * with its own values from moneytab.account.[name].[key], e.g. moneytab.account.alice.login overrides moneytab.bot.login.
+ * Every account has its own browser, state directory (stateBaseDir/[name]) and chrome debug port,
+ * while accounts with the same bot token share one {@link TelegramBot} so that its rate limits are global,
+ * its telegram_post metrics are reported by the first account using it.
+ *
+ * In daemon mode each cycle is scheduled after the sleep time of the previous one,
+ * so a worker is only taken while the account is running and the pool can be smaller than number of accounts.
+ */
+public class MultiAccountRunner implements Closeable {
+	
+	private static final Logger myLogger = LogManager.getLogger(MultiAccountRunner.class);
+	
+	public static final String DEFAULT_STATE_BASE_DIR = "accounts";
+	
+	public static final int DEFAULT_POOL_SIZE = 2;
+	
+	public static final long MAX_INIT_RETRY_DELAY = 3600000L;
+	
+	//Account name -> bot, in configured order
+	private LinkedHashMap<String, WebBot> webBotMap = new LinkedHashMap<>();
+	
+	//Api base url + token -> bot shared by accounts
+	private HashMap<String, TelegramBot> telegramBotMap = new HashMap<>();
+	
+	private int poolSize = DEFAULT_POOL_SIZE;
+	
+	private boolean daemonMode = false;
+	
+	private ScheduledExecutorService workerExecutor = null;
+	
+	/**
+	 * Base properties with account values on top, plus the per account defaults which must not be shared
+	 * (state directory, browser user data and debug port, metrics file and port).
+	 * System properties "-D" override the base properties only, so the WebBot must not apply them again.
+	 */
+	static Properties buildAccountProperties(Properties appProperties, Properties systemProperties, String accountName, int accountIndex) {
+		Properties sourceProperties = new Properties();
+		for (String propertyName : appProperties.stringPropertyNames()) {
+			sourceProperties.setProperty(propertyName, appProperties.getProperty(propertyName));
+		}
+		for (String propertyName : systemProperties.stringPropertyNames()) {
+			if (propertyName.startsWith(WebBotConst.BOT_PROPERTIES_PREFIX) || propertyName.startsWith(WebBotConst.ACCOUNT_PROPERTIES_PREFIX))
+				sourceProperties.setProperty(propertyName, systemProperties.getProperty(propertyName));
+		}
+		
+		Properties accountProperties = new Properties();
+		String accountPrefix = WebBotConst.ACCOUNT_PROPERTIES_PREFIX + accountName + ".";
+		
+		for (String propertyName : sourceProperties.stringPropertyNames()) {
+			if (!propertyName.startsWith(WebBotConst.ACCOUNT_PROPERTIES_PREFIX))
+				accountProperties.setProperty(propertyName, sourceProperties.getProperty(propertyName));
+		}
+		
+		String stateBaseDir = sourceProperties.getProperty(WebBotConst.APP_PROPERTIES_RUNNER_STATE_BASE_DIR, DEFAULT_STATE_BASE_DIR).trim();
+		Path stateDir = Paths.get(stateBaseDir, accountName);
+		accountProperties.setProperty(WebBotConst.APP_PROPERTIES_STATE_DIR, stateDir.toString());
+		
+		//Chrome cannot open same user data directory twice
+		String tempStr = sourceProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_USERDATA);
+		if (tempStr != null && !tempStr.trim().isEmpty())
+			accountProperties.setProperty(WebBotConst.APP_PROPERTIES_BROWSER_USERDATA, stateDir.resolve(Paths.get(tempStr.trim()).getFileName()).toString());
+		
+		int browserDebugPort = WebBotConst.BROWSER_DEFAULT_DEBUG_PORT;
+		tempStr = sourceProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty())
+			browserDebugPort = Integer.parseInt(tempStr.trim());
+		accountProperties.setProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT, String.valueOf(browserDebugPort + accountIndex));
+		
+		tempStr = sourceProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE);
+		if (tempStr != null && !tempStr.trim().isEmpty())
+			accountProperties.setProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE, stateDir.resolve(Paths.get(tempStr.trim()).getFileName()).toString());
+		
+		tempStr = sourceProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty() && Integer.parseInt(tempStr.trim()) > 0)
+			accountProperties.setProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT, String.valueOf(Integer.parseInt(tempStr.trim()) + accountIndex));
+		
+		//Account values always win
+		for (String propertyName : sourceProperties.stringPropertyNames()) {
+			if (propertyName.startsWith(accountPrefix))
+				accountProperties.setProperty(WebBotConst.BOT_PROPERTIES_PREFIX + propertyName.substring(accountPrefix.length()),
+						sourceProperties.getProperty(propertyName));
+		}
+		return accountProperties;
+	}
+	
+	/**
+	 * @return 0 if all accounts loaded, otherwise the account with invalid parameters is reported
+	 */
+	public int loadAppParameters(Properties appProperties) {
+		String tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_RUNNER_ACCOUNTS);
+		if (tempStr == null || tempStr.trim().isEmpty()) {
+			myLogger.error("No account in {}", WebBotConst.APP_PROPERTIES_RUNNER_ACCOUNTS);
+			return -1;
+		}
+		
+		List<String> accountNameList = new ArrayList<>();
+		for (String accountName : tempStr.split(",")) {
+			if (!accountName.trim().isEmpty() && !accountNameList.contains(accountName.trim()))
+				accountNameList.add(accountName.trim());
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_RUNNER_POOL_SIZE);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			try {
+				poolSize = Integer.parseInt(tempStr.trim());
+			} catch (NumberFormatException e) {
+				poolSize = 0;
+			}
+			
+			if (poolSize <= 0) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_RUNNER_POOL_SIZE, tempStr);
+				return -1;
+			}
+		}
+		
+		for (int i=0; i<accountNameList.size(); i++) {
+			String accountName = accountNameList.get(i);
+			
+			WebBot webBot = new WebBot();
+			int returnCode = 0;
+			try {
+				//Account values must not be overridden by "-D" values meant for all accounts
+				webBot.setSystemPropertyOverride(false);
+				returnCode = webBot.loadAppParameters(buildAccountProperties(appProperties, System.getProperties(), accountName, i));
+			} catch (NumberFormatException e) {
+				returnCode = -1;
+			}
+			
+			myLogger.debug("Account - {}", accountName);
+			webBot.debugParams();
+			
+			if (returnCode != 0) {
+				myLogger.error("Invalid parameters of account: {}", accountName);
+				return -1;
+			}
+			
+			//All accounts run in daemon mode or none
+			if (i == 0)
+				daemonMode = webBot.isDaemonMode();
+			
+			webBotMap.put(accountName, webBot);
+		}
+		
+		//Share one bot per token, so per chat and global limits hold across accounts
+		for (WebBot webBot : webBotMap.values()) {
+			TelegramBot telegramBot = telegramBotMap.computeIfAbsent(webBot.getTgBotApiBaseURL() + webBot.getTgBotToken(), (botKey) -> {
+				TelegramBot sharedTelegramBot = new TelegramBot(webBot.getTgBotApiBaseURL(), webBot.getTgBotToken(), webBot.getWaitTimeout());
+				//Posts of all sharing accounts are reported in the metrics of the first one
+				sharedTelegramBot.setMetricsRegistry(webBot.getMetricsRegistry());
+				return sharedTelegramBot;
+			});
+			webBot.setSharedTelegramBot(telegramBot);
+		}
+		
+		myLogger.debug("Runner - accounts: {}, poolSize: {}, daemonMode: {}, telegramBots: {}", webBotMap.keySet(), poolSize, daemonMode, telegramBotMap.size());
+		return 0;
+	}
+	
+	/**
+	 * Run every account once
+	 * @return true if all accounts done without error
+	 */
+	public boolean runOnce() {
+		myLogger.debug("Start runOnce");
+		
+		workerExecutor = newWorkerExecutor();
+		
+		LinkedHashMap<String, Future<Boolean>> resultMap = new LinkedHashMap<>();
+		for (Entry<String, WebBot> accountEntry : webBotMap.entrySet()) {
+			resultMap.put(accountEntry.getKey(), workerExecutor.submit(() -> runAccountOnce(accountEntry.getKey(), accountEntry.getValue())));
+		}
+		
+		boolean noError = true;
+		for (Entry<String, Future<Boolean>> resultEntry : resultMap.entrySet()) {
+			try {
+				if (!resultEntry.getValue().get())
+					noError = false;
+			} catch (ExecutionException e) {
+				myLogger.error("Unexpected error of account: {}", resultEntry.getKey(), e.getCause());
+				noError = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				noError = false;
+				break;
+			}
+		}
+		
+		workerExecutor.shutdown();
+		
+		myLogger.debug("End runOnce");
+		return noError;
+	}
+	
+	private boolean runAccountOnce(String accountName, WebBot webBot) {
+		Thread.currentThread().setName("account-" + accountName);
+		
+		boolean noError = false;
+		try {
+			webBot.init();
+			noError = webBot.runOnce();
+		} catch (Exception e) {
+			myLogger.error("Unexpected error", e);
+		} finally {
+			//Browser is not needed until next run
+			webBot.close();
+		}
+		
+		//Same as single account, only the session is not trusted
+		if (!noError && webBot.isSessionFailed()) {
+			webBot.clearPersistCookiesFile();
+			webBot.clearPersistLocalStorageFile();
+		}
+		
+		myLogger.debug("Account {} done, noError: {}", accountName, noError);
+		return noError;
+	}
+	
+	/**
+	 * Keep every account running until interrupted, each one keeps its browser and logon session as single account daemon
+	 */
+	public void runDaemon() {
+		myLogger.debug("Start runDaemon");
+		
+		workerExecutor = newWorkerExecutor();
+		
+		for (Entry<String, WebBot> accountEntry : webBotMap.entrySet()) {
+			workerExecutor.execute(() -> initAccount(accountEntry.getKey(), accountEntry.getValue(), accountEntry.getValue().getSleepTime()));
+		}
+		
+		try {
+			while (!workerExecutor.awaitTermination(1L, TimeUnit.DAYS)) {
+				//Keep waiting
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		myLogger.debug("End runDaemon");
+	}
+	
+	/**
+	 * Account is only scheduled to run after init succeed, otherwise init is retried with doubled delay
+	 */
+	private void initAccount(String accountName, WebBot webBot, long retryDelay) {
+		Thread.currentThread().setName("account-" + accountName);
+		
+		try {
+			webBot.init();
+		} catch (Exception e) {
+			myLogger.error("Cannot init account: {}, retry after: {}", accountName, retryDelay, e);
+			
+			//Quit the browser which may be started already
+			webBot.close();
+			
+			try {
+				workerExecutor.schedule(() -> initAccount(accountName, webBot, Math.min(retryDelay * 2, MAX_INIT_RETRY_DELAY)), retryDelay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e2) {
+				//Runner is closing
+				myLogger.debug("Account {} stopped", accountName);
+			}
+			return;
+		}
+		
+		runAccountCycle(accountName, webBot);
+	}
+	
+	private void runAccountCycle(String accountName, WebBot webBot) {
+		Thread.currentThread().setName("account-" + accountName);
+		
+		long cycleSleepTime = webBot.getSleepTime();
+		try {
+			cycleSleepTime = webBot.runCycle();
+		} catch (Throwable e) {
+			myLogger.error("Unexpected error in cycle of account: {}", accountName, e);
+		} finally {
+			//Always schedule next cycle, otherwise the account stops polling silently
+			try {
+				myLogger.debug("Account {} sleep before next cycle : {}", accountName, cycleSleepTime);
+				workerExecutor.schedule(() -> runAccountCycle(accountName, webBot), cycleSleepTime, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				//Runner is closing
+				myLogger.debug("Account {} stopped", accountName);
+			}
+		}
+	}
+	
+	private ScheduledExecutorService newWorkerExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.min(poolSize, webBotMap.size()), (runnable) -> {
+			Thread workerThread = new Thread(runnable, "account-worker-" + threadCount.incrementAndGet());
+			workerThread.setDaemon(true);
+			return workerThread;
+		});
+		//Sleeping accounts are dropped on close, only the running cycles are waited
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		return executor;
+	}
+	
+	@Override
+	public synchronized void close() {
+		if (workerExecutor != null) {
+			//Not to interrupt selenium calls, wait for the running cycles to finish instead
+			workerExecutor.shutdown();
+			try {
+				while (!workerExecutor.awaitTermination(30L, TimeUnit.SECONDS)) {
+					myLogger.debug("Waiting running cycles to finish ...");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			workerExecutor = null;
+		}
+		
+		webBotMap.values().forEach((webBot) -> webBot.close());
+		
+		telegramBotMap.values().forEach((telegramBot) -> telegramBot.close());
+		telegramBotMap.clear();
+	}
+	
+	public static void main(String[] args) {
+		myLogger.debug("Loading appProperties ...");
+		AppPropertiesUtil appPropertyUtil = new AppPropertiesUtil();
+		Properties appProperties = appPropertyUtil.getAppProperty();
+		if (appProperties == null) {
+			myLogger.error("Cannot load appProperties: {}", AppPropertiesUtil.APP_PROPERTY_FILE);
+			System.exit(-1);
+		}
+		
+		MultiAccountRunner runner = new MultiAccountRunner();
+		if (runner.loadAppParameters(appProperties) != 0) {
+			myLogger.error("Invalid parameters");
+			System.exit(-2);
+		}
+		
+		//Make sure all browsers quit when being killed in daemon mode
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> runner.close()));
+		
+		boolean noError = true;
+		try {
+			if (runner.isDaemonMode()) {
+				runner.runDaemon();
+			} else {
+				noError = runner.runOnce();
+			}
+		} catch (Exception e) {
+			myLogger.error("Unexpected error", e);
+			noError = false;
+		} finally {
+			runner.close();
+			myLogger.debug("MultiAccountRunner End");
+		}
+		
+		if (!noError)
+			System.exit(-3);
+	}
+	
+	public LinkedHashMap<String, WebBot> getWebBotMap() {
+		return webBotMap;
+	}
+	
+	public int getPoolSize() {
+		return poolSize;
+	}
+	
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+	
+	public boolean isDaemonMode() {
+		return daemonMode;
+	}
+	
+	public void setDaemonMode(boolean daemonMode) {
+		this.daemonMode = daemonMode;
+	}
+}
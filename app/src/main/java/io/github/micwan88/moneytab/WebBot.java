@@ -1,66 +1,246 @@
 package io.github.micwan88.moneytab;
 
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
 import io.github.micwan88.helperclass4j.AppPropertiesUtil;
 import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.ChecksumJournal;
+import io.github.micwan88.moneytab.data.HighWaterMark;
 import io.github.micwan88.moneytab.data.NotificationFilter;
+import io.github.micwan88.moneytab.data.NotificationFilter.TITLE_MATCH_MODE;
+import io.github.micwan88.moneytab.data.SubscriptionIndex;
+import io.github.micwan88.moneytab.data.VideoLinkCache;
+import io.github.micwan88.moneytab.http.MoneyTabHttpClient;
+import io.github.micwan88.moneytab.messaging.NotificationDigest;
+import io.github.micwan88.moneytab.messaging.NotificationDigest.DIGEST_MODE;
 import io.github.micwan88.moneytab.messaging.TelegramBot;
+import io.github.micwan88.moneytab.metrics.MetricsHttpServer;
+import io.github.micwan88.moneytab.metrics.MetricsRegistry;
+import io.github.micwan88.moneytab.selenium.BlockProfile;
+import io.github.micwan88.moneytab.selenium.BlockProfile.RESOURCE_TYPE;
+import io.github.micwan88.moneytab.selenium.BrowserTabPool;
+import io.github.micwan88.moneytab.selenium.PageStateWaiter;
 import io.github.micwan88.moneytab.selenium.WebDriverMgr;
 import io.github.micwan88.moneytab.selenium.WebDriverMgr.DRIVER_TYPE;
 
 public class WebBot implements Closeable {
+	public enum EXTRACT_STRATEGY {
+		ELEMENT,
+		SCRIPT
+	}
+	
+	private static final String PROFILE_LINK_SELECTOR = "a[href='/profile/account']:has(svg.svg-icon)";
+	private static final String LOGIN_BUTTON_SELECTOR = "section > div > div > span[role='button']:has(span)";
+	private static final String VIDEO_IFRAME_SELECTOR = "main > section > div + div iframe";
+	private static final String VIDEO_JOIN_BUTTON_SELECTOR = "span.core-button__text.h4";
+	private static final String LOGIN_ERROR_SELECTOR = "form:has(input#username) div > div.input-row + div.input-row + div";
+	
+	//Page states raced by PageStateWaiter
+	private static final String PAGE_STATE_LOGON = "LOGON";
+	private static final String PAGE_STATE_LOGIN_BUTTON = "LOGIN_BUTTON";
+	private static final String PAGE_STATE_LOGIN_ERROR = "LOGIN_ERROR";
+	private static final String PAGE_STATE_JOIN_BUTTON = "JOIN_BUTTON";
+	private static final String PAGE_STATE_VIDEO = "VIDEO";
+	
+	/**
+	 * Same selectors as element strategy, arguments[0] is the type label of new video.
+	 * innerText is used to match WebElement.getText(), title and text are in the canonical form of NotificationItem.normalizeText
+	 * (so the mark can be compared here), and null is returned for item with missing element.
+	 * arguments[1] is the high-water mark and arguments[2] is the start date key of date window (both nullable),
+	 * walking stops at the mark item, or after a run of arguments[3] items older than either one, same as addExtractedItem.
+	 */
+	private static final String EXTRACT_NOTIFICATION_LIST_SCRIPT = 
+			"var newVideoType = arguments[0], mark = arguments[1], windowStartKey = arguments[2], olderItemLimit = arguments[3];"
+			+ "function normalizeText(text) {"
+			+ "  return text.replace(/\\u00a0/g, ' ').split('\\n').map(function(line) {"
+			+ "    return line.replace(/[ \\t]+/g, ' ').replace(/^[\\x00-\\x20]+|[\\x00-\\x20]+$/g, '');"
+			+ "  }).filter(function(line) { return line.length > 0; }).join('\\n');"
+			+ "}"
+			+ "function toDateKey(date) {"
+			+ "  var matched = /^(\\d{2})\\.(\\d{2})\\.(\\d{4})$/.exec(date);"
+			+ "  return matched ? matched[3] + matched[2] + matched[1] : null;"
+			+ "}"
+			+ "var notificationDiv = document.querySelector(\"section > div > div > p + div\");"
+			+ "if (!notificationDiv) return null;"
+			+ "var itemList = [], olderCount = 0;"
+			+ "var itemElements = notificationDiv.querySelectorAll(\"div[class^='notice_item']\");"
+			+ "for (var i=0; i<itemElements.length; i++) {"
+			+ "  var itemElement = itemElements[i];"
+			+ "  var typeElement = itemElement.querySelector(\"div > span + span\");"
+			+ "  var type = typeElement ? typeElement.innerText.trim() : null;"
+			+ "  var contentElement = !typeElement ? null : itemElement.querySelector(type === newVideoType ? \"div + div > a.block[href]\" : \"div + div\");"
+			+ "  var dateElement = contentElement ? contentElement.querySelector(\"div > span\") : null;"
+			+ "  var titleElement = contentElement ? contentElement.querySelector(\"div:has(span) + p\") : null;"
+			+ "  if (!dateElement || !titleElement) { itemList.push(null); continue; }"
+			+ "  var item = {type: type, date: dateElement.innerText.trim(), title: normalizeText(titleElement.innerText),"
+			+ "    fullText: normalizeText(contentElement.innerText), href: type === newVideoType ? contentElement.href.trim() : null};"
+			+ "  var dateKey = toDateKey(item.date);"
+			+ "  if (mark && item.type === mark.type && item.fullText === mark.fullText) break;"
+			+ "  if (dateKey && ((mark && mark.dateKey && dateKey < mark.dateKey) || (windowStartKey && dateKey < windowStartKey))) {"
+			+ "    if (++olderCount >= olderItemLimit) break;"
+			+ "  } else"
+			+ "    olderCount = 0;"
+			+ "  itemList.push(item);"
+			+ "}"
+			+ "return JSON.stringify(itemList);";
+	
 	
 	private static final Logger myLogger = LogManager.getLogger(WebBot.class);
 	
 	private WebDriver webDriver = null;
 	
-	private Path checksumHistoryPath = Paths.get(WebBotConst.WEBBOT_CHECKSUM_HISTORY_FILENAME); 
+	//Null if browserBlockResources is off
+	private BlockProfile blockProfile = null;
+	
+	//All state files are kept here, so that each account can have its own
+	private Path stateDir = Paths.get("");
+	
+	private Path checksumHistoryPath = stateDir.resolve(WebBotConst.WEBBOT_CHECKSUM_HISTORY_FILENAME); 
 	
 	//App Parameters
 	private DRIVER_TYPE browserType = DRIVER_TYPE.CHROME;
 	private boolean browserHeadlessMode = false;
 	private boolean browserPersistCookie = true;
 	private boolean browserPersistLocalStorage = true;
+	
+	//Content of lstorage.dat, to skip saving when nothing changed
+	private HashMap<String, String> persistedLocalStorageItems = null;
+	private PageLoadStrategy browserPageLoadStrategy = PageLoadStrategy.NORMAL;
+	private boolean browserBlockResources = false;
+	private List<String> browserBlockedURLs = new ArrayList<>();
+	private Set<RESOURCE_TYPE> browserBlockedTypes = EnumSet.allOf(RESOURCE_TYPE.class);
 	private File browserUserData = null;
+	private int browserDebugPort = WebBotConst.BROWSER_DEFAULT_DEBUG_PORT;
 	private long waitBeforeQuit = 0L;
 	private long waitTimeout = 5000L;
 	private long sleepTime = 10000L;
+	private boolean daemonMode = false;
+	private boolean httpFetchMode = false;
+	private boolean skipUnchangedList = true;
+	private boolean incrementalExtract = true;
+	private String siteBaseURL = WebBotConst.MONEYTAB_BASE_URL;
+	private EXTRACT_STRATEGY extractStrategy = EXTRACT_STRATEGY.SCRIPT;
+	private int browserTabPoolSize = 1;
+	private long checksumRetention = 2592000000L;
+	private long videoLinkCacheTTL = 604800000L;
+	private int videoLinkCacheSize = 1000;
 	private String login = "";
 	private String password = "";
 	private String tgBotToken = null;
 	private String tgBotChatID = null;
+	private String tgBotApiBaseURL = TelegramBot.URL_TELEGRAM_BOT_BASE;
+	private DIGEST_MODE tgDigestMode = DIGEST_MODE.NONE;
+	private long tgDigestWindow = 0L;
+	private Path metricsFilePath = null;
+	private int metricsPort = 0;
+	
+	//False when system properties are merged by caller, e.g. before the account values of MultiAccountRunner
+	private boolean systemPropertyOverride = true;
+	
+	//Checksum -> first seen time of items held for digest window
+	private HashMap<String, Long> digestFirstSeenMap = new HashMap<>();
+	
+	//Shorter sleep for next cycle when some items are held for digest window
+	private long nextSleepTime = 0L;
 	
+	//Fingerprint of notification list of last completed run, and the one extracted in this run
+	private String persistedListFingerprint = null;
+	private String currentListFingerprint = null;
+	private boolean isListUnchanged = false;
+	
+	//Newest item of last completed run, and newest one extracted in this run
+	private HighWaterMark highWaterMark = null;
+	private NotificationItem newestExtractedItem = null;
+	
+	private String dateFilterValue = null;
 	private NotificationFilter dateFilter = null;
 	private NotificationFilter titleFilter = null;
+	private TITLE_MATCH_MODE titleMatchMode = TITLE_MATCH_MODE.EXACT;
 	private NotificationFilter checksumFilter = null;
 	
+	//Null if no tgSubscription, then every chat in tgBotChatID gets every item
+	private SubscriptionIndex subscriptionIndex = null;
+	
+	private ChecksumJournal checksumJournal = null;
+	
+	private TelegramBot telegramBot = null;
+	
+	//Shared with other accounts, so owned (and closed) by the runner
+	private boolean isTelegramBotShared = false;
+	
+	private MetricsRegistry metricsRegistry = new MetricsRegistry();
+	
+	private MetricsHttpServer metricsServer = null;
+	
+	private VideoLinkCache videoLinkCache = null;
+	
+	private boolean isBrowserStateLoaded = false;
+	
+	//Logon confirmed in current browser, so no need to load home to check again until session gone
+	private boolean isLogonVerified = false;
+	
+	//Login failed or session rejected by site in this run, only then the persisted state is not trusted
+	private boolean isSessionFailed = false;
+	
+	//Held by each run, so shutdown would wait for the running one instead of quitting browser under it
+	private final ReentrantLock runLock = new ReentrantLock();
+	
+	//Counted down once stop requested, also wake up daemon from sleep
+	private final CountDownLatch stopLatch = new CountDownLatch(1);
+	
+	private Path getStatePath(String stateFileName) {
+		return stateDir.resolve(stateFileName);
+	}
+	
 	private long parseLong(String arg) {
 		try {
 			return Long.parseLong(arg);
@@ -72,39 +252,51 @@ public class WebBot implements Closeable {
 	
 	private void readChecksumHistory(Path checksumHistoryPath) {
 		myLogger.debug("Start readChecksumHistory");
-		if (Files.isReadable(checksumHistoryPath)) {
-			try {
-				List<String> checksumList = Files.readAllLines(checksumHistoryPath, Charset.forName("UTF-8"));
-				checksumFilter = new NotificationFilter(checksumList, true);
-				
-				myLogger.debug("Got checksum filter : {}", checksumFilter);
-			} catch (IOException e) {
-				myLogger.error("Cannot read checksum history file: {}", checksumHistoryPath.toAbsolutePath(), e);
-			}
-		} else
-			myLogger.warn("checksumHistory does not exist or it cannot be read : {}", checksumHistoryPath.toAbsolutePath());
+		Path checksumIndexPath = checksumHistoryPath.resolveSibling(WebBotConst.WEBBOT_CHECKSUM_INDEX_FILENAME);
+		checksumJournal = new ChecksumJournal(checksumHistoryPath, checksumIndexPath, checksumRetention,
+				WebBotConst.CHECKSUM_JOURNAL_FSYNC_BATCH_SIZE, WebBotConst.CHECKSUM_JOURNAL_COMPACTION_THRESHOLD);
+		try {
+			checksumJournal.load();
+			
+			//Lookup through journal and its index directly, no need to copy all checksums
+			checksumFilter = new NotificationFilter(checksumJournal, true);
+			myLogger.debug("Got checksum filter : {}", checksumFilter);
+			
+			//Drop expired lines and merge into index without blocking the run
+			checksumJournal.startBackgroundCompaction(WebBotConst.CHECKSUM_JOURNAL_COMPACTION_INTERVAL);
+		} catch (IOException e) {
+			myLogger.error("Cannot read checksum history file: {}", checksumHistoryPath.toAbsolutePath(), e);
+			checksumJournal = null;
+		}
 		myLogger.debug("End readChecksumHistory");
 	}
 	
-	public int saveChecksumHistory(Path checksumHistoryPath, List<NotificationItem> notificationItemList) {
+	/**
+	 * Append checksum of newly sent items to journal, so cost is only related to new items
+	 */
+	public int saveChecksumHistory(List<NotificationItem> notificationItemList) {
 		myLogger.debug("Start saveChecksumHistory");
-		try (final BufferedWriter bw = Files.newBufferedWriter(checksumHistoryPath, Charset.forName("UTF-8"))) {
-			boolean isFirstItem = true;
+		if (checksumJournal == null) {
+			myLogger.error("Checksum history is not available : {}", checksumHistoryPath.toAbsolutePath());
+			return -1;
+		}
+		
+		try {
 			int count = 0;
 			for (NotificationItem notificationItem : notificationItemList) {
-				//Only save checksum when sent
-				if (!notificationItem.isSent())
+				//Only save checksum when sent, and skip those known sent by pre-key (no checksum as not resolved)
+				if (!notificationItem.isSent() || notificationItem.getChecksum() == null)
 					continue;
 				
-				if (!isFirstItem)
-					bw.newLine();
-				
-				bw.write(notificationItem.getChecksum());
-				isFirstItem = false;
-				count++;
+				//Also add pre-key to checksum saved without it before
+				if (checksumJournal.append(notificationItem.getChecksum(), notificationItem.getPreKey()))
+					count++;
 			}
 			
-			myLogger.debug("Checksum history saved with count : {}", count);
+			//Make sure all appended in this cycle are on disk
+			checksumJournal.flush();
+			
+			myLogger.debug("Checksum history appended with count : {}", count);
 			return 0;
 		} catch (IOException e) {
 			myLogger.error("Cannot save checksum history : {}", checksumHistoryPath.toAbsolutePath(), e);
@@ -117,7 +309,7 @@ public class WebBot implements Closeable {
 	public void persistCookies() {
 		myLogger.debug("Start persistCookies");
 		if (browserPersistCookie) {
-			WebDriverMgr.saveCookie(Paths.get(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME), webDriver.manage().getCookies());
+			WebDriverMgr.saveCookie(getStatePath(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME), webDriver.manage().getCookies());
 		}
 		myLogger.debug("End persistCookies");
 	}
@@ -126,7 +318,12 @@ public class WebBot implements Closeable {
 		myLogger.debug("Start persistLocalStorageItems");
 		if (browserPersistLocalStorage) {
 			HashMap<String, String> localStorageItemsMap = WebDriverMgr.getLocalStorageItems(webDriver);
-			WebDriverMgr.saveLocalStorageItems(Paths.get(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME), localStorageItemsMap);
+			
+			//Most of the time nothing changed, so no need to rewrite the file
+			if (localStorageItemsMap.equals(persistedLocalStorageItems))
+				myLogger.debug("LocalStorage not changed since last persist, skip saving");
+			else if (WebDriverMgr.saveLocalStorageItems(getStatePath(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME), localStorageItemsMap))
+				persistedLocalStorageItems = localStorageItemsMap;
 		}
 		myLogger.debug("End persistLocalStorageItems");
 	}
@@ -134,7 +331,7 @@ public class WebBot implements Closeable {
 	public void clearPersistCookiesFile() {
 		myLogger.debug("Start clearPersistCookiesFile");
 		if (browserPersistCookie) {
-			Path targetFilePath = Paths.get(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME);
+			Path targetFilePath = getStatePath(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME);
 			try {
 				Files.deleteIfExists(targetFilePath);
 			} catch (IOException e) {
@@ -147,7 +344,8 @@ public class WebBot implements Closeable {
 	public void clearPersistLocalStorageFile() {
 		myLogger.debug("Start clearPersistLocalStorageFile");
 		if (browserPersistLocalStorage) {
-			Path targetFilePath = Paths.get(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME);
+			Path targetFilePath = getStatePath(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME);
+			persistedLocalStorageItems = null;
 			try {
 				Files.deleteIfExists(targetFilePath);
 			} catch (IOException e) {
@@ -157,9 +355,36 @@ public class WebBot implements Closeable {
 		myLogger.debug("End clearPersistLocalStorageFile");
 	}
 	
-	public int loadAppParameters(Properties appProperties) {
-		SimpleDateFormat dateFormat = new SimpleDateFormat(WebBotConst.NOTIFICATION_DATE_FORMAT_PATTERN);
+	/**
+	 * Rebuild the date filter so that 'TODAY' follows the current date (needed for daemon mode)
+	 */
+	public void refreshDateFilter() {
+		if (dateFilterValue == null)
+			return;
 		
+		SimpleDateFormat dateFormat = new SimpleDateFormat(WebBotConst.NOTIFICATION_DATE_FORMAT_PATTERN);
+		dateFilter = new NotificationFilter(dateFilterValue.replaceAll("TODAY", dateFormat.format(new Date())));
+	}
+	
+	/**
+	 * @return null if any invalid type, empty set if blank
+	 */
+	private static Set<RESOURCE_TYPE> parseResourceTypes(String resourceTypesStr) {
+		Set<RESOURCE_TYPE> resourceTypes = EnumSet.noneOf(RESOURCE_TYPE.class);
+		for (String resourceTypeStr : resourceTypesStr.split(",")) {
+			if (resourceTypeStr.trim().isEmpty())
+				continue;
+			
+			try {
+				resourceTypes.add(RESOURCE_TYPE.valueOf(resourceTypeStr.trim().toUpperCase()));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+		return resourceTypes;
+	}
+	
+	public int loadAppParameters(Properties appProperties) {
 		String tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_HEADLESS_MODE);
 		if (tempStr != null && tempStr.trim().equalsIgnoreCase("true")) {
 			browserHeadlessMode = true;
@@ -180,6 +405,30 @@ public class WebBot implements Closeable {
 			}
 		}
 		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			browserDebugPort = (int)parseLong(tempStr);
+			
+			if (browserDebugPort <= 0 || browserDebugPort > 65535) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_STATE_DIR);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			stateDir = Paths.get(tempStr.trim());
+			
+			if (!Files.isDirectory(stateDir)) {
+				try {
+					Files.createDirectories(stateDir);
+				} catch (IOException e) {
+					myLogger.error("Cannot create state directory {}: {}", WebBotConst.APP_PROPERTIES_STATE_DIR, stateDir.toAbsolutePath(), e);
+					return -1;
+				}
+			}
+		}
+		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_WAIT_TIMEOUT);
 		if (tempStr != null && !tempStr.trim().isEmpty()) {
 			waitTimeout = parseLong(tempStr);
@@ -195,6 +444,16 @@ public class WebBot implements Closeable {
 			waitBeforeQuit = parseLong(tempStr); //Can be 'zero'
 		}
 		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_TAB_POOL_SIZE);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			browserTabPoolSize = (int)parseLong(tempStr);
+			
+			if (browserTabPoolSize <= 0) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_TAB_POOL_SIZE, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_COOKIE);
 		if (tempStr != null && tempStr.trim().equalsIgnoreCase("false")) {
 			browserPersistCookie = false;
@@ -205,6 +464,36 @@ public class WebBot implements Closeable {
 			browserPersistLocalStorage = false;
 		}
 		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				browserPageLoadStrategy = PageLoadStrategy.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCK_RESOURCES);
+		if (tempStr != null && tempStr.trim().equalsIgnoreCase("true")) {
+			browserBlockResources = true;
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_URLS);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			browserBlockedURLs = Arrays.asList(tempStr.trim().split("\\s*,\\s*"));
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_TYPES);
+		if (tempStr != null) {
+			browserBlockedTypes = parseResourceTypes(tempStr);
+			
+			if (browserBlockedTypes == null) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_TYPES, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_SLEEP_TIME);
 		if (tempStr != null && !tempStr.trim().isEmpty()) {
 			sleepTime = parseLong(tempStr);
@@ -215,6 +504,66 @@ public class WebBot implements Closeable {
 			}
 		}
 		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_DAEMON_MODE);
+		if (tempStr != null && tempStr.trim().equalsIgnoreCase("true")) {
+			daemonMode = true;
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_HTTP_FETCH_MODE);
+		if (tempStr != null && tempStr.trim().equalsIgnoreCase("true")) {
+			httpFetchMode = true;
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_SKIP_UNCHANGED_LIST);
+		if (tempStr != null && tempStr.trim().equalsIgnoreCase("false")) {
+			skipUnchangedList = false;
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_INCREMENTAL_EXTRACT);
+		if (tempStr != null && tempStr.trim().equalsIgnoreCase("false")) {
+			incrementalExtract = false;
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_SITE_BASE_URL);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			siteBaseURL = tempStr.trim();
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				extractStrategy = EXTRACT_STRATEGY.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_CHECKSUM_RETENTION);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			checksumRetention = parseLong(tempStr);
+			
+			if (checksumRetention <= 0L) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_CHECKSUM_RETENTION, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_TTL);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			videoLinkCacheTTL = parseLong(tempStr); //'zero' to disable cache
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_SIZE);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			videoLinkCacheSize = (int)parseLong(tempStr);
+			
+			if (videoLinkCacheSize <= 0) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_SIZE, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_LOGIN);
 		if (tempStr != null && !tempStr.trim().equals("")) {
 			login = tempStr.trim();
@@ -227,7 +576,7 @@ public class WebBot implements Closeable {
 		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_DATE_FILTER);
 		if (tempStr != null && !tempStr.trim().equals("")) {
-			dateFilter = new NotificationFilter(tempStr.trim().replaceAll("TODAY", dateFormat.format(new Date())));
+			dateFilterValue = tempStr.trim();
 		}
 		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_FILTER);
@@ -235,6 +584,16 @@ public class WebBot implements Closeable {
 			titleFilter = new NotificationFilter(tempStr.trim());
 		}
 		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				titleMatchMode = TITLE_MATCH_MODE.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_TOKEN);
 		if (tempStr != null && !tempStr.trim().equals("")) {
 			tgBotToken = tempStr.trim();
@@ -245,11 +604,63 @@ public class WebBot implements Closeable {
 			tgBotChatID = tempStr.trim();
 		}
 		
-		/**
-		 * System properties "-D" value will override the app.properties
-		 */
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_API_BASE_URL);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			tgBotApiBaseURL = tempStr.trim();
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_DIGEST_MODE);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				tgDigestMode = DIGEST_MODE.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_TG_DIGEST_MODE, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_DIGEST_WINDOW);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			tgDigestWindow = parseLong(tempStr); //'zero' to send immediately
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			metricsFilePath = Paths.get(tempStr.trim());
+		}
+		
+		tempStr = appProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			metricsPort = (int)parseLong(tempStr); //'zero' to disable
+			
+			if (metricsPort < 0 || metricsPort > 65535) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_METRICS_PORT, tempStr);
+				return -1;
+			}
+		}
+		
+		//System properties "-D" value will override the app.properties
+		if (systemPropertyOverride && loadSystemProperties() != 0)
+			return -1;
+		
+		checksumHistoryPath = getStatePath(WebBotConst.WEBBOT_CHECKSUM_HISTORY_FILENAME);
+		
+		if (titleFilter != null)
+			titleFilter.setTitleMatchMode(titleMatchMode);
 		
-		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_HEADLESS_MODE);
+		if (loadSubscriptions(appProperties) != 0)
+			return -1;
+		
+		refreshDateFilter();
+		
+		return 0;
+	}
+	
+	/**
+	 * Not used when the caller has merged system properties already, see {@link #setSystemPropertyOverride(boolean)}
+	 */
+	private int loadSystemProperties() {
+		String tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_HEADLESS_MODE);
 		if (tempStr != null) {
 			if (tempStr.trim().equalsIgnoreCase("true")) {
 				browserHeadlessMode = true;
@@ -277,6 +688,30 @@ public class WebBot implements Closeable {
 			}
 		}
 		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			browserDebugPort = (int)parseLong(tempStr);
+			
+			if (browserDebugPort <= 0 || browserDebugPort > 65535) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_STATE_DIR);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			stateDir = Paths.get(tempStr.trim());
+			
+			if (!Files.isDirectory(stateDir)) {
+				try {
+					Files.createDirectories(stateDir);
+				} catch (IOException e) {
+					myLogger.error("Cannot create state directory {}: {}", WebBotConst.APP_PROPERTIES_STATE_DIR, stateDir.toAbsolutePath(), e);
+					return -1;
+				}
+			}
+		}
+		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_WAIT_TIMEOUT);
 		if (tempStr != null && !tempStr.trim().isEmpty()) {
 			waitTimeout = parseLong(tempStr);
@@ -292,6 +727,16 @@ public class WebBot implements Closeable {
 			waitBeforeQuit = parseLong(tempStr); //Can be 'zero'
 		}
 		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_TAB_POOL_SIZE);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			browserTabPoolSize = (int)parseLong(tempStr);
+			
+			if (browserTabPoolSize <= 0) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_TAB_POOL_SIZE, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_COOKIE);
 		if (tempStr != null) {
 			if (tempStr.trim().equalsIgnoreCase("false")) {
@@ -310,6 +755,40 @@ public class WebBot implements Closeable {
 			}
 		}
 		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				browserPageLoadStrategy = PageLoadStrategy.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCK_RESOURCES);
+		if (tempStr != null) {
+			if (tempStr.trim().equalsIgnoreCase("true")) {
+				browserBlockResources = true;
+			} else {
+				browserBlockResources = false;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_URLS);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			browserBlockedURLs = Arrays.asList(tempStr.trim().split("\\s*,\\s*"));
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_TYPES);
+		if (tempStr != null) {
+			browserBlockedTypes = parseResourceTypes(tempStr);
+			
+			if (browserBlockedTypes == null) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_TYPES, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_SLEEP_TIME);
 		if (tempStr != null && !tempStr.trim().isEmpty()) {
 			sleepTime = parseLong(tempStr);
@@ -320,6 +799,82 @@ public class WebBot implements Closeable {
 			}
 		}
 		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_DAEMON_MODE);
+		if (tempStr != null) {
+			if (tempStr.trim().equalsIgnoreCase("true")) {
+				daemonMode = true;
+			} else {
+				daemonMode = false;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_HTTP_FETCH_MODE);
+		if (tempStr != null) {
+			if (tempStr.trim().equalsIgnoreCase("true")) {
+				httpFetchMode = true;
+			} else {
+				httpFetchMode = false;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_SKIP_UNCHANGED_LIST);
+		if (tempStr != null) {
+			if (tempStr.trim().equalsIgnoreCase("false")) {
+				skipUnchangedList = false;
+			} else {
+				skipUnchangedList = true;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_INCREMENTAL_EXTRACT);
+		if (tempStr != null) {
+			if (tempStr.trim().equalsIgnoreCase("false")) {
+				incrementalExtract = false;
+			} else {
+				incrementalExtract = true;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_SITE_BASE_URL);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			siteBaseURL = tempStr.trim();
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				extractStrategy = EXTRACT_STRATEGY.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_CHECKSUM_RETENTION);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			checksumRetention = parseLong(tempStr);
+			
+			if (checksumRetention <= 0L) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_CHECKSUM_RETENTION, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_TTL);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			videoLinkCacheTTL = parseLong(tempStr); //'zero' to disable cache
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_SIZE);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			videoLinkCacheSize = (int)parseLong(tempStr);
+			
+			if (videoLinkCacheSize <= 0) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_SIZE, tempStr);
+				return -1;
+			}
+		}
+		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_LOGIN);
 		if (tempStr != null && !tempStr.trim().equals("")) {
 			login = tempStr.trim();
@@ -332,7 +887,7 @@ public class WebBot implements Closeable {
 		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_DATE_FILTER);
 		if (tempStr != null && !tempStr.trim().equals("")) {
-			dateFilter = new NotificationFilter(tempStr.trim().replaceAll("TODAY", dateFormat.format(new Date())));
+			dateFilterValue = tempStr.trim();
 		}
 		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_FILTER);
@@ -340,16 +895,96 @@ public class WebBot implements Closeable {
 			titleFilter = new NotificationFilter(tempStr.trim());
 		}
 		
-		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_TOKEN);
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE);
 		if (tempStr != null && !tempStr.trim().equals("")) {
-			tgBotToken = tempStr.trim();
-		}
+			try {
+				titleMatchMode = TITLE_MATCH_MODE.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_TOKEN);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			tgBotToken = tempStr.trim();
+		}
 		
 		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID);
 		if (tempStr != null && !tempStr.trim().equals("")) {
 			tgBotChatID = tempStr.trim();
 		}
 		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_API_BASE_URL);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			tgBotApiBaseURL = tempStr.trim();
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_DIGEST_MODE);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			try {
+				tgDigestMode = DIGEST_MODE.valueOf(tempStr.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_TG_DIGEST_MODE, tempStr);
+				return -1;
+			}
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_TG_DIGEST_WINDOW);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			tgDigestWindow = parseLong(tempStr); //'zero' to send immediately
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE);
+		if (tempStr != null && !tempStr.trim().equals("")) {
+			metricsFilePath = Paths.get(tempStr.trim());
+		}
+		
+		tempStr = System.getProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT);
+		if (tempStr != null && !tempStr.trim().isEmpty()) {
+			metricsPort = (int)parseLong(tempStr); //'zero' to disable
+			
+			if (metricsPort < 0 || metricsPort > 65535) {
+				myLogger.error("Invalid {}: {}", WebBotConst.APP_PROPERTIES_METRICS_PORT, tempStr);
+				return -1;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Compile all tgSubscription.[chatID] rules (system properties override as usual) into index
+	 */
+	private int loadSubscriptions(Properties appProperties) {
+		TreeMap<String, String> chatRuleMap = new TreeMap<>();
+		for (Properties sourceProperties : systemPropertyOverride ? new Properties[] {appProperties, System.getProperties()} : new Properties[] {appProperties}) {
+			for (String propertyName : sourceProperties.stringPropertyNames()) {
+				if (propertyName.startsWith(WebBotConst.APP_PROPERTIES_TG_SUBSCRIPTION_PREFIX))
+					chatRuleMap.put(propertyName.substring(WebBotConst.APP_PROPERTIES_TG_SUBSCRIPTION_PREFIX.length()), sourceProperties.getProperty(propertyName));
+			}
+		}
+		
+		if (chatRuleMap.isEmpty()) {
+			subscriptionIndex = null;
+			return 0;
+		}
+		
+		subscriptionIndex = new SubscriptionIndex();
+		for (Entry<String, String> chatRuleEntry : chatRuleMap.entrySet()) {
+			if (!subscriptionIndex.addSubscription(chatRuleEntry.getKey(), chatRuleEntry.getValue())) {
+				myLogger.error("Invalid {}{}: {}", WebBotConst.APP_PROPERTIES_TG_SUBSCRIPTION_PREFIX, chatRuleEntry.getKey(), chatRuleEntry.getValue());
+				return -1;
+			}
+		}
+		
+		//Chat without rule still gets everything
+		if (tgBotChatID != null) {
+			for (String chatID : tgBotChatID.split(",")) {
+				if (!chatRuleMap.containsKey(chatID.trim()))
+					subscriptionIndex.addAllItemChat(chatID);
+			}
+		}
 		return 0;
 	}
 	
@@ -358,18 +993,41 @@ public class WebBot implements Closeable {
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_TYPE, browserType);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_HEADLESS_MODE, browserHeadlessMode);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_USERDATA, browserUserData != null ? browserUserData.getAbsolutePath() : null);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT, browserDebugPort);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_STATE_DIR, stateDir.toAbsolutePath());
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_WAIT_TIMEOUT, waitTimeout);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_WAIT_BEFORE_QUIT, waitBeforeQuit);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_TAB_POOL_SIZE, browserTabPoolSize);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_COOKIE, browserPersistCookie);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_LOCAL_STORAGE, browserPersistLocalStorage);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY, browserPageLoadStrategy);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_BLOCK_RESOURCES, browserBlockResources);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_URLS, browserBlockedURLs);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_BROWSER_BLOCKED_TYPES, browserBlockedTypes);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_SLEEP_TIME, sleepTime);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_DAEMON_MODE, daemonMode);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_HTTP_FETCH_MODE, httpFetchMode);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_SKIP_UNCHANGED_LIST, skipUnchangedList);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_INCREMENTAL_EXTRACT, incrementalExtract);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_SITE_BASE_URL, siteBaseURL);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY, extractStrategy);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_CHECKSUM_RETENTION, checksumRetention);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_TTL, videoLinkCacheTTL);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_SIZE, videoLinkCacheSize);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_LOGIN, login);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_PASSWORD, password);
 		
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_NOTIFY_DATE_FILTER, dateFilter);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_FILTER, titleFilter);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE, titleMatchMode);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_BOT_TOKEN, tgBotToken);
 		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_BOT_CHATID, tgBotChatID);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_SUBSCRIPTION_PREFIX + "*", subscriptionIndex);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_BOT_API_BASE_URL, tgBotApiBaseURL);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_DIGEST_MODE, tgDigestMode);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_TG_DIGEST_WINDOW, tgDigestWindow);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_METRICS_FILE, metricsFilePath);
+		myLogger.debug("AppProp - {}: {}" , WebBotConst.APP_PROPERTIES_METRICS_PORT, metricsPort);
 	}
 	
 	public static void main(String[] args) {
@@ -393,59 +1051,19 @@ public class WebBot implements Closeable {
 			System.exit(-2);
 		}
 		
+		//Make sure browser quit when being killed in daemon mode, but only after current run finished
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			webBot.stop();
+			webBot.close();
+		}));
+		
 		try {
 			webBot.init();
 			
-			//Load previous state if necessary
-			webBot.loadPreviousBrowserState();
-			
-			noError = webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword());
-			
-			//If logon success
-			if (noError) {
-				List<NotificationItem> notificationItemList = webBot.extractNotificationList(webBot.getDateFilter(), webBot.getTitleFilter());
-				
-				if (notificationItemList != null) {
-					//Extract YouTube link
-					if (webBot.populateYoutubeLink(notificationItemList) != 0) {
-						//When error while getting video link, still continue
-						noError = false;
-					}
-					
-					//Populate checksum here
-					webBot.populateChecksum(notificationItemList);
-					
-					//Marked sent by checksum
-					notificationItemList.stream().forEach((notificationItem) -> {
-						if (webBot.getChecksumFilter() != null && !webBot.getChecksumFilter().filterChecksum(notificationItem)) {
-							notificationItem.setSent(true);
-							
-							myLogger.debug("Filtered by checksum (already sent): {}", notificationItem);
-						}
-					});
-					
-					//Get outgoing list by filter sent and error
-					List<NotificationItem> outNotificationItems = notificationItemList.stream().filter((notificationItem)
-							-> (!(notificationItem.isSent() || notificationItem.isGotError()))).collect(Collectors.toList());
-					
-					myLogger.debug("Outgoing outNotificationItems.size : {}", outNotificationItems.size());
-					
-					//Send TG msg, skip with gotError and mark sent afterward
-					returnCode = webBot.sendTelegramNotification(outNotificationItems, webBot.getTgBotToken(), webBot.getTgBotChatID());
-					
-					//Save the checksum for next run to prevent duplicate sending (use full list with isSent)
-					if (returnCode == 0)
-						returnCode = webBot.saveChecksumHistory(webBot.getChecksumHistoryPath(), notificationItemList);
-					
-					//Try load home again before save stated to file
-					webBot.loadMoneyTabWebHome();
-					
-					//Persist browser state
-					webBot.persistCookies();
-					webBot.persistLocalStorageItems();
-				} else {
-					noError = false;
-				}
+			if (webBot.isDaemonMode()) {
+				webBot.runDaemon();
+			} else {
+				noError = webBot.runOnce();
 			}
 		} catch (Exception e) {
 			myLogger.error("Unexpected error", e);
@@ -455,17 +1073,523 @@ public class WebBot implements Closeable {
 			myLogger.debug("WebBot End");
 		}
 		
-		//When something weird happen, just clear cookie/local storage file
-		if (!noError || returnCode != 0) {
-			webBot.clearPersistCookiesFile();
-			webBot.clearPersistLocalStorageFile();
+		if (!noError) {
+			//Only the session is not trusted, other errors (e.g. video timeout) or killed in the middle keep it
+			if (webBot.isSessionFailed() && !webBot.isStopRequested()) {
+				webBot.clearPersistCookiesFile();
+				webBot.clearPersistLocalStorageFile();
+			}
 			
 			System.exit(-3);
 		}	
 	}
 	
+	/**
+	 * Stop daemon after current run, and wait for that run to finish so the browser is not quit under it
+	 */
+	public void stop() {
+		myLogger.debug("Start stop");
+		stopLatch.countDown();
+		
+		runLock.lock();
+		runLock.unlock();
+		myLogger.debug("End stop");
+	}
+	
+	public boolean isStopRequested() {
+		return stopLatch.getCount() == 0L;
+	}
+	
+	/**
+	 * Keep the same browser and logon session, and re-run the whole cycle every sleepTime
+	 */
+	public void runDaemon() {
+		myLogger.debug("Start runDaemon with sleepTime: {}", sleepTime);
+		
+		while (!isStopRequested() && !Thread.currentThread().isInterrupted()) {
+			long cycleSleepTime = runCycle();
+			try {
+				myLogger.debug("Sleep before next cycle : {}", cycleSleepTime);
+				stopLatch.await(cycleSleepTime, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		myLogger.debug("End runDaemon");
+	}
+	
+	/**
+	 * One cycle of daemon mode, the caller should wait the returned time before next cycle
+	 * @return sleep time before next cycle
+	 */
+	public long runCycle() {
+		//Date may be changed since last cycle
+		refreshDateFilter();
+		
+		boolean noError = false;
+		try {
+			noError = runOnce();
+		} catch (WebDriverException e) {
+			myLogger.error("Browser error in cycle", e);
+			discardWebDriver();
+		} catch (Exception e) {
+			myLogger.error("Unexpected error in cycle", e);
+		}
+		
+		if (!noError) {
+			//Browser may be gone even the error is caught inside, then next cycle should start a new one
+			if (webDriver != null && !isWebDriverAlive())
+				discardWebDriver();
+			
+			//Same as single run, only the session is not trusted
+			if (isSessionFailed && !isStopRequested()) {
+				clearPersistCookiesFile();
+				clearPersistLocalStorageFile();
+			}
+		}
+		
+		long cycleSleepTime = nextSleepTime > 0L ? nextSleepTime : sleepTime;
+		nextSleepTime = 0L;
+		return cycleSleepTime;
+	}
+	
+	/**
+	 * Login (if necessary), extract -> resolve -> send for one cycle
+	 * @return true if whole cycle done without error
+	 */
+	public boolean runOnce() {
+		boolean noError = false;
+		runLock.lock();
+		try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_RUN)) {
+			isSessionFailed = false;
+			noError = runStages();
+			return noError;
+		} finally {
+			if (!noError)
+				metricsRegistry.increment(MetricsRegistry.COUNTER_ERRORS, WebBotConst.METRICS_STAGE_RUN, 1L);
+			exportMetrics();
+			runLock.unlock();
+		}
+	}
+	
+	private boolean runStages() {
+		boolean noError = true;
+		boolean isBrowserUsed = false;
+		List<NotificationItem> notificationItemList = null;
+		
+		//Set by fetch / extract of this run
+		currentListFingerprint = null;
+		isListUnchanged = false;
+		newestExtractedItem = null;
+		
+		//Try plain http first, and only fallback to browser when session is invalid
+		if (httpFetchMode)
+			notificationItemList = fetchByHttp();
+		
+		if (notificationItemList == null) {
+			isBrowserUsed = true;
+			prepareWebDriver();
+			
+			//If logon failed or cannot get the list
+			notificationItemList = loginAndExtractNotificationList();
+			
+			if (notificationItemList == null)
+				return false;
+		} else if (!isListUnchanged && notificationItemList.stream().anyMatch((notificationItem) 
+				-> notificationItem.getPageLink() != null && notificationItem.getVideoLink() == null && !notificationItem.isSent())) {
+			//Some video link cannot be got by http, so still need browser for those
+			isBrowserUsed = true;
+			prepareWebDriver();
+			
+			if (!loginMoneyTabWeb(login, password))
+				return false;
+		}
+		
+		//Everything in the list is already handled by last completed run
+		if (isListUnchanged) {
+			myLogger.debug("Notification list unchanged, skip resolving, hashing and sending");
+			metricsRegistry.increment(MetricsRegistry.COUNTER_SKIPPED, WebBotConst.METRICS_STAGE_RUN, 1L);
+			
+			if (isBrowserUsed)
+				persistBrowserState();
+			return true;
+		}
+		
+		//Video already sent no need to be resolved again
+		markSentByPreKey(notificationItemList);
+		
+		//Extract YouTube link
+		if (populateYoutubeLink(notificationItemList) != 0) {
+			//When error while getting video link, still continue
+			noError = false;
+		}
+		
+		if (videoLinkCache != null)
+			videoLinkCache.save();
+		
+		//Populate checksum here
+		try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_CHECKSUM)) {
+			populateChecksum(notificationItemList);
+		}
+		
+		//Marked sent by checksum
+		notificationItemList.stream().forEach((notificationItem) -> {
+			if (checksumFilter != null && !checksumFilter.filterChecksum(notificationItem)) {
+				notificationItem.setSent(true);
+				
+				myLogger.debug("Filtered by checksum (already sent): {}", notificationItem);
+			}
+		});
+		
+		//Get outgoing list by filter sent and error
+		List<NotificationItem> outNotificationItems = notificationItemList.stream().filter((notificationItem)
+				-> (!(notificationItem.isSent() || notificationItem.isGotError()))).collect(Collectors.toList());
+		
+		myLogger.debug("Outgoing outNotificationItems.size : {}", outNotificationItems.size());
+		
+		//Hold new items for a short while in daemon mode, so that items come together would be sent in same digest
+		long digestWindowRemaining = getDigestWindowRemaining(outNotificationItems);
+		if (digestWindowRemaining > 0L) {
+			myLogger.debug("Hold outgoing items for digest window : {}", digestWindowRemaining);
+			nextSleepTime = Math.min(sleepTime, digestWindowRemaining);
+			outNotificationItems = new ArrayList<>();
+		}
+		
+		//Send TG msg, skip with gotError and mark sent afterward
+		int returnCode = sendTelegramNotification(outNotificationItems, tgBotChatID);
+		
+		//Save the checksum for next run to prevent duplicate sending (use full list with isSent)
+		//Even some items failed after retry, the delivered ones must not be sent again
+		int saveReturnCode = 0;
+		try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_CHECKSUM_SAVE)) {
+			saveReturnCode = saveChecksumHistory(notificationItemList);
+		}
+		if (returnCode == 0)
+			returnCode = saveReturnCode;
+		
+		//Only skip next time if nothing is failed or held, otherwise those must be picked up again
+		if (noError && returnCode == 0 && digestWindowRemaining == 0L) {
+			saveListFingerprint(currentListFingerprint);
+			saveHighWaterMark(newestExtractedItem);
+		}
+		
+		if (isBrowserUsed)
+			persistBrowserState();
+		
+		return noError && returnCode == 0;
+	}
+	
+	private void persistBrowserState() {
+		try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_PERSIST)) {
+			//Cookies and localStorage are read from current page
+			prepareForPersist();
+			
+			//Persist browser state
+			persistCookies();
+			persistLocalStorageItems();
+		}
+	}
+	
+	/**
+	 * Fingerprint of whole list before filter (and the filters), so any new, removed or edited item would change it
+	 */
+	static String computeListFingerprint(List<NotificationItem> notificationItemList, NotificationFilter notifyDateFilter, NotificationFilter notifyTitleFilter) {
+		StringBuilder fingerprintSource = new StringBuilder();
+		fingerprintSource.append(notifyDateFilter).append('\n').append(notifyTitleFilter).append('\n');
+		
+		for (NotificationItem notificationItem : notificationItemList) {
+			fingerprintSource.append(notificationItem.getType()).append('\t')
+				.append(notificationItem.getDateInString()).append('\t')
+				.append(notificationItem.getTitle()).append('\t')
+				.append(notificationItem.getFullDescription()).append('\t')
+				.append(notificationItem.getPageLink()).append('\n');
+		}
+		return DigestUtils.sha256Hex(fingerprintSource.toString());
+	}
+	
+	/**
+	 * @return true if same as last completed run, then resolving video links can be skipped
+	 */
+	private boolean checkListUnchanged(List<NotificationItem> extractedItemList, NotificationFilter notifyDateFilter, NotificationFilter notifyTitleFilter) {
+		currentListFingerprint = computeListFingerprint(extractedItemList, notifyDateFilter, notifyTitleFilter);
+		isListUnchanged = skipUnchangedList && currentListFingerprint.equals(persistedListFingerprint);
+		
+		myLogger.debug("Notification list fingerprint: {}, unchanged: {}", currentListFingerprint, isListUnchanged);
+		return isListUnchanged;
+	}
+	
+	/**
+	 * @return "yyyyMMdd" of oldest date accepted by date filter, null if not a white list (then no window)
+	 */
+	private static String getDateWindowStartKey(NotificationFilter notifyDateFilter) {
+		if (notifyDateFilter == null || notifyDateFilter.isBlackListFilter())
+			return null;
+		
+		String windowStartKey = null;
+		for (String dateInString : notifyDateFilter.getFilterItemSet()) {
+			String dateKey = HighWaterMark.toDateKey(dateInString);
+			if (dateKey == null)
+				return null;
+			
+			if (windowStartKey == null || dateKey.compareTo(windowStartKey) < 0)
+				windowStartKey = dateKey;
+		}
+		return windowStartKey;
+	}
+	
+	/**
+	 * List is newest first, but a pinned or out of order item may be older than the ones below it.
+	 * So stop at the high-water mark item itself, or after a run of items older than the mark or date window
+	 * (also done by the extract script). Older items before the stop are still added, filters decide on them.
+	 * @param highWaterMark null if no mark
+	 * @param windowStartKey null if no date window
+	 * @return false if extraction should stop here, the item is not added
+	 */
+	static boolean addExtractedItem(List<NotificationItem> extractedItemList, NotificationItem notificationItem, HighWaterMark highWaterMark, String windowStartKey) {
+		if (highWaterMark != null && highWaterMark.isMarkItem(notificationItem)) {
+			myLogger.debug("Stop extraction at high-water mark : {}", notificationItem);
+			return false;
+		}
+		
+		if (isOlderThanExtractWindow(notificationItem, highWaterMark, windowStartKey)) {
+			int olderItemCount = 1;
+			for (int i=extractedItemList.size()-1; i>=0 && olderItemCount<WebBotConst.EXTRACT_OLDER_ITEM_STOP_COUNT
+					&& isOlderThanExtractWindow(extractedItemList.get(i), highWaterMark, windowStartKey); i--)
+				olderItemCount++;
+			
+			if (olderItemCount >= WebBotConst.EXTRACT_OLDER_ITEM_STOP_COUNT) {
+				myLogger.debug("Stop extraction after {} older items : {}", olderItemCount, notificationItem);
+				return false;
+			}
+		}
+		
+		extractedItemList.add(notificationItem);
+		return true;
+	}
+	
+	private static boolean isOlderThanExtractWindow(NotificationItem notificationItem, HighWaterMark highWaterMark, String windowStartKey) {
+		if (highWaterMark != null && highWaterMark.isOlderThanMark(notificationItem))
+			return true;
+		
+		String itemDateKey = HighWaterMark.toDateKey(notificationItem.getDateInString());
+		return windowStartKey != null && itemDateKey != null && itemDateKey.compareTo(windowStartKey) < 0;
+	}
+	
+	private void saveHighWaterMark(NotificationItem notificationItem) {
+		if (!incrementalExtract || notificationItem == null)
+			return;
+		
+		//Never move back, e.g. only a pinned older item was extracted before the mark
+		if (highWaterMark != null && highWaterMark.isOlderThanMark(notificationItem))
+			return;
+		
+		HighWaterMark newHighWaterMark = HighWaterMark.of(notificationItem);
+		if (newHighWaterMark.equals(highWaterMark))
+			return;
+		
+		if (newHighWaterMark.save(getStatePath(WebBotConst.WEBBOT_HIGH_WATER_MARK_FILENAME))) {
+			myLogger.debug("High-water mark saved : {}", newHighWaterMark);
+			highWaterMark = newHighWaterMark;
+		}
+	}
+	
+	private void readListFingerprint() {
+		Path fingerprintPath = getStatePath(WebBotConst.WEBBOT_LIST_FINGERPRINT_FILENAME);
+		if (!Files.isReadable(fingerprintPath))
+			return;
+		
+		try {
+			persistedListFingerprint = new String(Files.readAllBytes(fingerprintPath), StandardCharsets.UTF_8).trim();
+			myLogger.debug("Persisted notification list fingerprint: {}", persistedListFingerprint);
+		} catch (IOException e) {
+			myLogger.error("Cannot read list fingerprint : {}", fingerprintPath.toAbsolutePath(), e);
+		}
+	}
+	
+	private void saveListFingerprint(String listFingerprint) {
+		if (!skipUnchangedList || listFingerprint == null || listFingerprint.equals(persistedListFingerprint))
+			return;
+		
+		Path fingerprintPath = getStatePath(WebBotConst.WEBBOT_LIST_FINGERPRINT_FILENAME);
+		Path tempFilePath = fingerprintPath.resolveSibling(fingerprintPath.getFileName() + ".tmp");
+		try {
+			Files.write(tempFilePath, listFingerprint.getBytes(StandardCharsets.UTF_8));
+			Files.move(tempFilePath, fingerprintPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			persistedListFingerprint = listFingerprint;
+		} catch (IOException e) {
+			myLogger.error("Cannot save list fingerprint : {}", fingerprintPath.toAbsolutePath(), e);
+		}
+	}
+	
+	/**
+	 * Write metrics file if configured, the http endpoint always serve the latest
+	 */
+	private void exportMetrics() {
+		if (metricsFilePath != null)
+			metricsRegistry.writePrometheusFile(metricsFilePath);
+	}
+	
+	/**
+	 * Login check is skipped if already verified in this browser,
+	 * and only login again if the notification page tell us the session is gone
+	 */
+	private List<NotificationItem> loginAndExtractNotificationList() {
+		boolean isLogonCheckSkipped = isLogonVerified;
+		
+		if (!loginMoneyTabWeb(login, password))
+			return null;
+		
+		List<NotificationItem> notificationItemList = extractNotificationList(dateFilter, titleFilter);
+		
+		if (notificationItemList == null && isLogonCheckSkipped && !isLogonVerified) {
+			myLogger.warn("Session may be gone since last verified, try login again");
+			
+			if (!loginMoneyTabWeb(login, password))
+				return null;
+			
+			notificationItemList = extractNotificationList(dateFilter, titleFilter);
+		}
+		return notificationItemList;
+	}
+	
+	/**
+	 * Cookies and localStorage belong to the document of current frame, so back to top and only load home if not on the site
+	 */
+	private void prepareForPersist() {
+		try {
+			webDriver.switchTo().defaultContent();
+			
+			String currentURL = webDriver.getCurrentUrl();
+			if (currentURL != null && currentURL.startsWith(siteBaseURL)) {
+				myLogger.debug("Persist browser state from current page: {}", currentURL);
+				return;
+			}
+		} catch (Exception e) {
+			myLogger.error("Cannot get current page", e);
+		}
+		
+		loadMoneyTabWebHome();
+	}
+	
+	/**
+	 * Get notification list and video links by plain http with persisted cookies
+	 * @return null if session is invalid (or no cookie), then browser is needed
+	 */
+	public List<NotificationItem> fetchByHttp() {
+		myLogger.debug("Start fetchByHttp");
+		long startTime = System.nanoTime();
+		
+		Set<Cookie> cookies = WebDriverMgr.readCookies(getStatePath(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME));
+		if (cookies == null || cookies.isEmpty()) {
+			myLogger.debug("No persisted cookie, so cannot use http");
+			return null;
+		}
+		
+		try (MoneyTabHttpClient httpClient = new MoneyTabHttpClient(siteBaseURL, cookies, waitTimeout)) {
+			List<NotificationItem> notificationItemList = httpClient.fetchNotificationList();
+			if (notificationItemList == null) {
+				myLogger.warn("Cannot fetch notification list by http, fallback to browser");
+				return null;
+			}
+			
+			//Server rendered page is parsed at once, but still cut here so that seen items cost no video page
+			if (incrementalExtract) {
+				String windowStartKey = getDateWindowStartKey(dateFilter);
+				List<NotificationItem> fetchedItemList = notificationItemList;
+				notificationItemList = new ArrayList<>();
+				for (NotificationItem notificationItem : fetchedItemList) {
+					if (!addExtractedItem(notificationItemList, notificationItem, highWaterMark, windowStartKey))
+						break;
+				}
+			}
+			if (!notificationItemList.isEmpty())
+				newestExtractedItem = HighWaterMark.findNewestItem(notificationItemList);
+			
+			boolean isUnchanged = checkListUnchanged(notificationItemList, dateFilter, titleFilter);
+			
+			notificationItemList = notificationItemList.stream().filter((notificationItem) 
+					-> isNotificationItemAccepted(notificationItem, dateFilter, titleFilter)).collect(Collectors.toList());
+			
+			//Nothing new, so no need to fetch any video page
+			if (isUnchanged)
+				return notificationItemList;
+			
+			markSentByPreKey(notificationItemList);
+			
+			applyVideoLinkCache(notificationItemList);
+			
+			List<NotificationItem> videoItemList = notificationItemList.stream().filter((notificationItem) 
+					-> notificationItem.getPageLink() != null && notificationItem.getVideoLink() == null && !notificationItem.isSent()).collect(Collectors.toList());
+			
+			for (NotificationItem notificationItem : videoItemList) {
+				//Leave it null if cannot get, then browser would try again
+				notificationItem.setVideoLink(httpClient.fetchYoutubeLink(notificationItem.getPageLink()));
+			}
+			
+			updateVideoLinkCache(videoItemList);
+			
+			myLogger.debug("Output notificationItemList.size : {}", notificationItemList.size());
+			return notificationItemList;
+		} finally {
+			metricsRegistry.recordLatency(WebBotConst.METRICS_STAGE_HTTP_FETCH, System.nanoTime() - startTime);
+			myLogger.debug("End fetchByHttp");
+		}
+	}
+	
 	public void init() {
+		//Browser would be started on demand if http is used
+		if (!httpFetchMode) {
+			try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_BROWSER_LAUNCH)) {
+				initWebDriver();
+			}
+		}
+		
+		//Read the checksum history and convert it to filter
+		readChecksumHistory(checksumHistoryPath);
+		
+		if (skipUnchangedList)
+			readListFingerprint();
+		
+		if (incrementalExtract)
+			highWaterMark = HighWaterMark.read(getStatePath(WebBotConst.WEBBOT_HIGH_WATER_MARK_FILENAME));
+		
+		//Keep connections alive across batches (and polls in daemon mode)
+		if (telegramBot == null) {
+			telegramBot = new TelegramBot(tgBotApiBaseURL, tgBotToken, waitTimeout);
+			telegramBot.setMetricsRegistry(metricsRegistry);
+		}
+		
+		if (metricsPort > 0) {
+			try {
+				metricsServer = new MetricsHttpServer(metricsRegistry, metricsPort);
+			} catch (IOException e) {
+				//Not critical, keep running without endpoint
+				myLogger.error("Cannot start metrics endpoint at port: {}", metricsPort, e);
+			}
+		}
+		
+		if (videoLinkCacheTTL > 0L) {
+			videoLinkCache = new VideoLinkCache(getStatePath(WebBotConst.WEBBOT_VIDEOLINK_CACHE_FILENAME), videoLinkCacheTTL, videoLinkCacheSize);
+			videoLinkCache.load();
+		}
+	}
+	
+	public void initWebDriver() {
 		WebDriverMgr webDriverMgr = new WebDriverMgr();
+		webDriverMgr.setPageLoadStrategy(browserPageLoadStrategy);
+		webDriverMgr.setChromeDebugPort(browserDebugPort);
+		
+		if (browserBlockResources) {
+			blockProfile = new BlockProfile();
+			blockProfile.blockURLs(BlockProfile.DEFAULT_BLOCKED_URL_PATTERNS);
+			blockProfile.blockURLs(browserBlockedURLs);
+			blockProfile.blockResourceTypes(browserBlockedTypes);
+			blockProfile.allowOnPage(BlockProfile.VIDEO_PAGE_URL_REGEX, BlockProfile.VIDEO_PAGE_ALLOWED_URL_PATTERNS);
+			myLogger.debug("Browser blockProfile: {}", blockProfile);
+			
+			webDriverMgr.setBlockProfile(blockProfile);
+		}
 		ArrayList<String> driverOptions = new ArrayList<>();
 		
 		if (browserType.equals(DRIVER_TYPE.FIREFOX)) {
@@ -489,13 +1613,45 @@ public class WebBot implements Closeable {
 			
 			webDriver = webDriverMgr.getWebDriver(DRIVER_TYPE.CHROME, browserHeadlessMode, driverOptions);
 		}
+	}
+	
+	/**
+	 * Start browser and load previous state if not yet done
+	 */
+	public void prepareWebDriver() {
+		if (webDriver == null) {
+			try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_BROWSER_LAUNCH)) {
+				initWebDriver();
+			}
+		}
 		
-		//Read the checksum history and convert it to filter
-		readChecksumHistory(checksumHistoryPath);
+		//Load previous state if necessary
+		if (!isBrowserStateLoaded) {
+			try (MetricsRegistry.Timer timer = metricsRegistry.startTimer(WebBotConst.METRICS_STAGE_STATE_RESTORE)) {
+				loadPreviousBrowserState();
+			}
+			isBrowserStateLoaded = true;
+		}
 	}
 
 	@Override
-	public void close() {
+	public synchronized void close() {
+		//Shared bot is kept for next init, it is closed by its owner
+		if (telegramBot != null && !isTelegramBotShared) {
+			telegramBot.close();
+			telegramBot = null;
+		}
+		
+		if (metricsServer != null) {
+			metricsServer.close();
+			metricsServer = null;
+		}
+		
+		if (checksumJournal != null) {
+			checksumJournal.close();
+			checksumJournal = null;
+		}
+		
 		if (webDriver != null) {
 			if (waitBeforeQuit != 0L) {
 				try {
@@ -506,18 +1662,43 @@ public class WebBot implements Closeable {
 				}
 			}
 			
+			discardWebDriver();
+		}
+	}
+	
+	/**
+	 * Quit browser and forget its state, so a new one would be started by next prepareWebDriver
+	 */
+	private void discardWebDriver() {
+		try {
 			webDriver.quit();
+		} catch (WebDriverException e) {
+			myLogger.error("Cannot quit browser", e);
 		}
+		webDriver = null;
+		isBrowserStateLoaded = false;
+		isLogonVerified = false;
+	}
+	
+	private boolean isWebDriverAlive() {
+		try {
+			webDriver.getWindowHandle();
+			return true;
+		} catch (WebDriverException e) {
+			myLogger.error("Browser session is gone", e);
+		}
+		return false;
 	}
 	
 	public boolean loadMoneyTabWebHome() {
 		myLogger.debug("Start loadMoneyTabWebHome");
 		
-		String targetURL = "https://www.money-tab.com";
+		String targetURL = siteBaseURL;
 		myLogger.debug("Target URL: {}", targetURL);
 		
 		try {
-			webDriver.get(targetURL);
+			//Only need the origin for cookies and localStorage
+			return navigateTo(targetURL, documentReadyOn(siteBaseURL));
 		} catch (Exception e) {
 			myLogger.error("Unexpected error", e);
 		} finally {
@@ -526,18 +1707,88 @@ public class WebBot implements Closeable {
 		return false;
 	}
 	
+	/**
+	 * Blocked urls depend on the page (e.g. youtube embed on video page), so set it before each navigation
+	 */
+	private void applyBlockProfile(String targetURL) {
+		if (blockProfile != null)
+			WebDriverMgr.applyBlockedURLs(webDriver, blockProfile.getBlockedURLs(targetURL));
+	}
+	
+	/**
+	 * Depends on browserPageLoadStrategy, webDriver.get may return before the page loaded,
+	 * so each navigation should wait for what it actually need.
+	 * Current document is marked before, so the wait can tell when same URL is loaded again, see {@link BrowserTabPool#pageLoaded()}
+	 * @param readyCondition null if caller would wait by itself
+	 * @return false if not ready within waitTimeout
+	 */
+	private boolean navigateTo(String targetURL, ExpectedCondition<?> readyCondition) {
+		applyBlockProfile(targetURL);
+		try {
+			BrowserTabPool.markStalePage(webDriver);
+		} catch (WebDriverException e) {
+			//Nothing could be mistaken for the new page if no script can be run on current one
+			myLogger.debug("Cannot mark current page: {}", e.getMessage());
+		}
+		webDriver.get(targetURL);
+		
+		return waitUntilReady(readyCondition);
+	}
+	
+	private boolean waitUntilReady(ExpectedCondition<?> readyCondition) {
+		if (readyCondition == null)
+			return true;
+		
+		try {
+			new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout)).until(readyCondition);
+			return true;
+		} catch (TimeoutException tie) {
+			myLogger.warn("Page not ready: {}", webDriver.getCurrentUrl());
+		}
+		return false;
+	}
+	
+	/**
+	 * DOM of new document parsed on target site, old page may still be there right after navigation if not NORMAL strategy
+	 */
+	private static ExpectedCondition<Boolean> documentReadyOn(String urlPrefix) {
+		ExpectedCondition<Boolean> pageLoaded = BrowserTabPool.pageLoaded();
+		return (driver) -> driver.getCurrentUrl().startsWith(urlPrefix) && pageLoaded.apply(driver);
+	}
+	
 	public void loadPreviousBrowserState() {
 		myLogger.debug("Start loadPreviousBrowserState");
 		
 		if (browserPersistCookie | browserPersistLocalStorage) {
-			loadMoneyTabWebHome();
+			boolean isHomeLoaded = false;
 			
 			if (browserPersistCookie) {
-				WebDriverMgr.loadCookie(Paths.get(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME), webDriver);
+				Set<Cookie> cookies = WebDriverMgr.readCookies(getStatePath(WebBotConst.WEBBOT_COOKIE_DATA_FILENAME));
+				
+				//Chrome can set all cookies before first page load, others need the site loaded to add cookie
+				if (cookies != null && !cookies.isEmpty() && !WebDriverMgr.injectCookies(webDriver, cookies)) {
+					loadMoneyTabWebHome();
+					isHomeLoaded = true;
+					cookies.forEach((cookie) -> webDriver.manage().addCookie(cookie));
+				}
 			}
 			
-			if (browserPersistLocalStorage) {
-				WebDriverMgr.loadLocalStorageItems(Paths.get(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME), webDriver);
+			//LocalStorage is per origin, so site must be loaded anyway
+			if (browserPersistLocalStorage && Files.isReadable(getStatePath(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME))) {
+				if (!isHomeLoaded)
+					loadMoneyTabWebHome();
+				
+				HashMap<String, String> localStorageItemsMap = WebDriverMgr.readLocalStorageItems(getStatePath(WebBotConst.WEBBOT_LOCALSTORAGE_DATA_FILENAME));
+				if (localStorageItemsMap != null) {
+					//Not critical, e.g. SecurityError if home not loaded, then just login again
+					try {
+						long count = WebDriverMgr.setLocalStorageItems(webDriver, localStorageItemsMap);
+						myLogger.debug("Final localStorageItems count: {}", count);
+						persistedLocalStorageItems = localStorageItemsMap;
+					} catch (WebDriverException e) {
+						myLogger.error("Cannot restore localStorageItems", e);
+					}
+				}
 			}
 		}
 		
@@ -546,20 +1797,39 @@ public class WebBot implements Closeable {
 	
 	public boolean loginMoneyTabWeb(String username, String password) {
 		myLogger.debug("Start loginMoneyTabWeb");
+		long startTime = System.nanoTime();
 		
-		String targetURL = "https://www.money-tab.com";
+		String targetURL = siteBaseURL;
 		myLogger.debug("Target URL: {}", targetURL);
 		
 		try {
-			webDriver.get(targetURL);
+			if (isLogonVerified) {
+				myLogger.debug("Logon already verified in this browser, skip loading home");
+				return true;
+			}
+			
+			navigateTo(targetURL, documentReadyOn(siteBaseURL));
+			
+			//Either profile link or login button, whichever rendered first
+			String pageState = new PageStateWaiter(webDriver)
+					.on(PAGE_STATE_LOGON, PROFILE_LINK_SELECTOR)
+					.on(PAGE_STATE_LOGIN_BUTTON, LOGIN_BUTTON_SELECTOR)
+					.waitForAny(waitTimeout);
 			
-			if (checkIfAlreadyLogon())
+			if (PAGE_STATE_LOGON.equals(pageState)) {
+				isLogonVerified = true;
 				return true;
+			}
+			
+			if (pageState == null) {
+				myLogger.error("Neither profile link nor login button found : {}", webDriver.getTitle());
+				return false;
+			}
 			
 			myLogger.debug("Checking if loginButton here");
 			
 			WebElement loginButton = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-					.until(driver -> driver.findElement(By.cssSelector("section > div > div > span[role='button']:has(span)")));
+					.until(driver -> driver.findElement(By.cssSelector(LOGIN_BUTTON_SELECTOR)));
 			
 			String buttonTitle = loginButton.getText();
 			if (!buttonTitle.equals("登入")) {
@@ -594,18 +1864,29 @@ public class WebBot implements Closeable {
 			
 			submitButton.click();
 			
-			if (checkIfAlreadyLogon())
+			String loginState = new PageStateWaiter(webDriver)
+					.on(PAGE_STATE_LOGON, PROFILE_LINK_SELECTOR)
+					.on(PAGE_STATE_LOGIN_ERROR, LOGIN_ERROR_SELECTOR)
+					.waitForAny(waitTimeout);
+			
+			if (PAGE_STATE_LOGON.equals(loginState)) {
+				isLogonVerified = true;
+				isSessionFailed = false;
 				return true;
+			}
 			
 			//Login failed
-			WebElement loginResult = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-					.until(ExpectedConditions.visibilityOf(loginForm.findElement(By.cssSelector("div > div.input-row + div.input-row + div"))));
-			myLogger.error("Login failed result: {}", loginResult.getText());
+			isSessionFailed = true;
+			if (PAGE_STATE_LOGIN_ERROR.equals(loginState))
+				myLogger.error("Login failed result: {}", webDriver.findElement(By.cssSelector(LOGIN_ERROR_SELECTOR)).getText());
+			else
+				myLogger.error("Login failed without result : {}", webDriver.getTitle());
 		} catch (NoSuchElementException e) {
 			myLogger.error("Cannot find related element in : " + webDriver.getTitle(), e);
 		} catch (Exception e) {
 			myLogger.error("Unexpected error", e);
 		} finally {
+			metricsRegistry.recordLatency(WebBotConst.METRICS_STAGE_LOGIN, System.nanoTime() - startTime);
 			myLogger.debug("End loginMoneyTabWeb");
 		}
 		return false;
@@ -614,17 +1895,25 @@ public class WebBot implements Closeable {
 	//We cannot put checksum filter here, bcoz we still need get to same list of checksum to save in file through out a day
 	public List<NotificationItem> extractNotificationList(final NotificationFilter notifyDateFilter, final NotificationFilter notifyTitleFilter) {
 		myLogger.debug("Start extractNotificationList");
+		long startTime = System.nanoTime();
 		
-		String targetURL = "https://www.money-tab.com/profile/notification";
+		String targetURL = siteBaseURL + WebBotConst.MONEYTAB_NOTIFICATION_PATH;
 		myLogger.debug("Target URL: {}", targetURL);
 		
 		try {
-			webDriver.get(targetURL);
+			//Same URL as last poll, so must wait for new document before checking redirect and container
+			if (!navigateTo(targetURL, BrowserTabPool.pageLoaded())) {
+				myLogger.error("Notification page not loaded : {}", webDriver.getCurrentUrl());
+				isLogonVerified = false;
+				return null;
+			}
 			
 			myLogger.debug("Check if the page would be redriect due to unauthorize or something ...");
 			
 			if (!checkIfPageURLMatched(targetURL)) {
 				myLogger.error("Notification page has been redirect to : {}", webDriver.getCurrentUrl());
+				isLogonVerified = false;
+				isSessionFailed = true;
 				return null;
 			}
 			
@@ -636,81 +1925,169 @@ public class WebBot implements Closeable {
 			
 			myLogger.debug("notificationDiv found, try get list of notification items ...");
 			
-			List<WebElement> notificationItemElementList = notificationDiv.findElements(By.cssSelector("div[class^='notice_item']"));
+			String windowStartKey = getDateWindowStartKey(notifyDateFilter);
 			
-			myLogger.debug("notificationItemElementList.size : {}", notificationItemElementList.size());
+			List<NotificationItem> extractedItemList = null;
+			if (extractStrategy.equals(EXTRACT_STRATEGY.SCRIPT))
+				extractedItemList = extractNotificationItemsByScript(windowStartKey);
 			
-			ArrayList<NotificationItem> notificationItemList = new ArrayList<>();
-			notificationItemElementList.forEach((notificationItemElement) -> {
-				WebElement notificationLinkElement = null;
-				WebElement notificationDateElement = null;
-				WebElement notificationTitleElement = null;
-				WebElement notificationNoLinkDivElement = null;
-				NotificationItem notificationItem = new NotificationItem();
-
-				try {
-					//Make another try catch so that if individual item got problem, then still can proceed.
-
-					WebElement notificationTypeElement = notificationItemElement.findElement(By.cssSelector("div > span + span"));
-					if (notificationTypeElement.getText().trim().equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO)) {
-						notificationLinkElement = notificationItemElement.findElement(By.cssSelector("div + div > a.block[href]"));
-						notificationDateElement = notificationLinkElement.findElement(By.cssSelector("div > span"));
-						notificationTitleElement = notificationLinkElement.findElement(By.cssSelector("div:has(span) + p"));
-						
-						notificationItem.setType(notificationTypeElement.getText().trim());
-						notificationItem.setDateInString(notificationDateElement.getText().trim());
-						notificationItem.setTitle(notificationTitleElement.getText().trim());
-						notificationItem.setFullDescription(notificationLinkElement.getText().trim());
-						notificationItem.setPageLink(notificationLinkElement.getAttribute("href").trim());
-						
-						//Delay the checksum after got video link
-						//notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
-					} else {
-						//No link if just news notification
-						notificationNoLinkDivElement = notificationItemElement.findElement(By.cssSelector("div + div"));
-						notificationDateElement = notificationNoLinkDivElement.findElement(By.cssSelector("div > span"));
-						notificationTitleElement = notificationNoLinkDivElement.findElement(By.cssSelector("div:has(span) + p"));
-						
-						notificationItem.setType(notificationTypeElement.getText().trim());
-						notificationItem.setDateInString(notificationDateElement.getText().trim());
-						notificationItem.setTitle(notificationTitleElement.getText().trim());
-						notificationItem.setFullDescription(notificationNoLinkDivElement.getText().trim());
-						
-						//Delay the checksum after got video link
-						//notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
-					}
-				} catch (NoSuchElementException insideEx) {
-					myLogger.error("Cannot find related element in individual item: " + webDriver.getTitle(), insideEx);
-					return;
-				}
-				
-				if (notifyDateFilter != null && !notifyDateFilter.filterDate(notificationItem)) {
-					myLogger.debug("Filtered by date: {}", notificationItem);
-					return;
-				}
-				
-				//Title filter only apply for new video
-				if (notificationItem.getType().equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO)) {
-					if (notifyTitleFilter != null && !notifyTitleFilter.filterTitle(notificationItem)) {
-						myLogger.debug("Filtered by title: {}", notificationItem);
-						return;
-					}
-				}
-				
-				notificationItemList.add(notificationItem);
-				myLogger.debug("Add to list : {}", notificationItem);
-			});
+			//Fallback if script cannot be run on the page
+			if (extractedItemList == null)
+				extractedItemList = extractNotificationItemsByElement(notificationDiv, windowStartKey);
+			
+			if (!extractedItemList.isEmpty())
+				newestExtractedItem = HighWaterMark.findNewestItem(extractedItemList);
+			
+			checkListUnchanged(extractedItemList, notifyDateFilter, notifyTitleFilter);
+			
+			List<NotificationItem> notificationItemList = extractedItemList.stream().filter((notificationItem) 
+					-> isNotificationItemAccepted(notificationItem, notifyDateFilter, notifyTitleFilter)).collect(Collectors.toList());
+			notificationItemList.forEach((notificationItem) -> myLogger.debug("Add to list : {}", notificationItem));
 			
 			myLogger.debug("Output notificationItemList.size : {}", notificationItemList.size());
+			metricsRegistry.increment(MetricsRegistry.COUNTER_ITEMS, WebBotConst.METRICS_STAGE_EXTRACTION, notificationItemList.size());
 			return notificationItemList;
 		} catch (NoSuchElementException e) {
 			myLogger.error("Cannot find related element in : " + webDriver.getTitle(), e);
 		} catch (Exception e) {
 			myLogger.error("Unexpected error", e);
 		} finally {
+			metricsRegistry.recordLatency(WebBotConst.METRICS_STAGE_EXTRACTION, System.nanoTime() - startTime);
 			myLogger.debug("End extractNotificationList");
 		}
-		return null;
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ERRORS, WebBotConst.METRICS_STAGE_EXTRACTION, 1L);
+		
+		//Expired session may also show as missing container, so check logon again next time
+		isLogonVerified = false;
+		return null;
+	}
+	
+	/**
+	 * Extract by WebDriver element, which need a round trip for every field of every item
+	 * @param windowStartKey stop at item older than this date key, null for no date window
+	 */
+	private List<NotificationItem> extractNotificationItemsByElement(WebElement notificationDiv, String windowStartKey) {
+		List<WebElement> notificationItemElementList = notificationDiv.findElements(By.cssSelector("div[class^='notice_item']"));
+		
+		myLogger.debug("notificationItemElementList.size : {}", notificationItemElementList.size());
+		
+		ArrayList<NotificationItem> notificationItemList = new ArrayList<>();
+		for (WebElement notificationItemElement : notificationItemElementList) {
+			WebElement notificationLinkElement = null;
+			WebElement notificationDateElement = null;
+			WebElement notificationTitleElement = null;
+			WebElement notificationNoLinkDivElement = null;
+			NotificationItem notificationItem = new NotificationItem();
+
+			try {
+				//Make another try catch so that if individual item got problem, then still can proceed.
+
+				WebElement notificationTypeElement = notificationItemElement.findElement(By.cssSelector("div > span + span"));
+				String notificationType = notificationTypeElement.getText().trim();
+				if (notificationType.equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO)) {
+					notificationLinkElement = notificationItemElement.findElement(By.cssSelector("div + div > a.block[href]"));
+					notificationDateElement = notificationLinkElement.findElement(By.cssSelector("div > span"));
+					notificationTitleElement = notificationLinkElement.findElement(By.cssSelector("div:has(span) + p"));
+					
+					notificationItem.setType(notificationType);
+					notificationItem.setDateInString(notificationDateElement.getText().trim());
+					notificationItem.setTitle(NotificationItem.normalizeText(notificationTitleElement.getText()));
+					notificationItem.setFullDescription(NotificationItem.normalizeText(notificationLinkElement.getText()));
+					notificationItem.setPageLink(notificationLinkElement.getAttribute("href").trim());
+					
+					//Delay the checksum after got video link
+					//notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
+				} else {
+					//No link if just news notification
+					notificationNoLinkDivElement = notificationItemElement.findElement(By.cssSelector("div + div"));
+					notificationDateElement = notificationNoLinkDivElement.findElement(By.cssSelector("div > span"));
+					notificationTitleElement = notificationNoLinkDivElement.findElement(By.cssSelector("div:has(span) + p"));
+					
+					notificationItem.setType(notificationType);
+					notificationItem.setDateInString(notificationDateElement.getText().trim());
+					notificationItem.setTitle(NotificationItem.normalizeText(notificationTitleElement.getText()));
+					notificationItem.setFullDescription(NotificationItem.normalizeText(notificationNoLinkDivElement.getText()));
+					
+					//Delay the checksum after got video link
+					//notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
+				}
+			} catch (NoSuchElementException insideEx) {
+				myLogger.error("Cannot find related element in individual item: " + webDriver.getTitle(), insideEx);
+				continue;
+			}
+			
+			if (!addExtractedItem(notificationItemList, notificationItem, incrementalExtract ? highWaterMark : null, incrementalExtract ? windowStartKey : null))
+				break;
+		}
+		
+		return notificationItemList;
+	}
+	
+	/**
+	 * Extract all items in one round trip, the script returns JSON array with same selectors as element strategy
+	 * @return null if script cannot be run, item with missing element is skipped
+	 */
+	private List<NotificationItem> extractNotificationItemsByScript(String windowStartKey) {
+		myLogger.debug("Start extractNotificationItemsByScript");
+		try {
+			Object scriptResult = ((JavascriptExecutor)webDriver).executeScript(EXTRACT_NOTIFICATION_LIST_SCRIPT, WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO,
+					incrementalExtract && highWaterMark != null ? highWaterMark.toScriptArgument() : null, incrementalExtract ? windowStartKey : null,
+					WebBotConst.EXTRACT_OLDER_ITEM_STOP_COUNT);
+			if (!(scriptResult instanceof String)) {
+				myLogger.error("Unexpected extract script result: {}", scriptResult);
+				return null;
+			}
+			
+			return parseScriptResult((String)scriptResult);
+		} catch (WebDriverException | JsonParseException | IllegalStateException e) {
+			myLogger.error("Cannot extract notification list by script, fallback to element", e);
+		} finally {
+			myLogger.debug("End extractNotificationItemsByScript");
+		}
+		return null;
+	}
+	
+	/**
+	 * Title and text are normalised again, so they are the same as element strategy even if the script is changed
+	 */
+	static List<NotificationItem> parseScriptResult(String scriptResult) {
+		JsonArray itemJsonArray = JsonParser.parseString(scriptResult).getAsJsonArray();
+		myLogger.debug("itemJsonArray.size : {}", itemJsonArray.size());
+		
+		ArrayList<NotificationItem> notificationItemList = new ArrayList<>();
+		for (JsonElement itemJsonElement : itemJsonArray) {
+			if (itemJsonElement.isJsonNull()) {
+				myLogger.error("Cannot find related element in individual item");
+				continue;
+			}
+			
+			JsonObject itemJson = itemJsonElement.getAsJsonObject();
+			NotificationItem notificationItem = new NotificationItem(itemJson.get("type").getAsString(), itemJson.get("date").getAsString(), 
+					NotificationItem.normalizeText(itemJson.get("title").getAsString()), NotificationItem.normalizeText(itemJson.get("fullText").getAsString()));
+			
+			if (itemJson.has("href") && !itemJson.get("href").isJsonNull())
+				notificationItem.setPageLink(itemJson.get("href").getAsString());
+			
+			notificationItemList.add(notificationItem);
+		}
+		return notificationItemList;
+	}
+	
+	private boolean isNotificationItemAccepted(NotificationItem notificationItem, NotificationFilter notifyDateFilter, NotificationFilter notifyTitleFilter) {
+		if (notifyDateFilter != null && !notifyDateFilter.filterDate(notificationItem)) {
+			myLogger.debug("Filtered by date: {}", notificationItem);
+			return false;
+		}
+		
+		//Title filter only apply for new video
+		if (notificationItem.getType().equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO)) {
+			if (notifyTitleFilter != null && !notifyTitleFilter.filterTitle(notificationItem)) {
+				myLogger.debug("Filtered by title: {}", notificationItem);
+				return false;
+			}
+		}
+		
+		return true;
 	}
 	
 	public void populateChecksum(List<NotificationItem> notificationItemList) {
@@ -721,6 +2098,10 @@ public class WebBot implements Closeable {
 			if (notificationItem.isGotError())
 				continue;
 			
+			//Already sent by pre-key, and video link is not resolved for it
+			if (notificationItem.isSent() && notificationItem.getPageLink() != null && notificationItem.getVideoLink() == null)
+				continue;
+			
 			if (notificationItem.getPageLink() == null) {
 				notificationItem.setChecksum(DigestUtils.sha256Hex(notificationItem.getFullDescription()));
 			} else {
@@ -732,106 +2113,332 @@ public class WebBot implements Closeable {
 		myLogger.debug("End populateChecksum");
 	}
 	
-	public int populateYoutubeLink(List<NotificationItem> notificationItemList) {
-		myLogger.debug("Start populateYoutubeLink");
+	/**
+	 * Identity of video item before its video link is resolved, so sent one can be skipped without loading its page.
+	 * Only for video item, as other item is identified by its full description which is already known.
+	 */
+	static String computePreKey(NotificationItem notificationItem) {
+		if (notificationItem.getPageLink() == null)
+			return null;
 		
-		boolean gotAnyError = false;
+		return DigestUtils.sha256Hex(notificationItem.getType() + "\t" + notificationItem.getDateInString() + "\t"
+				+ notificationItem.getTitle() + "\t" + notificationItem.getPageLink());
+	}
+	
+	/**
+	 * Populate pre-key, and mark sent if it is already in checksum history
+	 */
+	public void markSentByPreKey(List<NotificationItem> notificationItemList) {
+		long count = 0L;
 		for (NotificationItem notificationItem : notificationItemList) {
-			//Skip if non video item
-			if (notificationItem.getPageLink() == null)
+			if (notificationItem.getPreKey() == null)
+				notificationItem.setPreKey(computePreKey(notificationItem));
+			
+			if (notificationItem.isSent() || notificationItem.getPreKey() == null || checksumJournal == null)
 				continue;
 			
-			try {
-				String targetURL = notificationItem.getPageLink();
-				myLogger.debug("Target URL: {}", targetURL);
-				
-				webDriver.get(targetURL);
+			if (checksumJournal.containsPreKey(notificationItem.getPreKey())) {
+				notificationItem.setSent(true);
+				count++;
 				
-				//Try check if logon profile to ensure page loaded fully
-				if (!checkIfAlreadyLogon()) {
-					notificationItem.setGotError(true);
-					myLogger.warn("Mark notification item has error: {}", notificationItem);
+				myLogger.debug("Filtered by pre-key (already sent): {}", notificationItem);
+			}
+		}
+		
+		if (count > 0L)
+			metricsRegistry.increment(MetricsRegistry.COUNTER_SKIPPED, WebBotConst.METRICS_STAGE_VIDEO_RESOLVE, count);
+	}
+	
+	public int populateYoutubeLink(List<NotificationItem> notificationItemList) {
+		myLogger.debug("Start populateYoutubeLink");
+		
+		//Only cache miss would cost a page load
+		applyVideoLinkCache(notificationItemList);
+		
+		//Skip if non video item, already got the link or already sent
+		List<NotificationItem> videoItemList = notificationItemList.stream().filter((notificationItem) 
+				-> notificationItem.getPageLink() != null && notificationItem.getVideoLink() == null && !notificationItem.isSent()).collect(Collectors.toList());
+		
+		boolean gotAnyError = false;
+		if (browserTabPoolSize <= 1 || videoItemList.size() <= 1) {
+			for (NotificationItem notificationItem : videoItemList) {
+				if (!resolveYoutubeLink(notificationItem, true))
 					gotAnyError = true;
-					continue;
+			}
+		} else {
+			try (BrowserTabPool tabPool = new BrowserTabPool(webDriver, Math.min(browserTabPoolSize, videoItemList.size()))) {
+				tabPool.setBlockProfile(blockProfile);
+				int poolSize = tabPool.size();
+				
+				//Let all tabs loading first
+				for (int i=0; i<poolSize; i++) {
+					tabPool.startLoading(i, videoItemList.get(i).getPageLink());
 				}
 				
-				//Try check if 'join' button here to ensure page loaded fully
-				if (!checkIfVideoPageFullyLoaded()) {
-					notificationItem.setGotError(true);
-					myLogger.warn("Mark notification item has error: {}", notificationItem);
-					gotAnyError = true;
-					continue;
+				//Read each tab in order, then reuse the tab for next pending item
+				for (int i=0; i<videoItemList.size(); i++) {
+					int tabIndex = i % poolSize;
+					tabPool.switchTo(tabIndex);
+					
+					//Reused tab may still show the previous video, whose youtube link must not be taken
+					if (!waitUntilReady(BrowserTabPool.pageLoaded())) {
+						videoItemList.get(i).setGotError(true);
+						myLogger.warn("Mark notification item has error (page not loaded in tab {}): {}", tabIndex, videoItemList.get(i));
+						gotAnyError = true;
+					} else if (!resolveYoutubeLink(videoItemList.get(i), false))
+						gotAnyError = true;
+					
+					if (i + poolSize < videoItemList.size())
+						tabPool.startLoading(tabIndex, videoItemList.get(i + poolSize).getPageLink());
 				}
+			} catch (Exception e) {
+				myLogger.error("Unexpected error in tab pool", e);
 				
-				//Need time to load, so need wait
-				WebElement iFrameElement = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-						.until(driver -> driver.findElement(By.cssSelector("main > section > div + div iframe")));
+				//Any item not yet resolved should be marked error
+				videoItemList.stream().filter((notificationItem) -> notificationItem.getVideoLink() == null)
+					.forEach((notificationItem) -> notificationItem.setGotError(true));
+				gotAnyError = true;
+			}
+		}
+		
+		updateVideoLinkCache(videoItemList);
+		
+		long errorCount = videoItemList.stream().filter(NotificationItem::isGotError).count();
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ITEMS, WebBotConst.METRICS_STAGE_VIDEO_RESOLVE, videoItemList.size() - errorCount);
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ERRORS, WebBotConst.METRICS_STAGE_VIDEO_RESOLVE, errorCount);
+		
+		myLogger.debug("End populateYoutubeLink");
+		return gotAnyError?-1:0;
+	}
+	
+	private void applyVideoLinkCache(List<NotificationItem> notificationItemList) {
+		if (videoLinkCache == null)
+			return;
+		
+		for (NotificationItem notificationItem : notificationItemList) {
+			if (notificationItem.getPageLink() == null || notificationItem.getVideoLink() != null)
+				continue;
+			
+			String videoLink = videoLinkCache.get(notificationItem.getPageLink());
+			if (videoLink != null) {
+				notificationItem.setVideoLink(videoLink);
+				myLogger.debug("VideoLink got from cache: {}", notificationItem);
+			}
+		}
+	}
+	
+	private void updateVideoLinkCache(List<NotificationItem> notificationItemList) {
+		if (videoLinkCache == null)
+			return;
+		
+		for (NotificationItem notificationItem : notificationItemList) {
+			if (notificationItem.getPageLink() == null || notificationItem.getVideoLink() == null || notificationItem.isGotError())
+				continue;
+			
+			videoLinkCache.put(notificationItem.getPageLink(), notificationItem.getVideoLink());
+		}
+	}
+	
+	/**
+	 * Resolve youtube link of single video item in current tab
+	 * @param isNavigateNeeded false if the page already loading in current tab
+	 * @return false if got any error
+	 */
+	private boolean resolveYoutubeLink(NotificationItem notificationItem, boolean isNavigateNeeded) {
+		long startTime = System.nanoTime();
+		try {
+			String targetURL = notificationItem.getPageLink();
+			myLogger.debug("Target URL: {}", targetURL);
+			
+			//Browser may normalise or redirect the URL, so wait until current document is replaced instead of matching it
+			if (isNavigateNeeded)
+				navigateTo(targetURL, BrowserTabPool.pageLoaded());
+			
+			//Also for page loading in tab pool, video iframe only shown when logon and joined
+			String pageState = new PageStateWaiter(webDriver)
+					.on(PAGE_STATE_VIDEO, VIDEO_IFRAME_SELECTOR)
+					.on(PAGE_STATE_JOIN_BUTTON, VIDEO_JOIN_BUTTON_SELECTOR, WebBotConst.VIDEO_PAGE_JOIN_BUTTON_LABEL)
+					.on(PAGE_STATE_LOGIN_BUTTON, LOGIN_BUTTON_SELECTOR)
+					.waitForAny(waitTimeout);
+			
+			if (PAGE_STATE_LOGIN_BUTTON.equals(pageState))
+				isLogonVerified = false;
+			
+			if (!PAGE_STATE_VIDEO.equals(pageState)) {
+				notificationItem.setGotError(true);
+				myLogger.warn("Mark notification item has error (page state {}): {}", pageState, notificationItem);
+				return false;
+			}
+			
+			//Need time to load, so need wait
+			WebElement iFrameElement = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
+					.until(driver -> driver.findElement(By.cssSelector(VIDEO_IFRAME_SELECTOR)));
+			
+			myLogger.debug("iFrameElement found : {} - src {}", iFrameElement.getTagName(), iFrameElement.getAttribute("src"));
+			
+			myLogger.debug("Switch to iFrameElement ...");
+			webDriver.switchTo().frame(iFrameElement);
+			
+			String youTubeLink = tryExtractYoutubeLink();
+			
+			if (youTubeLink == null) {
+				//Find any nested iframe
+				iFrameElement = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
+						.until(driver -> driver.findElement(By.cssSelector("iframe")));
 				
 				myLogger.debug("iFrameElement found : {} - src {}", iFrameElement.getTagName(), iFrameElement.getAttribute("src"));
 				
 				myLogger.debug("Switch to iFrameElement ...");
 				webDriver.switchTo().frame(iFrameElement);
 				
-				String youTubeLink = tryExtractYoutubeLink();
-				
+				youTubeLink = tryExtractYoutubeLink();
 				if (youTubeLink == null) {
-					//Find any nested iframe
-					iFrameElement = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-							.until(driver -> driver.findElement(By.cssSelector("iframe")));
-					
-					myLogger.debug("iFrameElement found : {} - src {}", iFrameElement.getTagName(), iFrameElement.getAttribute("src"));
-					
-					myLogger.debug("Switch to iFrameElement ...");
-					webDriver.switchTo().frame(iFrameElement);
-					
-					youTubeLink = tryExtractYoutubeLink();
-					if (youTubeLink == null) {
-						notificationItem.setGotError(true);
-						myLogger.error("Still cannot find the youtube link item from : {}", notificationItem);
-						gotAnyError = true;
-						continue;
-					}
+					notificationItem.setGotError(true);
+					myLogger.error("Still cannot find the youtube link item from : {}", notificationItem);
+					return false;
 				}
-				
-				notificationItem.setVideoLink(youTubeLink);
-			} catch (NoSuchElementException e) {
-				notificationItem.setGotError(true);
-				myLogger.error("Cannot find related element in : " + webDriver.getTitle(), e);
-				gotAnyError = true;
-			} catch (Exception e) {
-				notificationItem.setGotError(true);
-				myLogger.error("Unexpected error", e);
-				gotAnyError = true;
 			}
+			
+			notificationItem.setVideoLink(youTubeLink);
+			return true;
+		} catch (NoSuchElementException e) {
+			notificationItem.setGotError(true);
+			myLogger.error("Cannot find related element in : " + webDriver.getTitle(), e);
+		} catch (Exception e) {
+			notificationItem.setGotError(true);
+			myLogger.error("Unexpected error", e);
+		} finally {
+			metricsRegistry.recordLatency(WebBotConst.METRICS_STAGE_VIDEO_RESOLVE, System.nanoTime() - startTime);
 		}
+		return false;
+	}
+	
+	/**
+	 * Only in daemon mode with digest, items would be picked up again in next cycle since not yet sent
+	 * @return time(ms) to wait before sending, 0 if can send now
+	 */
+	private long getDigestWindowRemaining(List<NotificationItem> outNotificationItems) {
+		if (!daemonMode || tgDigestMode.equals(DIGEST_MODE.NONE) || tgDigestWindow <= 0L || outNotificationItems.isEmpty())
+			return 0L;
 		
-		myLogger.debug("End populateYoutubeLink");
-		return gotAnyError?-1:0;
+		long now = System.currentTimeMillis();
+		Set<String> outChecksumSet = outNotificationItems.stream().map(NotificationItem::getChecksum).collect(Collectors.toSet());
+		digestFirstSeenMap.keySet().retainAll(outChecksumSet);
+		outChecksumSet.forEach((checksum) -> digestFirstSeenMap.putIfAbsent(checksum, now));
+		
+		long firstSeenTime = digestFirstSeenMap.values().stream().mapToLong(Long::longValue).min().orElse(now);
+		return Math.max(0L, firstSeenTime + tgDigestWindow - now);
 	}
 	
-	public int sendTelegramNotification(List<NotificationItem> notificationItemList, String tgBotToken, String tgBotChatID) {
-		TelegramBot telegramBot = new TelegramBot(tgBotToken);
+	/**
+	 * @return chats subscribed to the item (comma separated), empty if none
+	 */
+	private String getItemChatIDs(NotificationItem notificationItem, String tgBotChatID) {
+		if (subscriptionIndex == null)
+			return tgBotChatID;
 		
-		int returnCode = 0;
+		return String.join(",", subscriptionIndex.route(notificationItem));
+	}
+	
+	/**
+	 * Post all items at once, the client sends to different chats in parallel and keeps the order within each chat
+	 */
+	public int sendTelegramNotification(List<NotificationItem> notificationItemList, String tgBotChatID) {
+		if (!tgDigestMode.equals(DIGEST_MODE.NONE))
+			return sendTelegramDigest(notificationItemList, tgBotChatID);
+		
+		LinkedHashMap<NotificationItem, CompletableFuture<Integer>> sendFutureMap = new LinkedHashMap<>();
 		for (NotificationItem notificationItem : notificationItemList) {
 			//Skip notification if cannot get video link
 			if (notificationItem.isGotError())
 				continue;
 			
-			//Suppose can sent all without error, otherwise, just stop whole bot
-			returnCode = telegramBot.postNotifications(constructOutMsg(notificationItem), tgBotChatID);
+			String itemChatIDs = getItemChatIDs(notificationItem, tgBotChatID);
+			if (subscriptionIndex != null && itemChatIDs.isEmpty()) {
+				//Nobody subscribed, so it is done
+				myLogger.debug("No subscriber for item, mark sent: {}", notificationItem);
+				notificationItem.setSent(true);
+				continue;
+			}
+			
+			sendFutureMap.put(notificationItem, telegramBot.postNotificationsAsync(constructOutMsg(notificationItem), itemChatIDs));
+		}
+		
+		int returnCode = 0;
+		for (Entry<NotificationItem, CompletableFuture<Integer>> mapEntry : sendFutureMap.entrySet()) {
+			int itemReturnCode = mapEntry.getValue().join();
 			
-			if (returnCode != 0)
-				return returnCode;
+			//Suppose can sent all without error, otherwise, just stop whole bot
+			if (itemReturnCode != 0) {
+				if (returnCode == 0)
+					returnCode = itemReturnCode;
+				continue;
+			}
 			
 			//Mark sent
-			notificationItem.setSent(true);
+			mapEntry.getKey().setSent(true);
 		}
 		
-		return 0;
+		return returnCode;
+	}
+	
+	/**
+	 * Pack items of each chat into few messages, so a chat gets one digest per window whoever else subscribed the items.
+	 * Item is marked sent only when the digests of all its chats are sent.
+	 */
+	private int sendTelegramDigest(List<NotificationItem> notificationItemList, String tgBotChatID) {
+		//Chat -> items, and item -> count of its chats not yet sent
+		LinkedHashMap<String, List<NotificationItem>> chatItemMap = new LinkedHashMap<>();
+		IdentityHashMap<NotificationItem, Integer> pendingChatCountMap = new IdentityHashMap<>();
+		for (NotificationItem notificationItem : notificationItemList) {
+			if (notificationItem.isGotError())
+				continue;
+			
+			String itemChatIDs = getItemChatIDs(notificationItem, tgBotChatID);
+			if (subscriptionIndex != null && itemChatIDs.isEmpty()) {
+				myLogger.debug("No subscriber for item, mark sent: {}", notificationItem);
+				notificationItem.setSent(true);
+				continue;
+			}
+			
+			LinkedHashSet<String> itemChatIDSet = new LinkedHashSet<>();
+			for (String chatID : itemChatIDs.split(","))
+				itemChatIDSet.add(chatID.trim());
+			
+			itemChatIDSet.forEach((chatID) -> chatItemMap.computeIfAbsent(chatID, (key) -> new ArrayList<>()).add(notificationItem));
+			pendingChatCountMap.put(notificationItem, itemChatIDSet.size());
+		}
+		
+		LinkedHashMap<NotificationDigest, CompletableFuture<Integer>> sendFutureMap = new LinkedHashMap<>();
+		for (Entry<String, List<NotificationItem>> chatItemEntry : chatItemMap.entrySet()) {
+			List<NotificationDigest> digestList = NotificationDigest.buildDigests(chatItemEntry.getValue(), tgDigestMode, 
+					(notificationItem) -> constructOutMsg(notificationItem), TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH);
+			myLogger.debug("Digest {} items into {} messages for chat: {}", chatItemEntry.getValue().size(), digestList.size(), chatItemEntry.getKey());
+			
+			for (NotificationDigest notificationDigest : digestList) {
+				sendFutureMap.put(notificationDigest, telegramBot.postNotificationsAsync(notificationDigest.getText(), chatItemEntry.getKey()));
+			}
+		}
+		
+		int returnCode = 0;
+		for (Entry<NotificationDigest, CompletableFuture<Integer>> mapEntry : sendFutureMap.entrySet()) {
+			int digestReturnCode = mapEntry.getValue().join();
+			if (digestReturnCode != 0) {
+				if (returnCode == 0)
+					returnCode = digestReturnCode;
+				continue;
+			}
+			
+			for (NotificationItem notificationItem : mapEntry.getKey().getNotificationItemList()) {
+				if (pendingChatCountMap.merge(notificationItem, -1, Integer::sum) == 0)
+					notificationItem.setSent(true);
+			}
+		}
+		
+		return returnCode;
 	}
 	
-	private String constructOutMsg(NotificationItem notificationItem) {
+	static String constructOutMsg(NotificationItem notificationItem) {
 		StringBuffer outMsg = new StringBuffer();
 		
 		outMsg.append(notificationItem.getFullDescription());
@@ -864,43 +2471,6 @@ public class WebBot implements Closeable {
 		return null;
 	}
 	
-	private boolean checkIfAlreadyLogon() {
-		myLogger.debug("Start checkIfAlreadyLogon");
-		try {
-			myLogger.debug("Try find profile account link ...");
-			
-			WebElement profileLink = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-					.until(ExpectedConditions.elementToBeClickable(By.cssSelector("a[href='/profile/account']:has(svg.svg-icon)")));
-			
-			myLogger.debug("Logon profileLink is displayed : {}", profileLink.isDisplayed());
-			return true;
-		} catch (TimeoutException tie) {
-			//Nothing
-		}
-		myLogger.debug("Profile account link not here");
-		myLogger.debug("End loginMoneyTabWeb");
-		return false;
-	}
-	
-	private boolean checkIfVideoPageFullyLoaded() {
-		myLogger.debug("Start checkIfVideoPageFullyLoaded");
-		try {
-			myLogger.debug("Try check if 'join' button exist ...");
-			
-			boolean notExist = new WebDriverWait(webDriver, Duration.ofMillis(waitTimeout))
-					.until(ExpectedConditions.invisibilityOfElementWithText(By.cssSelector("span.core-button__text.h4"), 
-							WebBotConst.VIDEO_PAGE_JOIN_BUTTON_LABEL));
-			
-			myLogger.debug("'join' button not here: {}", notExist);
-			return true;
-		} catch (TimeoutException tie) {
-			//Nothing
-		}
-		myLogger.debug("'join' button is here");
-		myLogger.debug("End checkIfVideoPageFullyLoaded");
-		return false;
-	}
-	
 	private boolean checkIfPageURLMatched(String targetURL) {
 		myLogger.debug("Start checkIfPageURLMatched");
 		try {
@@ -978,6 +2548,38 @@ public class WebBot implements Closeable {
 		this.sleepTime = sleepTime;
 	}
 
+	public int getBrowserTabPoolSize() {
+		return browserTabPoolSize;
+	}
+
+	public void setBrowserTabPoolSize(int browserTabPoolSize) {
+		this.browserTabPoolSize = browserTabPoolSize;
+	}
+
+	public boolean isHttpFetchMode() {
+		return httpFetchMode;
+	}
+
+	public void setHttpFetchMode(boolean httpFetchMode) {
+		this.httpFetchMode = httpFetchMode;
+	}
+
+	public String getSiteBaseURL() {
+		return siteBaseURL;
+	}
+
+	public void setSiteBaseURL(String siteBaseURL) {
+		this.siteBaseURL = siteBaseURL;
+	}
+
+	public boolean isDaemonMode() {
+		return daemonMode;
+	}
+
+	public void setDaemonMode(boolean daemonMode) {
+		this.daemonMode = daemonMode;
+	}
+
 	public void setLogin(String login) {
 		this.login = login;
 	}
@@ -1025,4 +2627,161 @@ public class WebBot implements Closeable {
 	public void setTgBotChatID(String tgBotChatID) {
 		this.tgBotChatID = tgBotChatID;
 	}
+
+	public EXTRACT_STRATEGY getExtractStrategy() {
+		return extractStrategy;
+	}
+
+	public void setExtractStrategy(EXTRACT_STRATEGY extractStrategy) {
+		this.extractStrategy = extractStrategy;
+	}
+
+	public DIGEST_MODE getTgDigestMode() {
+		return tgDigestMode;
+	}
+
+	public void setTgDigestMode(DIGEST_MODE tgDigestMode) {
+		this.tgDigestMode = tgDigestMode;
+	}
+
+	public long getTgDigestWindow() {
+		return tgDigestWindow;
+	}
+
+	public void setTgDigestWindow(long tgDigestWindow) {
+		this.tgDigestWindow = tgDigestWindow;
+	}
+
+	public String getTgBotApiBaseURL() {
+		return tgBotApiBaseURL;
+	}
+
+	public void setTgBotApiBaseURL(String tgBotApiBaseURL) {
+		this.tgBotApiBaseURL = tgBotApiBaseURL;
+	}
+	
+	public boolean isBrowserBlockResources() {
+		return browserBlockResources;
+	}
+	
+	public void setBrowserBlockResources(boolean browserBlockResources) {
+		this.browserBlockResources = browserBlockResources;
+	}
+	
+	public List<String> getBrowserBlockedURLs() {
+		return browserBlockedURLs;
+	}
+	
+	public void setBrowserBlockedURLs(List<String> browserBlockedURLs) {
+		this.browserBlockedURLs = browserBlockedURLs;
+	}
+	
+	public Set<RESOURCE_TYPE> getBrowserBlockedTypes() {
+		return browserBlockedTypes;
+	}
+	
+	public void setBrowserBlockedTypes(Set<RESOURCE_TYPE> browserBlockedTypes) {
+		this.browserBlockedTypes = browserBlockedTypes;
+	}
+	
+	public PageLoadStrategy getBrowserPageLoadStrategy() {
+		return browserPageLoadStrategy;
+	}
+	
+	public void setBrowserPageLoadStrategy(PageLoadStrategy browserPageLoadStrategy) {
+		this.browserPageLoadStrategy = browserPageLoadStrategy;
+	}
+	
+	public MetricsRegistry getMetricsRegistry() {
+		return metricsRegistry;
+	}
+	
+	public Path getMetricsFilePath() {
+		return metricsFilePath;
+	}
+	
+	public void setMetricsFilePath(Path metricsFilePath) {
+		this.metricsFilePath = metricsFilePath;
+	}
+	
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+	
+	public void setMetricsPort(int metricsPort) {
+		this.metricsPort = metricsPort;
+	}
+	
+	public boolean isSkipUnchangedList() {
+		return skipUnchangedList;
+	}
+	
+	public void setSkipUnchangedList(boolean skipUnchangedList) {
+		this.skipUnchangedList = skipUnchangedList;
+	}
+	
+	public boolean isIncrementalExtract() {
+		return incrementalExtract;
+	}
+	
+	public void setIncrementalExtract(boolean incrementalExtract) {
+		this.incrementalExtract = incrementalExtract;
+	}
+	
+	public int getBrowserDebugPort() {
+		return browserDebugPort;
+	}
+	
+	public void setBrowserDebugPort(int browserDebugPort) {
+		this.browserDebugPort = browserDebugPort;
+	}
+	
+	public Path getStateDir() {
+		return stateDir;
+	}
+	
+	public void setStateDir(Path stateDir) {
+		this.stateDir = stateDir;
+		this.checksumHistoryPath = getStatePath(WebBotConst.WEBBOT_CHECKSUM_HISTORY_FILENAME);
+	}
+	
+	public TelegramBot getTelegramBot() {
+		return telegramBot;
+	}
+	
+	/**
+	 * Use the bot shared with other accounts instead of creating one in {@link #init()}, it would not be closed here
+	 */
+	public void setSharedTelegramBot(TelegramBot telegramBot) {
+		this.telegramBot = telegramBot;
+		this.isTelegramBotShared = true;
+	}
+	
+	public SubscriptionIndex getSubscriptionIndex() {
+		return subscriptionIndex;
+	}
+	
+	public void setSubscriptionIndex(SubscriptionIndex subscriptionIndex) {
+		this.subscriptionIndex = subscriptionIndex;
+	}
+	
+	public TITLE_MATCH_MODE getTitleMatchMode() {
+		return titleMatchMode;
+	}
+	
+	public void setTitleMatchMode(TITLE_MATCH_MODE titleMatchMode) {
+		this.titleMatchMode = titleMatchMode;
+	}
+	
+	public boolean isSystemPropertyOverride() {
+		return systemPropertyOverride;
+	}
+	
+	public void setSystemPropertyOverride(boolean systemPropertyOverride) {
+		this.systemPropertyOverride = systemPropertyOverride;
+	}
+	
+	public boolean isSessionFailed() {
+		return isSessionFailed;
+	}
 }
@@ -6,27 +6,83 @@ public class WebBotConst {
 	
 	public static final String VIDEO_PAGE_JOIN_BUTTON_LABEL = "立即加入";
 	
+	public static final String MONEYTAB_BASE_URL = "https://www.money-tab.com";
+	public static final String MONEYTAB_NOTIFICATION_PATH = "/profile/notification";
+	
 	public static final String NOTIFICATION_DATE_FORMAT_PATTERN = "dd.MM.yyyy";
 	public static final String WEBBOT_CHECKSUM_HISTORY_FILENAME = "checksum.dat";
+	public static final int CHECKSUM_JOURNAL_FSYNC_BATCH_SIZE = 32;
+	public static final long CHECKSUM_JOURNAL_COMPACTION_INTERVAL = 3600000L;
+	public static final int CHECKSUM_JOURNAL_COMPACTION_THRESHOLD = 256;
+	public static final String WEBBOT_CHECKSUM_INDEX_FILENAME = "checksum.idx";
 	public static final String WEBBOT_COOKIE_DATA_FILENAME = "cookies.dat";
 	public static final String WEBBOT_LOCALSTORAGE_DATA_FILENAME = "lstorage.dat";
+	public static final String WEBBOT_VIDEOLINK_CACHE_FILENAME = "videolink.dat";
+	public static final String WEBBOT_LIST_FINGERPRINT_FILENAME = "fingerprint.dat";
+	public static final String WEBBOT_HIGH_WATER_MARK_FILENAME = "hwm.dat";
+	//Incremental extraction stops after this many consecutive items older than the mark or date window
+	public static final int EXTRACT_OLDER_ITEM_STOP_COUNT = 3;
+	
+	public static final int BROWSER_DEFAULT_DEBUG_PORT = 9222;
 	
 	//APP PROPERTIES KEY
 	public static final String APP_PROPERTIES_BROWSER_TYPE = "moneytab.bot.browserType";
 	public static final String APP_PROPERTIES_BROWSER_HEADLESS_MODE = "moneytab.bot.browserHeadlessMode";
 	public static final String APP_PROPERTIES_BROWSER_USERDATA = "moneytab.bot.browserUserData"; //Only for chrome currently
+	public static final String APP_PROPERTIES_BROWSER_DEBUG_PORT = "moneytab.bot.browserDebugPort"; //Only for chrome
 	public static final String APP_PROPERTIES_BROWSER_WAIT_TIMEOUT = "moneytab.bot.browserWaitTimeout";
 	public static final String APP_PROPERTIES_BROWSER_WAIT_BEFORE_QUIT = "moneytab.bot.browserWaitBeforeQuit";
+	public static final String APP_PROPERTIES_BROWSER_TAB_POOL_SIZE = "moneytab.bot.browserTabPoolSize";
 	public static final String APP_PROPERTIES_BROWSER_PERSIST_COOKIE = "moneytab.bot.browserPersistCookie";
 	public static final String APP_PROPERTIES_BROWSER_PERSIST_LOCAL_STORAGE = "moneytab.bot.browserPersistLocalStorage";
+	public static final String APP_PROPERTIES_BROWSER_PAGE_LOAD_STRATEGY = "moneytab.bot.browserPageLoadStrategy";
+	public static final String APP_PROPERTIES_BROWSER_BLOCK_RESOURCES = "moneytab.bot.browserBlockResources";
+	public static final String APP_PROPERTIES_BROWSER_BLOCKED_URLS = "moneytab.bot.browserBlockedURLs";
+	public static final String APP_PROPERTIES_BROWSER_BLOCKED_TYPES = "moneytab.bot.browserBlockedTypes";
 
+	public static final String APP_PROPERTIES_STATE_DIR = "moneytab.bot.stateDir";
 	public static final String APP_PROPERTIES_SLEEP_TIME = "moneytab.bot.sleepTime";
+	public static final String APP_PROPERTIES_DAEMON_MODE = "moneytab.bot.daemonMode";
+	public static final String APP_PROPERTIES_HTTP_FETCH_MODE = "moneytab.bot.httpFetchMode";
+	public static final String APP_PROPERTIES_SKIP_UNCHANGED_LIST = "moneytab.bot.skipUnchangedList";
+	public static final String APP_PROPERTIES_INCREMENTAL_EXTRACT = "moneytab.bot.incrementalExtract";
+	public static final String APP_PROPERTIES_SITE_BASE_URL = "moneytab.bot.siteBaseURL";
+	public static final String APP_PROPERTIES_EXTRACT_STRATEGY = "moneytab.bot.extractStrategy";
+	public static final String APP_PROPERTIES_CHECKSUM_RETENTION = "moneytab.bot.checksumRetention";
+	public static final String APP_PROPERTIES_VIDEOLINK_CACHE_TTL = "moneytab.bot.videoLinkCacheTTL";
+	public static final String APP_PROPERTIES_VIDEOLINK_CACHE_SIZE = "moneytab.bot.videoLinkCacheSize";
 	public static final String APP_PROPERTIES_LOGIN = "moneytab.bot.login";
 	public static final String APP_PROPERTIES_PASSWORD = "moneytab.bot.password";
 	
 	public static final String APP_PROPERTIES_NOTIFY_DATE_FILTER = "moneytab.bot.notifyDateFilter";
 	public static final String APP_PROPERTIES_NOTIFY_TITLE_FILTER = "moneytab.bot.notifyTitleFilter";
+	public static final String APP_PROPERTIES_NOTIFY_TITLE_MATCH_MODE = "moneytab.bot.notifyTitleMatchMode";
 	
 	public static final String APP_PROPERTIES_TG_BOT_TOKEN = "moneytab.bot.tgBotToken";
 	public static final String APP_PROPERTIES_TG_BOT_CHATID = "moneytab.bot.tgBotChatID";
+	public static final String APP_PROPERTIES_TG_BOT_API_BASE_URL = "moneytab.bot.tgBotApiBaseURL";
+	public static final String APP_PROPERTIES_TG_DIGEST_MODE = "moneytab.bot.tgDigestMode";
+	public static final String APP_PROPERTIES_TG_DIGEST_WINDOW = "moneytab.bot.tgDigestWindow";
+	public static final String APP_PROPERTIES_TG_SUBSCRIPTION_PREFIX = "moneytab.bot.tgSubscription."; //+ chatID
+	
+	public static final String APP_PROPERTIES_METRICS_FILE = "moneytab.bot.metricsFile";
+	public static final String APP_PROPERTIES_METRICS_PORT = "moneytab.bot.metricsPort";
+	
+	public static final String METRICS_STAGE_RUN = "run";
+	public static final String METRICS_STAGE_BROWSER_LAUNCH = "browser_launch";
+	public static final String METRICS_STAGE_STATE_RESTORE = "state_restore";
+	public static final String METRICS_STAGE_HTTP_FETCH = "http_fetch";
+	public static final String METRICS_STAGE_LOGIN = "login";
+	public static final String METRICS_STAGE_EXTRACTION = "extraction";
+	public static final String METRICS_STAGE_VIDEO_RESOLVE = "video_resolve";
+	public static final String METRICS_STAGE_CHECKSUM = "checksum";
+	public static final String METRICS_STAGE_CHECKSUM_SAVE = "checksum_save";
+	public static final String METRICS_STAGE_PERSIST = "persist";
+	
+	//MULTI ACCOUNT RUNNER
+	public static final String BOT_PROPERTIES_PREFIX = "moneytab.bot.";
+	public static final String ACCOUNT_PROPERTIES_PREFIX = "moneytab.account.";
+	public static final String APP_PROPERTIES_RUNNER_ACCOUNTS = "moneytab.runner.accounts";
+	public static final String APP_PROPERTIES_RUNNER_POOL_SIZE = "moneytab.runner.poolSize";
+	public static final String APP_PROPERTIES_RUNNER_STATE_BASE_DIR = "moneytab.runner.stateBaseDir";
 }
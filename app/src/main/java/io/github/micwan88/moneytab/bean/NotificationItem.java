@@ -15,8 +15,31 @@ public class NotificationItem {
 	
 	private String checksum = null;
 	
+	private String preKey = null;
+	
 	private boolean isSent = false;
 	private boolean gotError = false;
+	
+	/**
+	 * Canonical form of text extracted by any strategy (element, script or http), as checksum and fingerprint are based on it:
+	 * nbsp as space, spaces collapsed, lines trimmed and empty lines dropped
+	 */
+	public static String normalizeText(String text) {
+		if (text == null)
+			return null;
+		
+		StringBuilder textBuilder = new StringBuilder();
+		for (String line : text.replace('\u00a0', ' ').split("\n")) {
+			line = line.replaceAll("[ \t]+", " ").trim();
+			if (line.isEmpty())
+				continue;
+			
+			if (textBuilder.length() > 0)
+				textBuilder.append('\n');
+			textBuilder.append(line);
+		}
+		return textBuilder.toString();
+	}
 
 	public String getType() {
 		return type;
@@ -74,6 +97,14 @@ public class NotificationItem {
 		this.checksum = checksum;
 	}
 
+	public String getPreKey() {
+		return preKey;
+	}
+
+	public void setPreKey(String preKey) {
+		this.preKey = preKey;
+	}
+
 	public boolean isSent() {
 		return isSent;
 	}
@@ -110,6 +141,6 @@ public class NotificationItem {
 	public String toString() {
 		return "NotificationItem [type=" + type + ", dateInString=" + dateInString + ", title=" + title
 				+ ", fullDescription=" + fullDescription + ", pageLink=" + pageLink + ", videoLink=" + videoLink
-				+ ", checksum=" + checksum + ", isSent=" + isSent + ", gotError=" + gotError + "]";
+				+ ", checksum=" + checksum + ", preKey=" + preKey + ", isSent=" + isSent + ", gotError=" + gotError + "]";
 	}
 }
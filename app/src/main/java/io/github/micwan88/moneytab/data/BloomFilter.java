@@ -0,0 +1,63 @@
+package io.github.micwan88.moneytab.data;
+
+/**
+ * Simple bloom filter for SHA-256 digest.
+ *
+ * The digest is already uniformly distributed, so the hash values are just taken from the digest bytes (double hashing).
+ */
+public class BloomFilter {
+	
+	private long[] bitArray = null;
+	
+	private long bitSize = 0L;
+	
+	private int numOfHashes = 0;
+	
+	public BloomFilter(long expectedEntries, double falsePositiveRate) {
+		long entries = Math.max(1L, expectedEntries);
+		
+		bitSize = Math.max(64L, (long)Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+		numOfHashes = Math.max(1, (int)Math.round((double)bitSize / entries * Math.log(2)));
+		bitArray = new long[(int)((bitSize + 63) / 64)];
+		bitSize = bitArray.length * 64L;
+	}
+	
+	public void add(byte[] digest) {
+		long hash1 = readLong(digest, 0);
+		long hash2 = readLong(digest, 8);
+		for (int i=0; i<numOfHashes; i++) {
+			long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+			bitArray[(int)(bitIndex >>> 6)] |= 1L << bitIndex;
+		}
+	}
+	
+	/**
+	 * @return false if definitely not here
+	 */
+	public boolean mightContain(byte[] digest) {
+		long hash1 = readLong(digest, 0);
+		long hash2 = readLong(digest, 8);
+		for (int i=0; i<numOfHashes; i++) {
+			long bitIndex = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+			if ((bitArray[(int)(bitIndex >>> 6)] & (1L << bitIndex)) == 0L)
+				return false;
+		}
+		return true;
+	}
+	
+	private static long readLong(byte[] bytes, int offset) {
+		long value = 0L;
+		for (int i=0; i<8; i++) {
+			value = (value << 8) | (bytes[offset + i] & 0xFFL);
+		}
+		return value;
+	}
+	
+	public long getBitSize() {
+		return bitSize;
+	}
+	
+	public int getNumOfHashes() {
+		return numOfHashes;
+	}
+}
@@ -0,0 +1,201 @@
+package io.github.micwan88.moneytab.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Read only index of raw SHA-256 digests, sorted and memory-mapped, with a bloom filter in front.
+ *
+ * File layout:
+ * header  - magic(int) version(int) count(int) reserved(int) minSentTime(long)
+ * records - digest(32 bytes) sentTime(long), sorted by digest (unsigned)
+ */
+public class ChecksumIndex {
+	
+	private static final Logger myLogger = LogManager.getLogger(ChecksumIndex.class);
+	
+	public static final int INDEX_MAGIC = 0x4D544349; //MTCI
+	public static final int INDEX_VERSION = 1;
+	public static final int HEADER_SIZE = 24;
+	public static final int DIGEST_SIZE = 32;
+	public static final int RECORD_SIZE = DIGEST_SIZE + 8;
+	public static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+	
+	private MappedByteBuffer indexBuffer = null;
+	
+	private int count = 0;
+	
+	private long minSentTime = Long.MAX_VALUE;
+	
+	private BloomFilter bloomFilter = null;
+	
+	public static class IndexRecord implements Comparable<IndexRecord> {
+		private byte[] digest = null;
+		private long sentTime = 0L;
+		
+		public IndexRecord(byte[] digest, long sentTime) {
+			this.digest = digest;
+			this.sentTime = sentTime;
+		}
+		
+		public byte[] getDigest() {
+			return digest;
+		}
+		
+		public long getSentTime() {
+			return sentTime;
+		}
+		
+		@Override
+		public int compareTo(IndexRecord otherRecord) {
+			return compareDigest(digest, otherRecord.digest);
+		}
+	}
+	
+	private ChecksumIndex() {
+		bloomFilter = new BloomFilter(0L, BLOOM_FALSE_POSITIVE_RATE);
+	}
+	
+	/**
+	 * @return empty index if file not exist
+	 */
+	public static ChecksumIndex open(Path indexPath) throws IOException {
+		ChecksumIndex checksumIndex = new ChecksumIndex();
+		if (!Files.isReadable(indexPath)) {
+			myLogger.debug("Checksum index not exist, start with empty : {}", indexPath.toAbsolutePath());
+			return checksumIndex;
+		}
+		
+		try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+			//Mapping is still valid after channel closed
+			MappedByteBuffer indexBuffer = indexChannel.map(MapMode.READ_ONLY, 0L, indexChannel.size());
+			
+			if (indexBuffer.capacity() < HEADER_SIZE || indexBuffer.getInt(0) != INDEX_MAGIC || indexBuffer.getInt(4) != INDEX_VERSION)
+				throw new IOException("Invalid checksum index file: " + indexPath.toAbsolutePath());
+			
+			int count = indexBuffer.getInt(8);
+			if (indexBuffer.capacity() < HEADER_SIZE + (long)count * RECORD_SIZE)
+				throw new IOException("Truncated checksum index file: " + indexPath.toAbsolutePath());
+			
+			checksumIndex.indexBuffer = indexBuffer;
+			checksumIndex.count = count;
+			checksumIndex.minSentTime = indexBuffer.getLong(16);
+			checksumIndex.bloomFilter = new BloomFilter(count, BLOOM_FALSE_POSITIVE_RATE);
+			
+			byte[] digest = new byte[DIGEST_SIZE];
+			for (int i=0; i<count; i++) {
+				readDigest(indexBuffer, i, digest);
+				checksumIndex.bloomFilter.add(digest);
+			}
+		}
+		
+		myLogger.debug("Checksum index opened with count: {}", checksumIndex.count);
+		return checksumIndex;
+	}
+	
+	/**
+	 * Write records to a new index file atomically
+	 */
+	public static void write(Path indexPath, List<IndexRecord> indexRecordList) throws IOException {
+		ArrayList<IndexRecord> sortedRecordList = new ArrayList<>(indexRecordList);
+		Collections.sort(sortedRecordList);
+		
+		long minSentTime = sortedRecordList.stream().mapToLong(IndexRecord::getSentTime).min().orElse(Long.MAX_VALUE);
+		
+		Path tempFilePath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+		try (FileChannel tempChannel = FileChannel.open(tempFilePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream dataOutStream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(tempChannel)));
+			dataOutStream.writeInt(INDEX_MAGIC);
+			dataOutStream.writeInt(INDEX_VERSION);
+			dataOutStream.writeInt(sortedRecordList.size());
+			dataOutStream.writeInt(0);
+			dataOutStream.writeLong(minSentTime);
+			
+			for (IndexRecord indexRecord : sortedRecordList) {
+				dataOutStream.write(indexRecord.getDigest());
+				dataOutStream.writeLong(indexRecord.getSentTime());
+			}
+			dataOutStream.flush();
+			
+			tempChannel.force(true);
+		}
+		
+		Files.move(tempFilePath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		myLogger.debug("Checksum index written with count: {}", sortedRecordList.size());
+	}
+	
+	public boolean contains(byte[] digest) {
+		//Most of new item would stop here
+		if (count == 0 || !bloomFilter.mightContain(digest))
+			return false;
+		
+		byte[] recordDigest = new byte[DIGEST_SIZE];
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			readDigest(indexBuffer, mid, recordDigest);
+			
+			int result = compareDigest(recordDigest, digest);
+			if (result < 0)
+				low = mid + 1;
+			else if (result > 0)
+				high = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Read all records, only used by compaction
+	 */
+	public List<IndexRecord> readAll() {
+		ArrayList<IndexRecord> indexRecordList = new ArrayList<>(count);
+		for (int i=0; i<count; i++) {
+			byte[] digest = new byte[DIGEST_SIZE];
+			readDigest(indexBuffer, i, digest);
+			indexRecordList.add(new IndexRecord(digest, indexBuffer.getLong(HEADER_SIZE + i * RECORD_SIZE + DIGEST_SIZE)));
+		}
+		return indexRecordList;
+	}
+	
+	private static void readDigest(ByteBuffer indexBuffer, int recordIndex, byte[] digest) {
+		ByteBuffer recordBuffer = indexBuffer.duplicate();
+		recordBuffer.position(HEADER_SIZE + recordIndex * RECORD_SIZE);
+		recordBuffer.get(digest, 0, DIGEST_SIZE);
+	}
+	
+	private static int compareDigest(byte[] digest1, byte[] digest2) {
+		for (int i=0; i<DIGEST_SIZE; i++) {
+			int result = (digest1[i] & 0xFF) - (digest2[i] & 0xFF);
+			if (result != 0)
+				return result;
+		}
+		return 0;
+	}
+	
+	public int size() {
+		return count;
+	}
+	
+	public long getMinSentTime() {
+		return minSentTime;
+	}
+}
@@ -0,0 +1,429 @@
+package io.github.micwan88.moneytab.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.github.micwan88.moneytab.data.ChecksumIndex.IndexRecord;
+
+/**
+ * Append-only journal of sent checksums.
+ *
+ * One line per sent item: sentTime(ms) \t checksum [\t preKey]
+ * Lines from the old checksum.dat (checksum only) are migrated with file modified time as sent time,
+ * but only a full SHA-256 checksum, otherwise it is a partial line written before crash.
+ * Pre-key is the identity of item known before its video link is resolved, lines without it are still valid
+ * and the pre-key is added by another line when the same checksum is appended with it.
+ * Appends are fsync in batch, and a background compaction rewrites the file without expired/duplicated lines.
+ *
+ * Compaction also moves SHA-256 checksums from the journal into the binary {@link ChecksumIndex},
+ * so only the checksums sent since last compaction are kept in heap. Pre-keys are moved into their own index the same way.
+ */
+public class ChecksumJournal implements Closeable {
+	
+	private static final Logger myLogger = LogManager.getLogger(ChecksumJournal.class);
+	
+	private static final String FIELD_SEPARATOR = "\t";
+	
+	private static final String PREKEY_INDEX_SUFFIX = ".prekey";
+	
+	private Path journalPath = null;
+	
+	private Path indexPath = null;
+	
+	private Path preKeyIndexPath = null;
+	
+	private long retention = 0L;
+	
+	private int fsyncBatchSize = 1;
+	
+	private int compactionThreshold = Integer.MAX_VALUE;
+	
+	private ChecksumIndex checksumIndex = null;
+	
+	private LinkedHashMap<String, Long> checksumMap = new LinkedHashMap<>();
+	
+	private ChecksumIndex preKeyIndex = null;
+	
+	private LinkedHashMap<String, Long> preKeyMap = new LinkedHashMap<>();
+	
+	private FileChannel journalChannel = null;
+	
+	private int pendingSyncCount = 0;
+	
+	private int journalLineCount = 0;
+	
+	private boolean gotLegacyLine = false;
+	
+	private ScheduledExecutorService compactionExecutor = null;
+	
+	public ChecksumJournal(Path journalPath, Path indexPath, long retention, int fsyncBatchSize, int compactionThreshold) {
+		this.journalPath = journalPath;
+		this.indexPath = indexPath;
+		this.preKeyIndexPath = indexPath.resolveSibling(indexPath.getFileName() + PREKEY_INDEX_SUFFIX);
+		this.retention = retention;
+		this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+		this.compactionThreshold = Math.max(1, compactionThreshold);
+	}
+	
+	public synchronized void load() throws IOException {
+		myLogger.debug("Loading checksum journal from file: {}", journalPath.toAbsolutePath());
+		
+		checksumMap.clear();
+		preKeyMap.clear();
+		journalLineCount = 0;
+		gotLegacyLine = false;
+		
+		checksumIndex = ChecksumIndex.open(indexPath);
+		preKeyIndex = ChecksumIndex.open(preKeyIndexPath);
+		
+		if (Files.isReadable(journalPath)) {
+			long now = System.currentTimeMillis();
+			long legacySentTime = Files.getLastModifiedTime(journalPath).toMillis();
+			
+			try (BufferedReader br = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+				String line = null;
+				while ((line = br.readLine()) != null) {
+					if (line.trim().isEmpty())
+						continue;
+					
+					journalLineCount++;
+					
+					String[] fields = line.split(FIELD_SEPARATOR);
+					String checksum = null;
+					String preKey = null;
+					long sentTime = 0L;
+					if (fields.length == 1) {
+						//Old checksum.dat format (may be followed by versioned lines if not yet compacted),
+						//line cut off before its separator is part of sent time, which is never a SHA-256 checksum
+						if (toDigest(fields[0].trim()) != null) {
+							gotLegacyLine = true;
+							if (now - legacySentTime <= retention)
+								checksumMap.put(fields[0].trim(), legacySentTime);
+						} else
+							myLogger.warn("Skip invalid checksum journal line: {}", line);
+						continue;
+					}
+					
+					try {
+						sentTime = Long.parseLong(fields[0]);
+						checksum = fields[1].trim();
+						if (fields.length > 2)
+							preKey = fields[2].trim();
+					} catch (NumberFormatException e) {
+						//May be partial line written before crash
+						myLogger.warn("Skip invalid checksum journal line: {}", line);
+						continue;
+					}
+					
+					if (now - sentTime > retention)
+						continue;
+					
+					checksumMap.put(checksum, sentTime);
+					if (toDigest(preKey) != null)
+						preKeyMap.put(preKey, sentTime);
+				}
+			}
+		} else
+			myLogger.warn("Checksum journal does not exist, start with empty : {}", journalPath.toAbsolutePath());
+		
+		myLogger.debug("Checksum journal loaded - lines: {}, live checksums: {}, indexed checksums: {}, pre-keys: {}", journalLineCount, checksumMap.size(),
+				checksumIndex.size(), preKeyMap.size() + preKeyIndex.size());
+		
+		openJournalChannel();
+	}
+	
+	private void openJournalChannel() throws IOException {
+		journalChannel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		//Only one writer, so just append at the end
+		long fileSize = journalChannel.size();
+		journalChannel.position(fileSize);
+		
+		//Terminate any partial line written before crash, so that it would not be joined with next append
+		if (fileSize > 0L) {
+			ByteBuffer lastByteBuffer = ByteBuffer.allocate(1);
+			journalChannel.read(lastByteBuffer, fileSize - 1);
+			if (lastByteBuffer.get(0) != '\n')
+				journalChannel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+		}
+	}
+	
+	public synchronized boolean contains(String checksum) {
+		if (checksumMap.containsKey(checksum))
+			return true;
+		
+		byte[] digest = toDigest(checksum);
+		return digest != null && checksumIndex.contains(digest);
+	}
+	
+	/**
+	 * Pre-key is always a SHA-256 digest, see {@link #append(String, String, long)}
+	 */
+	public synchronized boolean containsPreKey(String preKey) {
+		if (preKeyMap.containsKey(preKey))
+			return true;
+		
+		byte[] digest = toDigest(preKey);
+		return digest != null && preKeyIndex.contains(digest);
+	}
+	
+	/**
+	 * @return null if checksum is not a hex SHA-256 digest, which can only be kept in journal
+	 */
+	private static byte[] toDigest(String checksum) {
+		if (checksum == null || checksum.length() != ChecksumIndex.DIGEST_SIZE * 2)
+			return null;
+		
+		try {
+			return Hex.decodeHex(checksum);
+		} catch (DecoderException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @return number of checksums in journal and index
+	 */
+	public synchronized int size() {
+		return checksumMap.size() + checksumIndex.size();
+	}
+	
+	/**
+	 * Append checksum to journal, only fsync when reach batch size
+	 * @return false if already exist
+	 */
+	public synchronized boolean append(String checksum) throws IOException {
+		return append(checksum, System.currentTimeMillis());
+	}
+	
+	public synchronized boolean append(String checksum, long sentTime) throws IOException {
+		return append(checksum, null, sentTime);
+	}
+	
+	public synchronized boolean append(String checksum, String preKey) throws IOException {
+		return append(checksum, preKey, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Line is also appended if only the pre-key is new, which migrate lines written without pre-key
+	 * @param preKey SHA-256 hex digest, ignored if null or not a digest
+	 * @return false if both already exist
+	 */
+	public synchronized boolean append(String checksum, String preKey, long sentTime) throws IOException {
+		boolean isNewChecksum = !contains(checksum);
+		boolean isNewPreKey = toDigest(preKey) != null && !containsPreKey(preKey);
+		if (!isNewChecksum && !isNewPreKey)
+			return false;
+		
+		String line = sentTime + FIELD_SEPARATOR + checksum + (isNewPreKey ? FIELD_SEPARATOR + preKey : "") + "\n";
+		ByteBuffer lineBuffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+		while (lineBuffer.hasRemaining()) {
+			journalChannel.write(lineBuffer);
+		}
+		
+		if (isNewChecksum)
+			checksumMap.put(checksum, sentTime);
+		if (isNewPreKey)
+			preKeyMap.put(preKey, sentTime);
+		journalLineCount++;
+		
+		if (++pendingSyncCount >= fsyncBatchSize)
+			flush();
+		
+		return true;
+	}
+	
+	public synchronized void flush() throws IOException {
+		if (pendingSyncCount == 0 || journalChannel == null)
+			return;
+		
+		journalChannel.force(false);
+		pendingSyncCount = 0;
+	}
+	
+	/**
+	 * Compaction is needed if any expired, duplicated or legacy line here, or journal is long enough to merge into index
+	 */
+	public synchronized boolean isCompactionNeeded() {
+		long now = System.currentTimeMillis();
+		return gotLegacyLine || journalLineCount > checksumMap.size() || journalLineCount >= compactionThreshold
+				|| now - checksumIndex.getMinSentTime() > retention || now - preKeyIndex.getMinSentTime() > retention
+				|| checksumMap.values().stream().anyMatch((sentTime) -> now - sentTime > retention);
+	}
+	
+	/**
+	 * Merge live checksums into a new index, then rewrite journal with the rest (not SHA-256) only.
+	 * All files are replaced atomically, and indexes are written first, so crash here only left duplicates behind.
+	 */
+	public synchronized void compact() throws IOException {
+		myLogger.debug("Start compact checksum journal");
+		
+		long now = System.currentTimeMillis();
+		checksumMap.values().removeIf((sentTime) -> now - sentTime > retention);
+		
+		flush();
+		
+		List<IndexRecord> indexRecordList = new ArrayList<>();
+		for (IndexRecord indexRecord : checksumIndex.readAll()) {
+			if (now - indexRecord.getSentTime() <= retention)
+				indexRecordList.add(indexRecord);
+		}
+		int expiredCount = checksumIndex.size() - indexRecordList.size();
+		
+		Iterator<Entry<String, Long>> mapEntryIterator = checksumMap.entrySet().iterator();
+		while (mapEntryIterator.hasNext()) {
+			Entry<String, Long> mapEntry = mapEntryIterator.next();
+			byte[] digest = toDigest(mapEntry.getKey());
+			if (digest == null)
+				continue;
+			
+			//May already in index if crash after index written last time
+			if (!checksumIndex.contains(digest))
+				indexRecordList.add(new IndexRecord(digest, mapEntry.getValue()));
+			mapEntryIterator.remove();
+		}
+		
+		if (indexRecordList.size() != checksumIndex.size() || expiredCount > 0) {
+			ChecksumIndex.write(indexPath, indexRecordList);
+			checksumIndex = ChecksumIndex.open(indexPath);
+		}
+		
+		//Pre-keys are all SHA-256, so none is left in journal
+		preKeyIndex = mergeIndex(preKeyIndexPath, preKeyIndex, preKeyMap, now);
+		preKeyMap.clear();
+		
+		Path tempFilePath = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+		try (BufferedWriter bw = Files.newBufferedWriter(tempFilePath, StandardCharsets.UTF_8)) {
+			for (Entry<String, Long> mapEntry : checksumMap.entrySet()) {
+				bw.write(mapEntry.getValue() + FIELD_SEPARATOR + mapEntry.getKey());
+				bw.newLine();
+			}
+		}
+		
+		try (FileChannel tempChannel = FileChannel.open(tempFilePath, StandardOpenOption.WRITE)) {
+			tempChannel.force(true);
+		}
+		
+		if (journalChannel != null)
+			journalChannel.close();
+		
+		try {
+			Files.move(tempFilePath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			journalLineCount = checksumMap.size();
+			gotLegacyLine = false;
+		} finally {
+			//Keep appending to the old journal if it cannot be replaced, lines moved to index are just duplicates there
+			openJournalChannel();
+		}
+		
+		myLogger.debug("End compact checksum journal - live checksums: {}, indexed checksums: {}, indexed pre-keys: {}", checksumMap.size(),
+				checksumIndex.size(), preKeyIndex.size());
+	}
+	
+	/**
+	 * @return reopened index if any record added or expired, otherwise the same one
+	 */
+	private ChecksumIndex mergeIndex(Path targetIndexPath, ChecksumIndex sourceIndex, LinkedHashMap<String, Long> sourceMap, long now) throws IOException {
+		List<IndexRecord> indexRecordList = new ArrayList<>();
+		for (IndexRecord indexRecord : sourceIndex.readAll()) {
+			if (now - indexRecord.getSentTime() <= retention)
+				indexRecordList.add(indexRecord);
+		}
+		int expiredCount = sourceIndex.size() - indexRecordList.size();
+		
+		for (Entry<String, Long> mapEntry : sourceMap.entrySet()) {
+			byte[] digest = toDigest(mapEntry.getKey());
+			if (digest != null && now - mapEntry.getValue() <= retention && !sourceIndex.contains(digest))
+				indexRecordList.add(new IndexRecord(digest, mapEntry.getValue()));
+		}
+		
+		if (indexRecordList.size() == sourceIndex.size() && expiredCount == 0)
+			return sourceIndex;
+		
+		ChecksumIndex.write(targetIndexPath, indexRecordList);
+		return ChecksumIndex.open(targetIndexPath);
+	}
+	
+	public synchronized void compactIfNeeded() {
+		try {
+			if (isCompactionNeeded())
+				compact();
+		} catch (IOException e) {
+			myLogger.error("Cannot compact checksum journal : {}", journalPath.toAbsolutePath(), e);
+		}
+	}
+	
+	/**
+	 * Run compaction in background thread periodically (and once soon after start)
+	 */
+	public void startBackgroundCompaction(long compactionInterval) {
+		compactionExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+			Thread compactionThread = new Thread(runnable, "checksum-journal-compaction");
+			compactionThread.setDaemon(true);
+			return compactionThread;
+		});
+		compactionExecutor.scheduleWithFixedDelay(() -> compactIfNeeded(), 0L, compactionInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	@Override
+	public void close() {
+		if (compactionExecutor != null) {
+			//Don't interrupt, otherwise the file channel would be closed in the middle of compaction
+			compactionExecutor.shutdown();
+			try {
+				compactionExecutor.awaitTermination(30L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		synchronized (this) {
+			try {
+				flush();
+				if (journalChannel != null)
+					journalChannel.close();
+			} catch (IOException e) {
+				myLogger.error("Cannot close checksum journal : {}", journalPath.toAbsolutePath(), e);
+			}
+			journalChannel = null;
+		}
+	}
+	
+	public Path getJournalPath() {
+		return journalPath;
+	}
+	
+	public Path getIndexPath() {
+		return indexPath;
+	}
+	
+	public Path getPreKeyIndexPath() {
+		return preKeyIndexPath;
+	}
+	
+	public long getRetention() {
+		return retention;
+	}
+}
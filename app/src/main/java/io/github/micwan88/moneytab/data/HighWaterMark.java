@@ -0,0 +1,175 @@
+package io.github.micwan88.moneytab.data;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+
+/**
+ * Newest notification item handled by last completed run. As the list is newest first,
+ * extraction can stop at this item. Items with older date are only a hint, as a pinned or out of order item may be on top.
+ *
+ * File format is a single JSON object: {"type", "date", "fullText"}
+ */
+public class HighWaterMark {
+	
+	private static final Logger myLogger = LogManager.getLogger(HighWaterMark.class);
+	
+	private static final Pattern DATE_PATTERN = Pattern.compile("^(\\d{2})\\.(\\d{2})\\.(\\d{4})$");
+	
+	private String type = null;
+	
+	private String dateInString = null;
+	
+	private String fullDescription = null;
+	
+	public HighWaterMark(String type, String dateInString, String fullDescription) {
+		this.type = type;
+		this.dateInString = dateInString;
+		this.fullDescription = fullDescription;
+	}
+	
+	public static HighWaterMark of(NotificationItem notificationItem) {
+		return new HighWaterMark(notificationItem.getType(), notificationItem.getDateInString(), notificationItem.getFullDescription());
+	}
+	
+	/**
+	 * @return "yyyyMMdd" of notification date (dd.MM.yyyy) which can be compared as string, null if not in this format
+	 */
+	public static String toDateKey(String dateInString) {
+		if (dateInString == null)
+			return null;
+		
+		Matcher dateMatcher = DATE_PATTERN.matcher(dateInString.trim());
+		if (!dateMatcher.matches())
+			return null;
+		return dateMatcher.group(3) + dateMatcher.group(2) + dateMatcher.group(1);
+	}
+	
+	public boolean isMarkItem(NotificationItem notificationItem) {
+		return Objects.equals(type, notificationItem.getType()) && Objects.equals(fullDescription, notificationItem.getFullDescription());
+	}
+	
+	/**
+	 * @return true if date of item is older than the mark, false if same, newer or unknown
+	 */
+	public boolean isOlderThanMark(NotificationItem notificationItem) {
+		String markDateKey = toDateKey(dateInString);
+		String itemDateKey = toDateKey(notificationItem.getDateInString());
+		return markDateKey != null && itemDateKey != null && itemDateKey.compareTo(markDateKey) < 0;
+	}
+	
+	/**
+	 * Top most item with the newest date, so that a pinned older item on top would not become the mark
+	 * @return null if list is empty
+	 */
+	public static NotificationItem findNewestItem(List<NotificationItem> notificationItemList) {
+		NotificationItem newestItem = null;
+		String newestDateKey = null;
+		for (NotificationItem notificationItem : notificationItemList) {
+			String dateKey = toDateKey(notificationItem.getDateInString());
+			if (newestItem == null || (dateKey != null && (newestDateKey == null || dateKey.compareTo(newestDateKey) > 0))) {
+				newestItem = notificationItem;
+				newestDateKey = dateKey;
+			}
+		}
+		return newestItem;
+	}
+	
+	/**
+	 * Same check done by the extract script, see {@link #isMarkItem(NotificationItem)} and {@link #isOlderThanMark(NotificationItem)}
+	 */
+	public HashMap<String, String> toScriptArgument() {
+		HashMap<String, String> markMap = new HashMap<>();
+		markMap.put("type", type);
+		markMap.put("fullText", fullDescription);
+		markMap.put("dateKey", toDateKey(dateInString));
+		return markMap;
+	}
+	
+	/**
+	 * @return null if file not exist or cannot be read
+	 */
+	public static HighWaterMark read(Path markFilePath) {
+		if (!Files.isReadable(markFilePath)) {
+			myLogger.debug("High-water mark file not exist, so extract whole list : {}", markFilePath.toAbsolutePath());
+			return null;
+		}
+		
+		try {
+			JsonObject markJson = JsonParser.parseString(new String(Files.readAllBytes(markFilePath), StandardCharsets.UTF_8)).getAsJsonObject();
+			HighWaterMark highWaterMark = new HighWaterMark(markJson.get("type").getAsString(), markJson.get("date").getAsString(),
+					markJson.get("fullText").getAsString());
+			myLogger.debug("High-water mark loaded : {}", highWaterMark);
+			return highWaterMark;
+		} catch (IOException | JsonParseException | IllegalStateException | NullPointerException e) {
+			myLogger.error("Cannot read high-water mark file : {}", markFilePath.toAbsolutePath(), e);
+		}
+		return null;
+	}
+	
+	public boolean save(Path markFilePath) {
+		JsonObject markJson = new JsonObject();
+		markJson.addProperty("type", type);
+		markJson.addProperty("date", dateInString);
+		markJson.addProperty("fullText", fullDescription);
+		
+		Path tempFilePath = markFilePath.resolveSibling(markFilePath.getFileName() + ".tmp");
+		try {
+			Files.write(tempFilePath, markJson.toString().getBytes(StandardCharsets.UTF_8));
+			Files.move(tempFilePath, markFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			myLogger.error("Cannot save high-water mark file : {}", markFilePath.toAbsolutePath(), e);
+		}
+		return false;
+	}
+	
+	public String getType() {
+		return type;
+	}
+	
+	public String getDateInString() {
+		return dateInString;
+	}
+	
+	public String getFullDescription() {
+		return fullDescription;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(type, dateInString, fullDescription);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof HighWaterMark))
+			return false;
+		HighWaterMark other = (HighWaterMark)obj;
+		return Objects.equals(type, other.type) && Objects.equals(dateInString, other.dateInString)
+				&& Objects.equals(fullDescription, other.fullDescription);
+	}
+	
+	@Override
+	public String toString() {
+		return "HighWaterMark [type=" + type + ", dateInString=" + dateInString + ", fullDescription=" + fullDescription + "]";
+	}
+}
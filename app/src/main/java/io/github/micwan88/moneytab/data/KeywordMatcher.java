@@ -0,0 +1,172 @@
+package io.github.micwan88.moneytab.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton built once from keywords, so finding any keyword in a text is one pass over
+ * the text no matter how many keywords. Works on java chars, so chinese text is matched char by char
+ * without any word boundary.
+ */
+public class KeywordMatcher {
+	
+	private static final int ROOT = 0;
+	
+	private List<HashMap<Character, Integer>> gotoList = new ArrayList<>();
+	
+	private int[] failLinks = null;
+	
+	//Node is end of a keyword, or its fail chain reaches one
+	private boolean[] outputs = null;
+	
+	//Index (in given keywords) of all keywords ending at node, including those of its fail chain
+	private int[][] outputKeywordIndexes = null;
+	
+	private int keywordCount = 0;
+	
+	/**
+	 * Empty keyword is ignored as it would match everything
+	 */
+	public KeywordMatcher(Collection<String> keywords) {
+		gotoList.add(new HashMap<>());
+		List<Integer> keywordEndList = new ArrayList<>();
+		List<Integer> keywordIndexList = new ArrayList<>();
+		
+		int keywordIndex = -1;
+		for (String keyword : keywords) {
+			keywordIndex++;
+			if (keyword == null || keyword.isEmpty())
+				continue;
+			
+			int node = ROOT;
+			for (int i=0; i<keyword.length(); i++) {
+				Integer nextNode = gotoList.get(node).get(keyword.charAt(i));
+				if (nextNode == null) {
+					nextNode = gotoList.size();
+					gotoList.add(new HashMap<>());
+					gotoList.get(node).put(keyword.charAt(i), nextNode);
+				}
+				node = nextNode;
+			}
+			keywordEndList.add(node);
+			keywordIndexList.add(keywordIndex);
+			keywordCount++;
+		}
+		
+		failLinks = new int[gotoList.size()];
+		outputs = new boolean[gotoList.size()];
+		outputKeywordIndexes = new int[gotoList.size()][];
+		for (int i=0; i<keywordEndList.size(); i++) {
+			int node = keywordEndList.get(i);
+			outputs[node] = true;
+			outputKeywordIndexes[node] = appendIndex(outputKeywordIndexes[node], keywordIndexList.get(i));
+		}
+		
+		buildFailLinks();
+	}
+	
+	private static int[] appendIndex(int[] indexes, int index) {
+		if (indexes == null)
+			return new int[] {index};
+		
+		int[] newIndexes = Arrays.copyOf(indexes, indexes.length + 1);
+		newIndexes[indexes.length] = index;
+		return newIndexes;
+	}
+	
+	/**
+	 * Breadth first, so fail link of a node (always shallower) is done before the node itself,
+	 * and outputs of the fail node are complete when merged into the node
+	 */
+	private void buildFailLinks() {
+		ArrayDeque<Integer> nodeQueue = new ArrayDeque<>();
+		for (Integer childNode : gotoList.get(ROOT).values()) {
+			failLinks[childNode] = ROOT;
+			nodeQueue.add(childNode);
+		}
+		
+		while (!nodeQueue.isEmpty()) {
+			int node = nodeQueue.poll();
+			for (Map.Entry<Character, Integer> entry : gotoList.get(node).entrySet()) {
+				int childNode = entry.getValue();
+				
+				int failNode = failLinks[node];
+				while (failNode != ROOT && !gotoList.get(failNode).containsKey(entry.getKey()))
+					failNode = failLinks[failNode];
+				Integer failTarget = gotoList.get(failNode).get(entry.getKey());
+				failLinks[childNode] = failTarget != null ? failTarget : ROOT;
+				
+				outputs[childNode] |= outputs[failLinks[childNode]];
+				int[] failOutputIndexes = outputKeywordIndexes[failLinks[childNode]];
+				if (failOutputIndexes != null) {
+					for (int failOutputIndex : failOutputIndexes)
+						outputKeywordIndexes[childNode] = appendIndex(outputKeywordIndexes[childNode], failOutputIndex);
+				}
+				nodeQueue.add(childNode);
+			}
+		}
+	}
+	
+	/**
+	 * @return true if any keyword found in text
+	 */
+	public boolean containsAny(String text) {
+		if (text == null || keywordCount == 0)
+			return false;
+		
+		int node = ROOT;
+		for (int i=0; i<text.length(); i++) {
+			node = nextNode(node, text.charAt(i));
+			if (outputs[node])
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @return index (in given keywords) of every keyword found in text, still one pass over the text
+	 */
+	public BitSet findAll(String text) {
+		BitSet keywordIndexes = new BitSet();
+		if (text == null || keywordCount == 0)
+			return keywordIndexes;
+		
+		int node = ROOT;
+		for (int i=0; i<text.length(); i++) {
+			node = nextNode(node, text.charAt(i));
+			if (outputs[node]) {
+				for (int keywordIndex : outputKeywordIndexes[node])
+					keywordIndexes.set(keywordIndex);
+			}
+		}
+		return keywordIndexes;
+	}
+	
+	private int nextNode(int node, char c) {
+		Integer nextNode = gotoList.get(node).get(c);
+		while (nextNode == null && node != ROOT) {
+			node = failLinks[node];
+			nextNode = gotoList.get(node).get(c);
+		}
+		return nextNode != null ? nextNode : ROOT;
+	}
+	
+	public int getKeywordCount() {
+		return keywordCount;
+	}
+	
+	public int getNodeCount() {
+		return gotoList.size();
+	}
+	
+	@Override
+	public String toString() {
+		return "KeywordMatcher [keywords=" + keywordCount + ", nodes=" + gotoList.size() + "]";
+	}
+}
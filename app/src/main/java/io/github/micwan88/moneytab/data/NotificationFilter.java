@@ -8,9 +8,22 @@ import java.util.stream.Collectors;
 import io.github.micwan88.moneytab.bean.NotificationItem;
 
 public class NotificationFilter {
+	/**
+	 * EXACT - whole title is in filter list, KEYWORD - any filter value found in title (e.g. series name with episode suffix)
+	 */
+	public enum TITLE_MATCH_MODE {
+		EXACT, KEYWORD
+	}
+	
 	private HashSet<String> filterItemSet = new HashSet<>();
 	
 	private boolean isBlackListFilter = true;
+	
+	private ChecksumJournal checksumJournal = null;
+	
+	private TITLE_MATCH_MODE titleMatchMode = TITLE_MATCH_MODE.EXACT;
+	
+	private KeywordMatcher keywordMatcher = null;
 
 	public HashSet<String> getFilterItemSet() {
 		return filterItemSet;
@@ -18,6 +31,9 @@ public class NotificationFilter {
 
 	public void setFilterItemSet(HashSet<String> filterItemSet) {
 		this.filterItemSet = filterItemSet;
+		
+		if (titleMatchMode == TITLE_MATCH_MODE.KEYWORD)
+			keywordMatcher = new KeywordMatcher(filterItemSet);
 	}
 
 	public boolean isBlackListFilter() {
@@ -28,6 +44,18 @@ public class NotificationFilter {
 		this.isBlackListFilter = isBlackListFilter;
 	}
 
+	public TITLE_MATCH_MODE getTitleMatchMode() {
+		return titleMatchMode;
+	}
+
+	/**
+	 * Keyword automaton is built here once, not per title
+	 */
+	public void setTitleMatchMode(TITLE_MATCH_MODE titleMatchMode) {
+		this.titleMatchMode = titleMatchMode;
+		keywordMatcher = titleMatchMode == TITLE_MATCH_MODE.KEYWORD ? new KeywordMatcher(filterItemSet) : null;
+	}
+
 	public NotificationFilter(String filterString) {
 		if (filterString != null) {
 			if (filterString.startsWith("^")) {
@@ -48,23 +76,36 @@ public class NotificationFilter {
 		this.isBlackListFilter = isBlackListFilter;
 	}
 	
+	/**
+	 * Checksum filter backed by journal and its binary index, instead of loading all checksums into set
+	 */
+	public NotificationFilter(ChecksumJournal checksumJournal, boolean isBlackListFilter) {
+		this.checksumJournal = checksumJournal;
+		this.isBlackListFilter = isBlackListFilter;
+	}
+	
 	public boolean filterDate(NotificationItem notificationItem) {
 		boolean result = isBlackListFilter ^ filterItemSet.contains(notificationItem.getDateInString());
 		return result;
 	}
 	
 	public boolean filterTitle(NotificationItem notificationItem) {
-		boolean result = isBlackListFilter ^ filterItemSet.contains(notificationItem.getTitle());
+		boolean isFound = keywordMatcher != null ? keywordMatcher.containsAny(notificationItem.getTitle()) : filterItemSet.contains(notificationItem.getTitle());
+		boolean result = isBlackListFilter ^ isFound;
 		return result;
 	}
 	
 	public boolean filterChecksum(NotificationItem notificationItem) {
-		boolean result = isBlackListFilter ^ filterItemSet.contains(notificationItem.getChecksum());
+		boolean isFound = checksumJournal != null ? checksumJournal.contains(notificationItem.getChecksum()) : filterItemSet.contains(notificationItem.getChecksum());
+		boolean result = isBlackListFilter ^ isFound;
 		return result;
 	}
 
 	@Override
 	public String toString() {
-		return "NotificationFilter [filterItemSet=(" + filterItemSet.stream().collect(Collectors.joining(",")) + "), isBlackListFilter=" + isBlackListFilter + "]";
+		if (checksumJournal != null)
+			return "NotificationFilter [checksumJournal=(" + checksumJournal.getJournalPath() + ", size=" + checksumJournal.size() + "), isBlackListFilter=" + isBlackListFilter + "]";
+		return "NotificationFilter [filterItemSet=(" + filterItemSet.stream().collect(Collectors.joining(",")) + "), isBlackListFilter=" + isBlackListFilter
+				+ (titleMatchMode != TITLE_MATCH_MODE.EXACT ? ", titleMatchMode=" + titleMatchMode : "") + "]";
 	}
 }
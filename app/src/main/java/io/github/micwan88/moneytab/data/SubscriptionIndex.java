@@ -0,0 +1,150 @@
+package io.github.micwan88.moneytab.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+
+/**
+ * Per chat subscription rules compiled into inverted index, so routing an item only looks up its own title, type
+ * and text instead of evaluating every rule of every chat.
+ *
+ * Rule is a comma list of terms, chat gets the item if any term matched:
+ * title:[title] - same title (series), type:[type] - same notification type,
+ * keyword:[word] - word found in full description (case insensitive), * - everything
+ *
+ * Keywords of all chats are compiled into one {@link KeywordMatcher}, as chinese text has no word boundary,
+ * so description is scanned once no matter how many keywords.
+ */
+public class SubscriptionIndex {
+	
+	public static final String TERM_TITLE = "title:";
+	public static final String TERM_TYPE = "type:";
+	public static final String TERM_KEYWORD = "keyword:";
+	public static final String TERM_ALL = "*";
+	
+	private HashMap<String, LinkedHashSet<String>> titleIndex = new HashMap<>();
+	
+	private HashMap<String, LinkedHashSet<String>> typeIndex = new HashMap<>();
+	
+	private HashMap<String, LinkedHashSet<String>> keywordIndex = new HashMap<>();
+	
+	//Built on first route after keyword added, chats of each keyword are in the same order as keywords of matcher
+	private KeywordMatcher keywordMatcher = null;
+	
+	private ArrayList<LinkedHashSet<String>> keywordChatIDsList = new ArrayList<>();
+	
+	private LinkedHashSet<String> allItemChatIDs = new LinkedHashSet<>();
+	
+	private LinkedHashSet<String> chatIDs = new LinkedHashSet<>();
+	
+	/**
+	 * @return false if any term is invalid (whole rule is not added)
+	 */
+	public boolean addSubscription(String chatID, String ruleString) {
+		if (chatID == null || chatID.trim().isEmpty() || ruleString == null)
+			return false;
+		
+		String[] terms = ruleString.split(",");
+		for (String term : terms) {
+			if (!isValidTerm(term.trim()))
+				return false;
+		}
+		
+		chatID = chatID.trim();
+		for (String term : terms) {
+			term = term.trim();
+			if (term.equals(TERM_ALL)) {
+				allItemChatIDs.add(chatID);
+			} else if (term.startsWith(TERM_TITLE)) {
+				titleIndex.computeIfAbsent(term.substring(TERM_TITLE.length()).trim(), (key) -> new LinkedHashSet<>()).add(chatID);
+			} else if (term.startsWith(TERM_TYPE)) {
+				typeIndex.computeIfAbsent(term.substring(TERM_TYPE.length()).trim(), (key) -> new LinkedHashSet<>()).add(chatID);
+			} else {
+				String keyword = term.substring(TERM_KEYWORD.length()).trim().toLowerCase(Locale.ROOT);
+				if (!keywordIndex.containsKey(keyword))
+					keywordMatcher = null;
+				keywordIndex.computeIfAbsent(keyword, (key) -> new LinkedHashSet<>()).add(chatID);
+			}
+		}
+		chatIDs.add(chatID);
+		return true;
+	}
+	
+	private void buildKeywordMatcher() {
+		ArrayList<String> keywordList = new ArrayList<>(keywordIndex.keySet());
+		keywordChatIDsList = new ArrayList<>();
+		for (String keyword : keywordList) {
+			keywordChatIDsList.add(keywordIndex.get(keyword));
+		}
+		keywordMatcher = new KeywordMatcher(keywordList);
+	}
+	
+	/**
+	 * Chat without rule gets every item, same as before subscription
+	 */
+	public void addAllItemChat(String chatID) {
+		if (chatID == null || chatID.trim().isEmpty())
+			return;
+		
+		allItemChatIDs.add(chatID.trim());
+		chatIDs.add(chatID.trim());
+	}
+	
+	private static boolean isValidTerm(String term) {
+		if (term.equals(TERM_ALL))
+			return true;
+		
+		for (String termPrefix : new String[] {TERM_TITLE, TERM_TYPE, TERM_KEYWORD}) {
+			if (term.startsWith(termPrefix))
+				return !term.substring(termPrefix.length()).trim().isEmpty();
+		}
+		return false;
+	}
+	
+	/**
+	 * @return chats subscribed to this item, empty if none
+	 */
+	public Set<String> route(NotificationItem notificationItem) {
+		LinkedHashSet<String> matchedChatIDs = new LinkedHashSet<>(allItemChatIDs);
+		
+		LinkedHashSet<String> titleChatIDs = titleIndex.get(notificationItem.getTitle());
+		if (titleChatIDs != null)
+			matchedChatIDs.addAll(titleChatIDs);
+		
+		LinkedHashSet<String> typeChatIDs = typeIndex.get(notificationItem.getType());
+		if (typeChatIDs != null)
+			matchedChatIDs.addAll(typeChatIDs);
+		
+		//Not rebuilt for every rule while loading
+		if (keywordMatcher == null && !keywordIndex.isEmpty())
+			buildKeywordMatcher();
+		
+		if (keywordMatcher != null && notificationItem.getFullDescription() != null) {
+			BitSet keywordIndexes = keywordMatcher.findAll(notificationItem.getFullDescription().toLowerCase(Locale.ROOT));
+			for (int i=keywordIndexes.nextSetBit(0); i>=0; i=keywordIndexes.nextSetBit(i + 1)) {
+				matchedChatIDs.addAll(keywordChatIDsList.get(i));
+			}
+		}
+		
+		return matchedChatIDs;
+	}
+	
+	public Set<String> getChatIDs() {
+		return chatIDs;
+	}
+	
+	public boolean isEmpty() {
+		return chatIDs.isEmpty();
+	}
+	
+	@Override
+	public String toString() {
+		return "SubscriptionIndex [chats=" + chatIDs.size() + ", titles=" + titleIndex.size() + ", types=" + typeIndex.size()
+				+ ", keywords=" + keywordIndex.size() + ", allItemChats=" + allItemChatIDs + "]";
+	}
+}
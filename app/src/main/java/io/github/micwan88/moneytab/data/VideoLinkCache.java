@@ -0,0 +1,176 @@
+package io.github.micwan88.moneytab.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Disk backed cache of pageLink to videoLink, so that video page only need to be loaded once.
+ *
+ * Entry older than TTL would be ignored, and least recently used entry would be evicted when over max size.
+ * File format is one entry per line: resolvedTime(ms) \t pageLink \t videoLink
+ */
+public class VideoLinkCache {
+	
+	private static final Logger myLogger = LogManager.getLogger(VideoLinkCache.class);
+	
+	private static final String FIELD_SEPARATOR = "\t";
+	
+	private Path cacheFilePath = null;
+	
+	private long ttl = 0L;
+	
+	private int maxSize = 0;
+	
+	private boolean isDirty = false;
+	
+	private LinkedHashMap<String, CacheEntry> cacheMap = null;
+	
+	public static class CacheEntry {
+		private String videoLink = null;
+		private long resolvedTime = 0L;
+		
+		public CacheEntry(String videoLink, long resolvedTime) {
+			this.videoLink = videoLink;
+			this.resolvedTime = resolvedTime;
+		}
+		
+		public String getVideoLink() {
+			return videoLink;
+		}
+		
+		public long getResolvedTime() {
+			return resolvedTime;
+		}
+	}
+	
+	public VideoLinkCache(Path cacheFilePath, long ttl, int maxSize) {
+		this.cacheFilePath = cacheFilePath;
+		this.ttl = ttl;
+		this.maxSize = maxSize;
+		
+		//Access order for LRU eviction
+		cacheMap = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > VideoLinkCache.this.maxSize;
+			}
+		};
+	}
+	
+	public void load() {
+		myLogger.debug("Loading videoLink cache from file: {}", cacheFilePath.toAbsolutePath());
+		if (!Files.isReadable(cacheFilePath)) {
+			myLogger.debug("VideoLink cache file not exist, so skip loading : {}", cacheFilePath.toAbsolutePath());
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		try (BufferedReader br = Files.newBufferedReader(cacheFilePath, StandardCharsets.UTF_8)) {
+			String line = null;
+			while ((line = br.readLine()) != null) {
+				String[] fields = line.split(FIELD_SEPARATOR, 3);
+				if (fields.length != 3) {
+					myLogger.warn("Skip invalid videoLink cache line: {}", line);
+					continue;
+				}
+				
+				long resolvedTime = Long.parseLong(fields[0]);
+				if (isExpired(resolvedTime, now)) {
+					isDirty = true;
+					continue;
+				}
+				
+				cacheMap.put(fields[1], new CacheEntry(fields[2], resolvedTime));
+			}
+			myLogger.debug("Number of videoLink cache entries: {}", cacheMap.size());
+		} catch (IOException | NumberFormatException e) {
+			myLogger.error("Error in loading videoLink cache file", e);
+		}
+	}
+	
+	/**
+	 * Only write to file when there is any change since load
+	 */
+	public void save() {
+		if (!isDirty)
+			return;
+		
+		myLogger.debug("Saving videoLink cache to file: {}", cacheFilePath.toAbsolutePath());
+		
+		Path tempFilePath = cacheFilePath.resolveSibling(cacheFilePath.getFileName() + ".tmp");
+		try {
+			try (BufferedWriter bw = Files.newBufferedWriter(tempFilePath, StandardCharsets.UTF_8)) {
+				//Iterate in access order, so LRU order would be kept after reload
+				for (Entry<String, CacheEntry> mapEntry : cacheMap.entrySet()) {
+					bw.write(mapEntry.getValue().getResolvedTime() + FIELD_SEPARATOR + mapEntry.getKey() + FIELD_SEPARATOR + mapEntry.getValue().getVideoLink());
+					bw.newLine();
+				}
+			}
+			Files.move(tempFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			
+			isDirty = false;
+			myLogger.debug("VideoLink cache saved with count : {}", cacheMap.size());
+		} catch (IOException e) {
+			myLogger.error("Cannot save videoLink cache : {}", cacheFilePath.toAbsolutePath(), e);
+		}
+	}
+	
+	/**
+	 * @return null if not cached or expired
+	 */
+	public String get(String pageLink) {
+		CacheEntry cacheEntry = cacheMap.get(pageLink);
+		if (cacheEntry == null)
+			return null;
+		
+		if (isExpired(cacheEntry.getResolvedTime(), System.currentTimeMillis())) {
+			cacheMap.remove(pageLink);
+			isDirty = true;
+			return null;
+		}
+		
+		return cacheEntry.getVideoLink();
+	}
+	
+	public void put(String pageLink, String videoLink) {
+		put(pageLink, videoLink, System.currentTimeMillis());
+	}
+	
+	public void put(String pageLink, String videoLink, long resolvedTime) {
+		cacheMap.put(pageLink, new CacheEntry(videoLink, resolvedTime));
+		isDirty = true;
+	}
+	
+	public int size() {
+		return cacheMap.size();
+	}
+	
+	private boolean isExpired(long resolvedTime, long now) {
+		return now - resolvedTime > ttl;
+	}
+	
+	public Path getCacheFilePath() {
+		return cacheFilePath;
+	}
+	
+	public long getTtl() {
+		return ttl;
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+}
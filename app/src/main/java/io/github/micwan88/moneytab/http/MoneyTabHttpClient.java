@@ -0,0 +1,282 @@
+package io.github.micwan88.moneytab.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.openqa.selenium.Cookie;
+
+import io.github.micwan88.moneytab.WebBotConst;
+import io.github.micwan88.moneytab.bean.NotificationItem;
+
+/**
+ * Read the notification list and video link by plain http request with the cookies persisted from browser.
+ *
+ * Same css selectors as the browser path are used on the server rendered html.
+ * Any redirect is treated as invalid session, so that caller can fallback to browser.
+ */
+public class MoneyTabHttpClient implements Closeable {
+	
+	private static final Logger myLogger = LogManager.getLogger(MoneyTabHttpClient.class);
+	
+	public static final String HTTP_USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/109.0.0.0 Safari/537.36";
+	
+	private String siteBaseURL = null;
+	
+	private Set<Cookie> cookies = null;
+	
+	private CloseableHttpClient httpClient = null;
+	
+	public MoneyTabHttpClient(String siteBaseURL, Set<Cookie> cookies, long timeout) {
+		this.siteBaseURL = siteBaseURL;
+		this.cookies = cookies;
+		
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout((int)timeout)
+				.setConnectionRequestTimeout((int)timeout)
+				.setSocketTimeout((int)timeout)
+				.build();
+		
+		//Redirect means not logon, so handle it by ourself
+		httpClient = HttpClients.custom()
+				.disableRedirectHandling()
+				.setDefaultRequestConfig(requestConfig)
+				.setUserAgent(HTTP_USER_AGENT)
+				.build();
+	}
+	
+	/**
+	 * @return null if session is invalid or page cannot be parsed, no filter is applied here
+	 */
+	public List<NotificationItem> fetchNotificationList() {
+		myLogger.debug("Start fetchNotificationList");
+		
+		String targetURL = siteBaseURL + WebBotConst.MONEYTAB_NOTIFICATION_PATH;
+		myLogger.debug("Target URL: {}", targetURL);
+		
+		try {
+			Document notificationPage = fetchDocument(targetURL);
+			if (notificationPage == null)
+				return null;
+			
+			Element notificationDiv = notificationPage.selectFirst("section > div > div > p + div");
+			if (notificationDiv == null) {
+				myLogger.warn("Cannot find notification div container, may be not server rendered");
+				return null;
+			}
+			
+			ArrayList<NotificationItem> notificationItemList = new ArrayList<>();
+			for (Element notificationItemElement : notificationDiv.select("div[class^='notice_item']")) {
+				NotificationItem notificationItem = parseNotificationItem(notificationItemElement);
+				if (notificationItem == null)
+					continue;
+				
+				notificationItemList.add(notificationItem);
+			}
+			
+			myLogger.debug("notificationItemList.size : {}", notificationItemList.size());
+			return notificationItemList;
+		} catch (IOException e) {
+			myLogger.error("Cannot execute http request", e);
+		} catch (Exception e) {
+			myLogger.error("Unexpected error", e);
+		} finally {
+			myLogger.debug("End fetchNotificationList");
+		}
+		return null;
+	}
+	
+	private NotificationItem parseNotificationItem(Element notificationItemElement) {
+		Element notificationTypeElement = notificationItemElement.selectFirst("div > span + span");
+		if (notificationTypeElement == null) {
+			myLogger.error("Cannot find type element in individual item: {}", notificationItemElement.outerHtml());
+			return null;
+		}
+		
+		String notificationType = notificationTypeElement.text().trim();
+		
+		//No link if just news notification
+		Element notificationContentElement = notificationType.equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO)
+				? notificationItemElement.selectFirst("div + div > a.block[href]")
+				: notificationItemElement.selectFirst("div + div");
+		Element notificationDateElement = notificationContentElement == null ? null : notificationContentElement.selectFirst("div > span");
+		Element notificationTitleElement = notificationContentElement == null ? null : notificationContentElement.selectFirst("div:has(span) + p");
+		
+		if (notificationDateElement == null || notificationTitleElement == null) {
+			myLogger.error("Cannot find related element in individual item: {}", notificationItemElement.outerHtml());
+			return null;
+		}
+		
+		NotificationItem notificationItem = new NotificationItem(notificationType, notificationDateElement.text().trim(),
+				NotificationItem.normalizeText(notificationTitleElement.text()), getText(notificationContentElement));
+		
+		if (notificationType.equals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO))
+			notificationItem.setPageLink(notificationContentElement.absUrl("href").trim());
+		
+		return notificationItem;
+	}
+	
+	/**
+	 * Element.text() puts everything in one line, so follow WebElement.getText() of browser instead:
+	 * line break at br and around block elements, then in canonical form of {@link NotificationItem#normalizeText(String)}.
+	 * Otherwise checksum of same item would be different from the browser path.
+	 */
+	private static String getText(Element element) {
+		StringBuilder textBuilder = new StringBuilder();
+		NodeTraversor.traverse(new NodeVisitor() {
+			@Override
+			public void head(Node node, int depth) {
+				if (node instanceof TextNode)
+					textBuilder.append(((TextNode)node).text());
+				else if (node instanceof Element && (((Element)node).isBlock() || ((Element)node).normalName().equals("br")))
+					textBuilder.append('\n');
+			}
+			
+			@Override
+			public void tail(Node node, int depth) {
+				if (node instanceof Element && ((Element)node).isBlock())
+					textBuilder.append('\n');
+			}
+		}, element);
+		
+		return NotificationItem.normalizeText(textBuilder.toString());
+	}
+	
+	/**
+	 * @return null if cannot find the youtube link
+	 */
+	public String fetchYoutubeLink(String pageLink) {
+		myLogger.debug("Start fetchYoutubeLink: {}", pageLink);
+		try {
+			Document videoPage = fetchDocument(pageLink);
+			if (videoPage == null)
+				return null;
+			
+			boolean gotJoinButton = videoPage.select("span.core-button__text.h4").stream()
+					.anyMatch((buttonElement) -> buttonElement.text().trim().equals(WebBotConst.VIDEO_PAGE_JOIN_BUTTON_LABEL));
+			if (gotJoinButton) {
+				myLogger.warn("'join' button is here: {}", pageLink);
+				return null;
+			}
+			
+			Element iFrameElement = videoPage.selectFirst("main > section > div + div iframe");
+			if (iFrameElement == null) {
+				myLogger.warn("Cannot find iFrameElement: {}", pageLink);
+				return null;
+			}
+			
+			//Same as browser, try the iframe and then any nested iframe
+			return fetchYoutubeLinkFromFrame(iFrameElement.absUrl("src"), 2);
+		} catch (IOException e) {
+			myLogger.error("Cannot execute http request", e);
+		} catch (Exception e) {
+			myLogger.error("Unexpected error", e);
+		} finally {
+			myLogger.debug("End fetchYoutubeLink");
+		}
+		return null;
+	}
+	
+	private String fetchYoutubeLinkFromFrame(String frameURL, int remainingDepth) throws IOException {
+		myLogger.debug("iFrame src : {}", frameURL);
+		if (frameURL == null || frameURL.isEmpty())
+			return null;
+		
+		Document framePage = fetchDocument(frameURL);
+		if (framePage == null)
+			return null;
+		
+		Element linkElement = framePage.selectFirst("link[rel='canonical']");
+		if (linkElement != null) {
+			String youtubeLink = linkElement.absUrl("href");
+			myLogger.debug("Youtube link found : {}", youtubeLink);
+			return youtubeLink;
+		}
+		
+		if (remainingDepth <= 1)
+			return null;
+		
+		//Find any nested iframe
+		Element iFrameElement = framePage.selectFirst("iframe");
+		if (iFrameElement == null)
+			return null;
+		
+		return fetchYoutubeLinkFromFrame(iFrameElement.absUrl("src"), remainingDepth - 1);
+	}
+	
+	/**
+	 * @return null if not http 200 (e.g. redirect to login page)
+	 */
+	private Document fetchDocument(String targetURL) throws IOException {
+		HttpGet httpGet = new HttpGet(targetURL);
+		
+		String cookieHeader = buildCookieHeader(URI.create(targetURL));
+		if (!cookieHeader.isEmpty())
+			httpGet.setHeader("Cookie", cookieHeader);
+		
+		try (CloseableHttpResponse httpResponse = httpClient.execute(httpGet)) {
+			int statusCode = httpResponse.getStatusLine().getStatusCode();
+			HttpEntity httpEntity = httpResponse.getEntity();
+			
+			if (statusCode != 200) {
+				myLogger.warn("Http status {} from {} - location: {}", statusCode, targetURL,
+						httpResponse.getFirstHeader(HttpHeaders.LOCATION) != null ? httpResponse.getFirstHeader(HttpHeaders.LOCATION).getValue() : null);
+				EntityUtils.consume(httpEntity);
+				return null;
+			}
+			
+			String html = httpEntity == null ? "" : EntityUtils.toString(httpEntity, StandardCharsets.UTF_8);
+			return Jsoup.parse(html, targetURL);
+		}
+	}
+	
+	private String buildCookieHeader(URI targetURI) {
+		if (cookies == null || targetURI.getHost() == null)
+			return "";
+		
+		String host = targetURI.getHost().toLowerCase();
+		
+		//Only send cookies to its own domain (e.g. not to youtube iframe)
+		return cookies.stream().filter((cookie) -> {
+			if (cookie.getDomain() == null)
+				return true;
+			
+			String cookieDomain = cookie.getDomain().toLowerCase();
+			if (cookieDomain.startsWith("."))
+				cookieDomain = cookieDomain.substring(1);
+			
+			return host.equals(cookieDomain) || host.endsWith("." + cookieDomain);
+		}).map((cookie) -> cookie.getName() + "=" + cookie.getValue()).collect(Collectors.joining("; "));
+	}
+	
+	@Override
+	public void close() {
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			//Do nothing
+		}
+	}
+}
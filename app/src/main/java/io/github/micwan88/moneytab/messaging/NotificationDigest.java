@@ -0,0 +1,104 @@
+package io.github.micwan88.moneytab.messaging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+
+/**
+ * Pack multiple notification items into as few Telegram messages as possible.
+ *
+ * Items are grouped (keep the original order), and each message starts with the group header.
+ * Length is checked after escaping, so the message would not be truncated by {@link TelegramBot}.
+ */
+public class NotificationDigest {
+	
+	public enum DIGEST_MODE {
+		NONE,
+		ALL,
+		TYPE,
+		DATE
+	}
+	
+	public static final String DIGEST_ITEM_SEPARATOR = "\n\n";
+	
+	private String text = null;
+	
+	private List<NotificationItem> notificationItemList = null;
+	
+	public NotificationDigest(String text, List<NotificationItem> notificationItemList) {
+		this.text = text;
+		this.notificationItemList = notificationItemList;
+	}
+	
+	public String getText() {
+		return text;
+	}
+	
+	public List<NotificationItem> getNotificationItemList() {
+		return notificationItemList;
+	}
+	
+	/**
+	 * @param itemMsgFunction construct the message of single item
+	 * @param maxLength max length of message after escaping
+	 */
+	public static List<NotificationDigest> buildDigests(List<NotificationItem> notificationItemList, DIGEST_MODE digestMode,
+			Function<NotificationItem, String> itemMsgFunction, int maxLength) {
+		LinkedHashMap<String, List<NotificationItem>> groupMap = new LinkedHashMap<>();
+		for (NotificationItem notificationItem : notificationItemList) {
+			groupMap.computeIfAbsent(getGroupHeader(notificationItem, digestMode), (groupHeader) -> new ArrayList<>()).add(notificationItem);
+		}
+		
+		List<NotificationDigest> digestList = new ArrayList<>();
+		groupMap.forEach((groupHeader, groupItemList) -> {
+			StringBuilder digestMsg = new StringBuilder(groupHeader);
+			int digestLength = escapedLength(groupHeader);
+			List<NotificationItem> digestItemList = new ArrayList<>();
+			
+			for (NotificationItem notificationItem : groupItemList) {
+				String itemMsg = itemMsgFunction.apply(notificationItem);
+				int itemLength = escapedLength(itemMsg);
+				int separatorLength = digestMsg.length() == 0 ? 0 : DIGEST_ITEM_SEPARATOR.length();
+				
+				//Full, so start next message of same group
+				if (!digestItemList.isEmpty() && digestLength + separatorLength + itemLength > maxLength) {
+					digestList.add(new NotificationDigest(digestMsg.toString(), digestItemList));
+					
+					digestMsg = new StringBuilder(groupHeader);
+					digestLength = escapedLength(groupHeader);
+					digestItemList = new ArrayList<>();
+					separatorLength = digestMsg.length() == 0 ? 0 : DIGEST_ITEM_SEPARATOR.length();
+				}
+				
+				if (separatorLength > 0)
+					digestMsg.append(DIGEST_ITEM_SEPARATOR);
+				digestMsg.append(itemMsg);
+				digestLength += separatorLength + itemLength;
+				digestItemList.add(notificationItem);
+			}
+			
+			if (!digestItemList.isEmpty())
+				digestList.add(new NotificationDigest(digestMsg.toString(), digestItemList));
+		});
+		
+		return digestList;
+	}
+	
+	private static String getGroupHeader(NotificationItem notificationItem, DIGEST_MODE digestMode) {
+		switch (digestMode) {
+			case TYPE:
+				return "【" + notificationItem.getType() + "】";
+			case DATE:
+				return "【" + notificationItem.getDateInString() + "】";
+			default:
+				return "";
+		}
+	}
+	
+	private static int escapedLength(String sourceString) {
+		return TelegramBot.filterTgRestrictedKeywords(sourceString).length();
+	}
+}
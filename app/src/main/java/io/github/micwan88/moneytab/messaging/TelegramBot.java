@@ -1,16 +1,51 @@
 package io.github.micwan88.moneytab.messaging;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.fluent.Request;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
-public class TelegramBot {
+import io.github.micwan88.moneytab.metrics.MetricsRegistry;
+
+/**
+ * Long-lived Telegram bot client, should be closed after use.
+ *
+ * Connections are pooled and kept alive. Messages are posted asynchronously, different chats in parallel,
+ * while messages to the same chat are chained so that the order is kept.
+ *
+ * Sending is throttled by a global and per-chat token bucket, which follow the limits of Telegram.
+ * 429 is retried after the retry_after from response, 5xx and io error are retried with bounded exponential backoff.
+ */
+public class TelegramBot implements Closeable {
 	public static final String URL_TELEGRAM_BOT_BASE = "https://api.telegram.org/bot";
 	public static final String URL_TELEGRAM_BOT_SENDMSG_CMD = "/sendMessage";
 	
@@ -21,63 +56,394 @@ public class TelegramBot {
 	
 	public static final String TELEGRAM_BOT_SENDMSG_VALUE_PARSE_MODE_HTML = "HTML";
 	
+	public static final int TELEGRAM_BOT_MAX_CONNECTIONS = 8;
+	
+	//Telegram allow around 30 messages per second overall, and 1 message per second in same chat
+	public static final double TELEGRAM_BOT_GLOBAL_RATE_PER_SECOND = 30.0;
+	public static final double TELEGRAM_BOT_CHAT_RATE_PER_SECOND = 1.0;
+	public static final double TELEGRAM_BOT_CHAT_BURST = 3.0;
+	
+	public static final int TELEGRAM_BOT_MAX_RETRY = 5;
+	public static final long TELEGRAM_BOT_BACKOFF_BASE = 500L;
+	public static final long TELEGRAM_BOT_BACKOFF_MAX = 30000L;
+	
+	public static final String METRICS_STAGE_TELEGRAM_POST = "telegram_post";
+	//Own stage, so that summing telegram_post would not count every post twice
+	public static final String METRICS_STAGE_TELEGRAM_POST_CHAT = "telegram_post_chat";
+	public static final String METRICS_LABEL_CHAT = "chat";
+	
+	//Chats are from configuration, the cap only keeps metrics bounded if too many are configured
+	public static final int METRICS_MAX_CHAT_LABELS = 50;
+	public static final String METRICS_CHAT_LABEL_OTHER = "other";
+	
 	private static final Logger myLogger = LogManager.getLogger(TelegramBot.class);
 	
+	private String apiBaseURL = URL_TELEGRAM_BOT_BASE;
+	
 	private String tgBotToken = null;
 	
+	private double chatRatePerSecond = TELEGRAM_BOT_CHAT_RATE_PER_SECOND;
+	
+	private double chatBurst = TELEGRAM_BOT_CHAT_BURST;
+	
+	private TokenBucket globalBucket = null;
+	
+	private ConcurrentHashMap<String, TokenBucket> chatBucketMap = new ConcurrentHashMap<>();
+	
+	//Chat is paused until this time after got 429
+	private ConcurrentHashMap<String, Long> chatPausedUntilMap = new ConcurrentHashMap<>();
+	
+	private PoolingHttpClientConnectionManager connectionManager = null;
+	
+	private CloseableHttpClient httpClient = null;
+	
+	private ScheduledExecutorService sendExecutor = null;
+	
+	//Current time in ms for rate limits and retry_after, same as the delays given to sendExecutor
+	private LongSupplier clock = null;
+	
+	//Tail of the send chain of each chat
+	private ConcurrentHashMap<String, CompletableFuture<Integer>> chatLaneMap = new ConcurrentHashMap<>();
+	
+	//Null if not measured
+	private MetricsRegistry metricsRegistry = null;
+	
+	//Chats having their own label in metrics
+	private HashSet<String> metricsChatIDs = new HashSet<>();
+	
 	public String getTgBotToken() {
 		return tgBotToken;
 	}
-
+	
 	public void setTgBotToken(String tgBotToken) {
 		this.tgBotToken = tgBotToken;
 	}
-
+	
 	public TelegramBot(String tgBotToken) {
+		this(URL_TELEGRAM_BOT_BASE, tgBotToken, 10000L);
+	}
+	
+	/**
+	 * @param apiBaseURL Bot API url before the token, e.g. https://api.telegram.org/bot
+	 */
+	public TelegramBot(String apiBaseURL, String tgBotToken, long timeout) {
+		this(apiBaseURL, tgBotToken, timeout, newSendExecutor(), System::currentTimeMillis);
+	}
+	
+	/**
+	 * @param sendExecutor runs the sends and the waits for rate limits and retries, shut down by {@link #close()}
+	 * @param clock time(ms) used with the delays of sendExecutor, e.g. virtual time in test
+	 */
+	public TelegramBot(String apiBaseURL, String tgBotToken, long timeout, ScheduledExecutorService sendExecutor, LongSupplier clock) {
+		this.apiBaseURL = apiBaseURL;
 		this.tgBotToken = tgBotToken;
+		this.sendExecutor = sendExecutor;
+		this.clock = clock;
+		
+		globalBucket = new TokenBucket(TELEGRAM_BOT_GLOBAL_RATE_PER_SECOND, TELEGRAM_BOT_GLOBAL_RATE_PER_SECOND, clock);
+		
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(TELEGRAM_BOT_MAX_CONNECTIONS);
+		connectionManager.setDefaultMaxPerRoute(TELEGRAM_BOT_MAX_CONNECTIONS);
+		
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout((int)timeout)
+				.setConnectionRequestTimeout((int)timeout)
+				.setSocketTimeout((int)timeout)
+				.build();
+		
+		httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.build();
 	}
 	
+	private static ScheduledExecutorService newSendExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newScheduledThreadPool(TELEGRAM_BOT_MAX_CONNECTIONS, (runnable) -> {
+			Thread sendThread = new Thread(runnable, "telegram-bot-send-" + threadCount.incrementAndGet());
+			sendThread.setDaemon(true);
+			return sendThread;
+		});
+	}
+	
+	/**
+	 * Blocking version of {@link #postNotificationsAsync(String, String)}
+	 */
 	public int postNotifications(String notificationMsg, String tgBotChatIDs) {
-		String apiURL = URL_TELEGRAM_BOT_BASE + tgBotToken + URL_TELEGRAM_BOT_SENDMSG_CMD;
-		
-		String postMsg = filterTgRestrictedKeywords(notificationMsg);
-		if (postMsg.length() > TELEGRAM_BOT_SENDMSG_MAXLENGTH)
-			postMsg = notificationMsg.substring(0, TELEGRAM_BOT_SENDMSG_MAXLENGTH);
+		return postNotificationsAsync(notificationMsg, tgBotChatIDs).join();
+	}
+	
+	/**
+	 * Post message to all chats in parallel
+	 * @return future of 0 if sent to all chats, -1 if got error response, -2 if got exception
+	 */
+	public CompletableFuture<Integer> postNotificationsAsync(String notificationMsg, String tgBotChatIDs) {
+		String postMsg = preparePostMsg(notificationMsg);
 		
-		myLogger.debug("Start postNotification URL: {}", apiURL);
 		myLogger.debug("postMsg: {}", postMsg);
 		
-		String[] tgBotChatIDArray = tgBotChatIDs.split(",");
+		List<CompletableFuture<Integer>> chatFutureList = new ArrayList<>();
+		for (String tgBotChatID : tgBotChatIDs.split(",")) {
+			chatFutureList.add(postToChat(postMsg, tgBotChatID.trim()));
+		}
 		
+		return CompletableFuture.allOf(chatFutureList.toArray(new CompletableFuture<?>[0])).thenApply((v) -> {
+			//Report the worst one
+			return chatFutureList.stream().mapToInt(CompletableFuture::join).min().orElse(0);
+		});
+	}
+	
+	/**
+	 * Chain after previous message of same chat, skip it if previous one is failed, so that order would not be broken.
+	 * Lane is removed once its last message is settled, so an error only skips the messages queued with it, not later batches.
+	 */
+	private CompletableFuture<Integer> postToChat(String postMsg, String tgBotChatID) {
+		CompletableFuture<Integer> laneFuture = chatLaneMap.compute(tgBotChatID, (chatID, previousFuture) -> {
+			if (previousFuture == null || previousFuture.isDone())
+				return timedSend(postMsg, chatID);
+			
+			return previousFuture.thenCompose((previousResult) -> {
+				if (previousResult != 0) {
+					myLogger.debug("Skip post to chatID: {} due to previous error", chatID);
+					return CompletableFuture.completedFuture(previousResult);
+				}
+				return timedSend(postMsg, chatID);
+			});
+		});
+		
+		//Not removed if another message is chained after this one
+		laneFuture.whenComplete((returnCode, throwable) -> chatLaneMap.remove(tgBotChatID, laneFuture));
+		return laneFuture;
+	}
+	
+	/**
+	 * Time from the turn of this message in chat lane until delivered (include throttling and retries),
+	 * recorded for all chats and for the chat (in separate stage), as one slow (e.g. paused by 429) chat is hidden in the total
+	 */
+	private CompletableFuture<Integer> timedSend(String postMsg, String tgBotChatID) {
+		CompletableFuture<Integer> sendFuture = scheduleSend(postMsg, tgBotChatID, 0, 0L);
+		if (metricsRegistry == null)
+			return sendFuture;
+		
+		String chatStage = MetricsRegistry.labelledStage(METRICS_STAGE_TELEGRAM_POST_CHAT, METRICS_LABEL_CHAT, toMetricsChatLabel(tgBotChatID));
+		long startTime = System.nanoTime();
+		return sendFuture.whenComplete((returnCode, throwable) -> {
+			long duration = System.nanoTime() - startTime;
+			String counterName = returnCode != null && returnCode == 0 ? MetricsRegistry.COUNTER_ITEMS : MetricsRegistry.COUNTER_ERRORS;
+			for (String stage : new String[] {METRICS_STAGE_TELEGRAM_POST, chatStage}) {
+				metricsRegistry.recordLatency(stage, duration);
+				metricsRegistry.increment(counterName, stage, 1L);
+			}
+		});
+	}
+	
+	private String toMetricsChatLabel(String tgBotChatID) {
+		synchronized (metricsChatIDs) {
+			if (metricsChatIDs.contains(tgBotChatID) || (metricsChatIDs.size() < METRICS_MAX_CHAT_LABELS && metricsChatIDs.add(tgBotChatID)))
+				return tgBotChatID;
+		}
+		return METRICS_CHAT_LABEL_OTHER;
+	}
+	
+	/**
+	 * Schedule instead of sleep, so that waiting chat would not block others
+	 */
+	private CompletableFuture<Integer> scheduleSend(String postMsg, String tgBotChatID, int retryCount, long delay) {
+		CompletableFuture<Integer> sendFuture = new CompletableFuture<>();
+		scheduleTrySend(postMsg, tgBotChatID, retryCount, sendFuture, delay);
+		return sendFuture;
+	}
+	
+	private void scheduleTrySend(String postMsg, String tgBotChatID, int retryCount, CompletableFuture<Integer> sendFuture, long delay) {
 		try {
-			for (String tgBotChatID : tgBotChatIDArray) {
-				myLogger.debug("Post to chatID: {}", tgBotChatID);
-				
-				JsonObject outputJson = new JsonObject();
-				outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_CHATID, tgBotChatID);
-				outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_MSGTEXT, postMsg);
-				outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_PARSE_MODE, TELEGRAM_BOT_SENDMSG_VALUE_PARSE_MODE_HTML);
-				myLogger.debug("outputJson: {}", outputJson.toString());
-				
-				String responseMsg = Request.Post(apiURL).bodyString(outputJson.toString(), ContentType.APPLICATION_JSON).execute().returnContent().asString();
-				if (responseMsg == null || !responseMsg.matches("^\\{\"ok\"\\s*\\:\\s*true.*$")) {
-					myLogger.debug("postNotification error chatID: {} - responseMsg: {}", tgBotChatID, responseMsg);
-					return -1;
+			sendExecutor.schedule(() -> {
+				try {
+					trySend(postMsg, tgBotChatID, retryCount, sendFuture);
+				} catch (Exception e) {
+					myLogger.error("Unexpected error", e);
+					sendFuture.complete(-2);
 				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			myLogger.error("Cannot post to chatID: {} after closed", tgBotChatID);
+			sendFuture.complete(-2);
+		}
+	}
+	
+	private void trySend(String postMsg, String tgBotChatID, int retryCount, CompletableFuture<Integer> sendFuture) {
+		//Wait for paused chat and tokens first, only one message of the chat is in progress, so chat token would not be taken by others
+		long delay = chatPausedUntilMap.getOrDefault(tgBotChatID, 0L) - clock.getAsLong();
+		
+		TokenBucket chatBucket = chatBucketMap.computeIfAbsent(tgBotChatID, (chatID) -> new TokenBucket(chatRatePerSecond, chatBurst, clock));
+		if (delay <= 0L)
+			delay = chatBucket.getDelay();
+		if (delay <= 0L)
+			delay = globalBucket.tryAcquire();
+		
+		if (delay > 0L) {
+			myLogger.debug("Rate limited chatID: {} - wait: {}", tgBotChatID, delay);
+			scheduleTrySend(postMsg, tgBotChatID, retryCount, sendFuture, delay);
+			return;
+		}
+		chatBucket.tryAcquire();
+		
+		SendResult sendResult = sendMessage(postMsg, tgBotChatID);
+		if (sendResult.returnCode == 0 || !sendResult.isRetryable) {
+			sendFuture.complete(sendResult.returnCode);
+			return;
+		}
+		
+		if (retryCount >= TELEGRAM_BOT_MAX_RETRY) {
+			myLogger.error("Give up post to chatID: {} after retry: {}", tgBotChatID, retryCount);
+			sendFuture.complete(sendResult.returnCode);
+			return;
+		}
+		
+		long retryDelay = 0L;
+		if (sendResult.retryAfter > 0L) {
+			retryDelay = sendResult.retryAfter;
+			chatPausedUntilMap.put(tgBotChatID, clock.getAsLong() + retryDelay);
+		} else
+			retryDelay = Math.min(TELEGRAM_BOT_BACKOFF_MAX, TELEGRAM_BOT_BACKOFF_BASE << retryCount);
+		
+		myLogger.warn("Retry post to chatID: {} - retryCount: {}, delay: {}", tgBotChatID, retryCount + 1, retryDelay);
+		scheduleTrySend(postMsg, tgBotChatID, retryCount + 1, sendFuture, retryDelay);
+	}
+	
+	private static class SendResult {
+		private int returnCode = 0;
+		private boolean isRetryable = false;
+		private long retryAfter = 0L;
+		
+		private SendResult(int returnCode, boolean isRetryable, long retryAfter) {
+			this.returnCode = returnCode;
+			this.isRetryable = isRetryable;
+			this.retryAfter = retryAfter;
+		}
+	}
+	
+	private SendResult sendMessage(String postMsg, String tgBotChatID) {
+		String apiURL = apiBaseURL + tgBotToken + URL_TELEGRAM_BOT_SENDMSG_CMD;
+		myLogger.debug("Post to chatID: {}", tgBotChatID);
+		
+		String outputJson = buildSendMessageJson(postMsg, tgBotChatID);
+		myLogger.debug("outputJson: {}", outputJson);
+		
+		HttpPost httpPost = new HttpPost(apiURL);
+		httpPost.setEntity(new StringEntity(outputJson, ContentType.APPLICATION_JSON));
+		
+		//Consume whole entity, so that connection can be reused
+		try (CloseableHttpResponse httpResponse = httpClient.execute(httpPost)) {
+			int statusCode = httpResponse.getStatusLine().getStatusCode();
+			String responseMsg = httpResponse.getEntity() == null ? null : EntityUtils.toString(httpResponse.getEntity(), StandardCharsets.UTF_8);
+			if (responseMsg != null && responseMsg.matches("^\\{\"ok\"\\s*\\:\\s*true.*$")) {
 				myLogger.debug("postNotification done with chatID: {}", tgBotChatID);
+				return new SendResult(0, false, 0L);
 			}
-			return 0;
+			
+			myLogger.debug("postNotification error chatID: {} - statusCode: {}, responseMsg: {}", tgBotChatID, statusCode, responseMsg);
+			if (statusCode == 429)
+				return new SendResult(-1, true, parseRetryAfter(responseMsg));
+			
+			return new SendResult(-1, statusCode >= 500, 0L);
 		} catch (ClientProtocolException e) {
 			myLogger.error("Cannot execute http request", e);
 		} catch (IOException e) {
 			myLogger.error("Cannot execute http request", e);
+			return new SendResult(-2, true, 0L);
 		} catch (Exception e) {
 			myLogger.error("Unexpected error", e);
 		}
-		return -2;
+		return new SendResult(-2, false, 0L);
 	}
 	
-	private String filterTgRestrictedKeywords(String sourceString) {
+	/**
+	 * @return retry_after in ms, or 0 if not found (then backoff is used)
+	 */
+	private long parseRetryAfter(String responseMsg) {
+		try {
+			JsonObject responseJson = JsonParser.parseString(responseMsg).getAsJsonObject();
+			JsonObject parametersJson = responseJson.getAsJsonObject("parameters");
+			JsonElement retryAfterElement = parametersJson == null ? null : parametersJson.get("retry_after");
+			if (retryAfterElement != null)
+				return retryAfterElement.getAsLong() * 1000L;
+		} catch (Exception e) {
+			myLogger.warn("Cannot parse retry_after from: {}", responseMsg);
+		}
+		return 0L;
+	}
+	
+	/**
+	 * Escape for HTML parse mode and truncate to max length
+	 */
+	public static String preparePostMsg(String notificationMsg) {
+		String postMsg = filterTgRestrictedKeywords(notificationMsg);
+		if (postMsg.length() > TELEGRAM_BOT_SENDMSG_MAXLENGTH) {
+			int endIndex = TELEGRAM_BOT_SENDMSG_MAXLENGTH;
+			
+			//Entity cut in the middle (e.g. "&am") is rejected by Telegram as parse error, so cut before it
+			int entityIndex = postMsg.lastIndexOf('&', endIndex - 1);
+			if (entityIndex >= 0 && postMsg.indexOf(';', entityIndex) >= endIndex)
+				endIndex = entityIndex;
+			
+			//Nor leave half of a surrogate pair
+			if (Character.isHighSurrogate(postMsg.charAt(endIndex - 1)))
+				endIndex--;
+			
+			postMsg = postMsg.substring(0, endIndex);
+		}
+		return postMsg;
+	}
+	
+	public static String buildSendMessageJson(String postMsg, String tgBotChatID) {
+		JsonObject outputJson = new JsonObject();
+		outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_CHATID, tgBotChatID);
+		outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_MSGTEXT, postMsg);
+		outputJson.addProperty(TELEGRAM_BOT_SENDMSG_PARAM_PARSE_MODE, TELEGRAM_BOT_SENDMSG_VALUE_PARSE_MODE_HTML);
+		return outputJson.toString();
+	}
+	
+	public static String filterTgRestrictedKeywords(String sourceString) {
 		return sourceString.replaceAll("&", "&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
 	}
+	
+	/**
+	 * Only affect chats not sent yet
+	 */
+	public void setChatRateLimit(double chatRatePerSecond, double chatBurst) {
+		this.chatRatePerSecond = chatRatePerSecond;
+		this.chatBurst = chatBurst;
+	}
+	
+	public String getApiBaseURL() {
+		return apiBaseURL;
+	}
+	
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+	
+	/**
+	 * Wait for pending messages before closing connections
+	 */
+	@Override
+	public void close() {
+		try {
+			//Retry is scheduled in executor, so wait for the chat lanes instead of executor
+			CompletableFuture.allOf(chatLaneMap.values().toArray(new CompletableFuture<?>[0])).get(60L, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			myLogger.error("Pending messages not completed before close", e);
+		}
+		sendExecutor.shutdownNow();
+		
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			myLogger.error("Cannot close http client", e);
+		}
+		connectionManager.shutdown();
+	}
 }
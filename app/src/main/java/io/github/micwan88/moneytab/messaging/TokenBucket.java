@@ -0,0 +1,60 @@
+package io.github.micwan88.moneytab.messaging;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket for rate limit, refilled continuously by elapsed time.
+ */
+public class TokenBucket {
+	
+	private double capacity = 1.0;
+	
+	private double refillPerMilli = 0.0;
+	
+	private double tokens = 0.0;
+	
+	private long lastRefillTime = 0L;
+	
+	//Current time in ms
+	private LongSupplier clock = null;
+	
+	public TokenBucket(double ratePerSecond, double capacity) {
+		this(ratePerSecond, capacity, System::currentTimeMillis);
+	}
+	
+	public TokenBucket(double ratePerSecond, double capacity, LongSupplier clock) {
+		this.capacity = Math.max(1.0, capacity);
+		this.refillPerMilli = ratePerSecond / 1000.0;
+		this.tokens = this.capacity;
+		this.clock = clock;
+		this.lastRefillTime = clock.getAsLong();
+	}
+	
+	/**
+	 * Take one token if available
+	 * @return 0 if got the token, otherwise time(ms) to wait for next token
+	 */
+	public synchronized long tryAcquire() {
+		long delay = getDelay();
+		if (delay == 0L)
+			tokens -= 1.0;
+		return delay;
+	}
+	
+	/**
+	 * Check without taking the token
+	 * @return 0 if token is available, otherwise time(ms) to wait for next token
+	 */
+	public synchronized long getDelay() {
+		refill();
+		if (tokens >= 1.0)
+			return 0L;
+		return Math.max(1L, (long)Math.ceil((1.0 - tokens) / refillPerMilli));
+	}
+	
+	private void refill() {
+		long now = clock.getAsLong();
+		tokens = Math.min(capacity, tokens + (now - lastRefillTime) * refillPerMilli);
+		lastRefillTime = now;
+	}
+}
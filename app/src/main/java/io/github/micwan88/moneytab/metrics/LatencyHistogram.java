@@ -0,0 +1,88 @@
+package io.github.micwan88.moneytab.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram like HdrHistogram, each power of 2 is split into 32 sub buckets (about 3% error).
+ * Values below 64 are exact. It is lock free, so can be recorded from any thread.
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 5;
+	
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	
+	//Enough for any positive long
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + 2 * SUB_BUCKET_COUNT;
+	
+	private AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+	
+	private AtomicLong count = new AtomicLong();
+	
+	private AtomicLong sum = new AtomicLong();
+	
+	private AtomicLong max = new AtomicLong();
+	
+	public void record(long value) {
+		if (value < 0L)
+			value = 0L;
+		
+		bucketCounts.incrementAndGet(getBucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+	
+	static int getBucketIndex(long value) {
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+		if (shift <= 0)
+			return (int)value;
+		
+		//Top bits of value, in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT)
+		return shift * SUB_BUCKET_COUNT + (int)(value >>> shift);
+	}
+	
+	/**
+	 * Highest value which would be recorded in same bucket
+	 */
+	static long getBucketUpperValue(int bucketIndex) {
+		if (bucketIndex < 2 * SUB_BUCKET_COUNT)
+			return bucketIndex;
+		
+		int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+		long subBucket = bucketIndex - shift * SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+	
+	/**
+	 * @param percentile 0 to 100
+	 * @return 0 if nothing recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long totalCount = count.get();
+		if (totalCount == 0L)
+			return 0L;
+		
+		long targetRank = Math.max(1L, (long)Math.ceil(percentile / 100.0 * totalCount));
+		long rank = 0L;
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			rank += bucketCounts.get(i);
+			if (rank >= targetRank)
+				return Math.min(getBucketUpperValue(i), max.get());
+		}
+		return max.get();
+	}
+	
+	public long getCount() {
+		return count.get();
+	}
+	
+	public long getSum() {
+		return sum.get();
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+}
@@ -0,0 +1,57 @@
+package io.github.micwan88.moneytab.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tiny endpoint for Prometheus to scrape, serve '/metrics' only
+ */
+public class MetricsHttpServer implements Closeable {
+	
+	private static final Logger myLogger = LogManager.getLogger(MetricsHttpServer.class);
+	
+	public static final String METRICS_PATH = "/metrics";
+	
+	private HttpServer httpServer = null;
+	
+	private MetricsRegistry metricsRegistry = null;
+	
+	public MetricsHttpServer(MetricsRegistry metricsRegistry, int port) throws IOException {
+		this.metricsRegistry = metricsRegistry;
+		
+		httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+		httpServer.createContext(METRICS_PATH, (httpExchange) -> handleMetrics(httpExchange));
+		httpServer.start();
+		
+		myLogger.debug("Metrics served at port: {}", getPort());
+	}
+	
+	private void handleMetrics(HttpExchange httpExchange) throws IOException {
+		byte[] bodyBytes = metricsRegistry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+		
+		httpExchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		httpExchange.sendResponseHeaders(200, bodyBytes.length);
+		
+		try (OutputStream outStream = httpExchange.getResponseBody()) {
+			outStream.write(bodyBytes);
+		}
+	}
+	
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+	
+	@Override
+	public void close() {
+		httpServer.stop(0);
+	}
+}
@@ -0,0 +1,169 @@
+package io.github.micwan88.moneytab.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Latency of each stage (in microseconds) and counters of each stage, exported as Prometheus text format.
+ * A stage can have one more label by {@link #labelledStage(String, String, String)}, its values must be bounded by caller.
+ */
+public class MetricsRegistry {
+	
+	private static final Logger myLogger = LogManager.getLogger(MetricsRegistry.class);
+	
+	public static final String METRICS_PREFIX = "moneytab_";
+	
+	public static final String COUNTER_ITEMS = "items";
+	public static final String COUNTER_ERRORS = "errors";
+	public static final String COUNTER_SKIPPED = "skipped";
+	
+	private static final double[] EXPORT_QUANTILES = {0.5, 0.9, 0.99};
+	
+	//Between stage, label name and label value of a labelled stage, never in a stage name
+	private static final String LABEL_SEPARATOR = "\t";
+	
+	//Sorted, so that export is stable
+	private ConcurrentSkipListMap<String, LatencyHistogram> histogramMap = new ConcurrentSkipListMap<>();
+	
+	//Key is counter name and stage
+	private ConcurrentSkipListMap<String, ConcurrentSkipListMap<String, AtomicLong>> counterMap = new ConcurrentSkipListMap<>();
+	
+	/**
+	 * Use with try-with-resources, latency is recorded when closed
+	 */
+	public class Timer implements AutoCloseable {
+		private String stage = null;
+		private long startTime = 0L;
+		
+		private Timer(String stage) {
+			this.stage = stage;
+			this.startTime = System.nanoTime();
+		}
+		
+		@Override
+		public void close() {
+			recordLatency(stage, System.nanoTime() - startTime);
+		}
+	}
+	
+	/**
+	 * @return stage key to be used in place of stage, exported as {stage="[stage]",[labelName]="[labelValue]"}
+	 */
+	public static String labelledStage(String stage, String labelName, String labelValue) {
+		return stage + LABEL_SEPARATOR + labelName + LABEL_SEPARATOR + labelValue;
+	}
+	
+	private static String toLabels(String stage) {
+		String[] stageParts = stage.split(LABEL_SEPARATOR, 3);
+		String labels = "stage=\"" + escapeLabelValue(stageParts[0]) + "\"";
+		if (stageParts.length == 3)
+			labels += "," + stageParts[1] + "=\"" + escapeLabelValue(stageParts[2]) + "\"";
+		return labels;
+	}
+	
+	private static String escapeLabelValue(String labelValue) {
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+	
+	public Timer startTimer(String stage) {
+		return new Timer(stage);
+	}
+	
+	public void recordLatency(String stage, long durationInNanos) {
+		histogramMap.computeIfAbsent(stage, (key) -> new LatencyHistogram()).record(TimeUnit.NANOSECONDS.toMicros(durationInNanos));
+	}
+	
+	public void increment(String counterName, String stage, long delta) {
+		counterMap.computeIfAbsent(counterName, (key) -> new ConcurrentSkipListMap<>())
+			.computeIfAbsent(stage, (key) -> new AtomicLong()).addAndGet(delta);
+	}
+	
+	/**
+	 * @return null if nothing recorded for the stage
+	 */
+	public LatencyHistogram getHistogram(String stage) {
+		return histogramMap.get(stage);
+	}
+	
+	public long getCounter(String counterName, String stage) {
+		ConcurrentSkipListMap<String, AtomicLong> stageMap = counterMap.get(counterName);
+		if (stageMap == null || !stageMap.containsKey(stage))
+			return 0L;
+		return stageMap.get(stage).get();
+	}
+	
+	public String toPrometheusText() {
+		StringBuilder outText = new StringBuilder();
+		
+		String latencyName = METRICS_PREFIX + "stage_duration_seconds";
+		outText.append("# HELP ").append(latencyName).append(" Duration of each stage\n");
+		outText.append("# TYPE ").append(latencyName).append(" summary\n");
+		for (Entry<String, LatencyHistogram> histogramEntry : histogramMap.entrySet()) {
+			String stage = histogramEntry.getKey();
+			LatencyHistogram histogram = histogramEntry.getValue();
+			
+			for (double quantile : EXPORT_QUANTILES) {
+				outText.append(latencyName).append("{").append(toLabels(stage)).append(",quantile=\"").append(quantile).append("\"} ")
+					.append(toSeconds(histogram.getValueAtPercentile(quantile * 100.0))).append('\n');
+			}
+			outText.append(latencyName).append("_sum{").append(toLabels(stage)).append("} ").append(toSeconds(histogram.getSum())).append('\n');
+			outText.append(latencyName).append("_count{").append(toLabels(stage)).append("} ").append(histogram.getCount()).append('\n');
+		}
+		
+		String maxName = METRICS_PREFIX + "stage_duration_max_seconds";
+		outText.append("# HELP ").append(maxName).append(" Max duration of each stage\n");
+		outText.append("# TYPE ").append(maxName).append(" gauge\n");
+		for (Entry<String, LatencyHistogram> histogramEntry : histogramMap.entrySet()) {
+			outText.append(maxName).append("{").append(toLabels(histogramEntry.getKey())).append("} ")
+				.append(toSeconds(histogramEntry.getValue().getMax())).append('\n');
+		}
+		
+		for (Entry<String, ConcurrentSkipListMap<String, AtomicLong>> counterEntry : counterMap.entrySet()) {
+			String counterName = METRICS_PREFIX + counterEntry.getKey() + "_total";
+			outText.append("# TYPE ").append(counterName).append(" counter\n");
+			for (Entry<String, AtomicLong> stageEntry : counterEntry.getValue().entrySet()) {
+				outText.append(counterName).append("{").append(toLabels(stageEntry.getKey())).append("} ").append(stageEntry.getValue().get()).append('\n');
+			}
+		}
+		
+		return outText.toString();
+	}
+	
+	private static String toSeconds(long valueInMicros) {
+		return String.format(Locale.ROOT, "%.6f", valueInMicros / 1000000.0);
+	}
+	
+	/**
+	 * For node exporter textfile collector, write to temp file and then move so that it never read a partial file
+	 * @return false if cannot write
+	 */
+	public boolean writePrometheusFile(Path metricsFilePath) {
+		Path tempFilePath = metricsFilePath.resolveSibling(metricsFilePath.getFileName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tempFilePath, StandardCharsets.UTF_8)) {
+			writer.write(toPrometheusText());
+		} catch (IOException e) {
+			myLogger.error("Cannot write metrics file: {}", metricsFilePath.toAbsolutePath(), e);
+			return false;
+		}
+		
+		try {
+			Files.move(tempFilePath, metricsFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			myLogger.error("Cannot write metrics file: {}", metricsFilePath.toAbsolutePath(), e);
+		}
+		return false;
+	}
+}
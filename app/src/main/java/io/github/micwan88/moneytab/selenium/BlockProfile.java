@@ -0,0 +1,116 @@
+package io.github.micwan88.moneytab.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Which requests the browser should not make, we only read text and one canonical link from the pages.
+ *
+ * URL patterns follow DevTools 'Network.setBlockedURLs' ('*' as wildcard).
+ * Some patterns can be allowed again on particular pages (e.g. youtube embed on video page).
+ */
+public class BlockProfile {
+	
+	public enum RESOURCE_TYPE {
+		IMAGE,
+		FONT,
+		MEDIA
+	}
+	
+	public static final List<String> DEFAULT_BLOCKED_URL_PATTERNS = Collections.unmodifiableList(Arrays.asList(
+			"*google-analytics.com*",
+			"*googletagmanager.com*",
+			"*doubleclick.net*",
+			"*connect.facebook.net*",
+			"*fonts.googleapis.com*",
+			"*ytimg.com*",
+			"*googlevideo.com*",
+			"*youtube.com/s/*",
+			"*youtube.com/youtubei/*",
+			"*youtube.com/embed/*",
+			"*youtube-nocookie.com/embed/*"));
+	
+	//Video page of money-tab, the link is read from youtube embed
+	public static final String VIDEO_PAGE_URL_REGEX = "/channel/";
+	
+	public static final List<String> VIDEO_PAGE_ALLOWED_URL_PATTERNS = Collections.unmodifiableList(Arrays.asList(
+			"*youtube.com/embed/*",
+			"*youtube-nocookie.com/embed/*"));
+	
+	private LinkedHashSet<String> blockedURLPatterns = new LinkedHashSet<>();
+	
+	private EnumSet<RESOURCE_TYPE> blockedResourceTypes = EnumSet.noneOf(RESOURCE_TYPE.class);
+	
+	private LinkedHashMap<Pattern, Set<String>> pageAllowedMap = new LinkedHashMap<>();
+	
+	public void blockURLs(List<String> urlPatterns) {
+		blockedURLPatterns.addAll(urlPatterns);
+	}
+	
+	public void blockResourceTypes(Set<RESOURCE_TYPE> resourceTypes) {
+		blockedResourceTypes.addAll(resourceTypes);
+	}
+	
+	/**
+	 * @param pageURLRegex pages (found in URL) which the patterns should not be blocked
+	 * @param urlPatterns same pattern as in {@link #blockURLs(List)}
+	 */
+	public void allowOnPage(String pageURLRegex, List<String> urlPatterns) {
+		pageAllowedMap.computeIfAbsent(Pattern.compile(pageURLRegex), (pattern) -> new LinkedHashSet<>()).addAll(urlPatterns);
+	}
+	
+	public Set<RESOURCE_TYPE> getBlockedResourceTypes() {
+		return blockedResourceTypes;
+	}
+	
+	/**
+	 * URL patterns to block when loading target page, resource types are converted to file extension patterns
+	 */
+	public List<String> getBlockedURLs(String pageURL) {
+		Set<String> allowedURLPatterns = new LinkedHashSet<>();
+		if (pageURL != null) {
+			for (Entry<Pattern, Set<String>> pageAllowedEntry : pageAllowedMap.entrySet()) {
+				if (pageAllowedEntry.getKey().matcher(pageURL).find())
+					allowedURLPatterns.addAll(pageAllowedEntry.getValue());
+			}
+		}
+		
+		List<String> blockedURLs = new ArrayList<>();
+		for (String urlPattern : blockedURLPatterns) {
+			if (!allowedURLPatterns.contains(urlPattern))
+				blockedURLs.add(urlPattern);
+		}
+		
+		for (RESOURCE_TYPE resourceType : blockedResourceTypes) {
+			blockedURLs.addAll(getExtensionPatterns(resourceType));
+		}
+		return blockedURLs;
+	}
+	
+	private static List<String> getExtensionPatterns(RESOURCE_TYPE resourceType) {
+		switch (resourceType) {
+			case IMAGE:
+				return Arrays.asList("*.png*", "*.jpg*", "*.jpeg*", "*.gif*", "*.webp*", "*.svg*", "*.ico*");
+			case FONT:
+				return Arrays.asList("*.woff*", "*.ttf*", "*.otf*", "*.eot*");
+			case MEDIA:
+				return Arrays.asList("*.mp4*", "*.webm*", "*.m3u8*", "*.mp3*");
+			default:
+				return Collections.emptyList();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "BlockProfile [blockedURLPatterns=" + blockedURLPatterns + ", blockedResourceTypes=" + blockedResourceTypes
+				+ ", pageAllowedMap=" + pageAllowedMap + "]";
+	}
+}
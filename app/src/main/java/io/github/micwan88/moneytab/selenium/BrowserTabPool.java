@@ -0,0 +1,127 @@
+package io.github.micwan88.moneytab.selenium;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * A pool of tabs inside the same (logged on) browser.
+ *
+ * WebDriver commands are still serialized, but the page loading of each tab is done by browser in parallel,
+ * so we can kick off loading in all tabs first and then read the pages one by one.
+ */
+public class BrowserTabPool implements Closeable {
+	
+	private static final Logger myLogger = LogManager.getLogger(BrowserTabPool.class);
+	
+	//Set on the document being left, a new document never has it
+	private static final String STALE_PAGE_MARKER = "moneytabStalePage";
+	
+	private WebDriver webDriver = null;
+	
+	private String mainWindowHandle = null;
+	
+	private ArrayList<String> tabHandles = new ArrayList<>();
+	
+	private BlockProfile blockProfile = null;
+	
+	public BrowserTabPool(WebDriver webDriver, int poolSize) {
+		this.webDriver = webDriver;
+		this.mainWindowHandle = webDriver.getWindowHandle();
+		
+		//Reuse current tab as first one
+		tabHandles.add(mainWindowHandle);
+		
+		for (int i=1; i<poolSize; i++) {
+			webDriver.switchTo().newWindow(WindowType.TAB);
+			tabHandles.add(webDriver.getWindowHandle());
+		}
+		
+		myLogger.debug("BrowserTabPool opened with size: {}", tabHandles.size());
+	}
+	
+	public int size() {
+		return tabHandles.size();
+	}
+	
+	public List<String> getTabHandles() {
+		return tabHandles;
+	}
+	
+	/**
+	 * Start loading the URL in target tab without waiting the page load, see {@link #pageLoaded()}
+	 */
+	public void startLoading(int tabIndex, String targetURL) {
+		myLogger.debug("Start loading in tab {}: {}", tabIndex, targetURL);
+		
+		switchTo(tabIndex);
+		
+		//Blocked urls are per tab
+		if (blockProfile != null)
+			WebDriverMgr.applyBlockedURLs(webDriver, blockProfile.getBlockedURLs(targetURL));
+		
+		((JavascriptExecutor)webDriver).executeScript("document[arguments[1]] = true; window.location.href = arguments[0];", targetURL, STALE_PAGE_MARKER);
+	}
+	
+	/**
+	 * Mark the document in current tab before navigating it by other way, so that {@link #pageLoaded()} can tell it is replaced
+	 */
+	public static void markStalePage(WebDriver webDriver) {
+		((JavascriptExecutor)webDriver).executeScript("document[arguments[0]] = true;", STALE_PAGE_MARKER);
+	}
+	
+	/**
+	 * Setting location returns at once, so a reused tab still shows the previous page (with its video iframe) for a while.
+	 * Ready only when the tab left that page (marked by {@link #startLoading(int, String)}) and DOM of the new one is parsed.
+	 */
+	public static ExpectedCondition<Boolean> pageLoaded() {
+		return (driver) -> {
+			try {
+				return Boolean.TRUE.equals(((JavascriptExecutor)driver).executeScript(
+						"return !document[arguments[0]] && document.readyState !== 'loading';", STALE_PAGE_MARKER));
+			} catch (WebDriverException e) {
+				//Script context may be gone while navigating
+				return false;
+			}
+		};
+	}
+	
+	public void switchTo(int tabIndex) {
+		webDriver.switchTo().window(tabHandles.get(tabIndex));
+	}
+	
+	@Override
+	public void close() {
+		for (String tabHandle : tabHandles) {
+			if (tabHandle.equals(mainWindowHandle))
+				continue;
+			
+			try {
+				webDriver.switchTo().window(tabHandle);
+				webDriver.close();
+			} catch (Exception e) {
+				myLogger.error("Cannot close tab: {}", tabHandle, e);
+			}
+		}
+		
+		webDriver.switchTo().window(mainWindowHandle);
+		
+		myLogger.debug("BrowserTabPool closed");
+	}
+	
+	public BlockProfile getBlockProfile() {
+		return blockProfile;
+	}
+	
+	public void setBlockProfile(BlockProfile blockProfile) {
+		this.blockProfile = blockProfile;
+	}
+}
@@ -0,0 +1,172 @@
+package io.github.micwan88.moneytab.selenium;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Wait for whichever of several page states comes first (e.g. logged on vs login button),
+ * instead of probing them one by one and paying full timeout for each negative one.
+ *
+ * A MutationObserver is set in browser, so the result is pushed back as soon as the DOM changed.
+ * If the page navigated during waiting, the observer is set again on the new page until timeout.
+ */
+public class PageStateWaiter {
+	
+	private static final Logger myLogger = LogManager.getLogger(PageStateWaiter.class);
+	
+	/**
+	 * arguments[0] is list of {selector, text}, arguments[1] is timeout in ms.
+	 * Callback the index of first condition with visible element (and same text if given), -1 if timeout.
+	 */
+	private static final String WAIT_FOR_ANY_SCRIPT =
+			"var conditions = arguments[0], timeout = arguments[1], callback = arguments[arguments.length - 1];"
+			+ "var isDone = false, isPending = false;"
+			+ "function isVisible(element) {"
+			+ "  return !!(element.offsetWidth || element.offsetHeight || element.getClientRects().length);"
+			+ "}"
+			+ "function check() {"
+			+ "  for (var i=0; i<conditions.length; i++) {"
+			+ "    var elements = document.querySelectorAll(conditions[i].selector);"
+			+ "    for (var j=0; j<elements.length; j++) {"
+			+ "      if (isVisible(elements[j]) && (conditions[i].text == null || elements[j].innerText.trim() === conditions[i].text))"
+			+ "        return i;"
+			+ "    }"
+			+ "  }"
+			+ "  return -1;"
+			+ "}"
+			+ "function finish(result) {"
+			+ "  if (isDone) return;"
+			+ "  isDone = true;"
+			+ "  observer.disconnect();"
+			+ "  clearTimeout(timer);"
+			+ "  callback(result);"
+			+ "}"
+			//Check at most once per batch of mutations
+			+ "var observer = new MutationObserver(function() {"
+			+ "  if (isPending) return;"
+			+ "  isPending = true;"
+			+ "  setTimeout(function() {"
+			+ "    isPending = false;"
+			+ "    var result = check();"
+			+ "    if (result >= 0) finish(result);"
+			+ "  }, 50);"
+			+ "});"
+			+ "var timer = setTimeout(function() { finish(-1); }, timeout);"
+			+ "var firstResult = check();"
+			+ "if (firstResult >= 0)"
+			+ "  finish(firstResult);"
+			+ "else"
+			+ "  observer.observe(document.documentElement || document, {childList: true, subtree: true, attributes: true, characterData: true});";
+	
+	//Lower case message parts of the errors when script context is gone by navigation (chrome and firefox)
+	private static final String[] NAVIGATION_ERROR_MESSAGES = {"document unloaded", "document was unloaded", "execution context was destroyed",
+			"cannot find context with specified id", "inspected target navigated", "frame detached"};
+	
+	private WebDriver webDriver = null;
+	
+	private LinkedHashMap<String, String[]> conditionMap = new LinkedHashMap<>();
+	
+	public PageStateWaiter(WebDriver webDriver) {
+		this.webDriver = webDriver;
+	}
+	
+	/**
+	 * @param state returned by {@link #waitForAny(long)} if this one comes first
+	 * @param cssSelector any visible element matched
+	 */
+	public PageStateWaiter on(String state, String cssSelector) {
+		return on(state, cssSelector, null);
+	}
+	
+	/**
+	 * @param text element text (trimmed) must be equal to this
+	 */
+	public PageStateWaiter on(String state, String cssSelector, String text) {
+		conditionMap.put(state, new String[] {cssSelector, text});
+		return this;
+	}
+	
+	/**
+	 * @return the state which comes first, null if none within timeout
+	 */
+	public String waitForAny(long timeout) {
+		List<String> stateList = new ArrayList<>();
+		List<Map<String, Object>> conditionList = new ArrayList<>();
+		for (Entry<String, String[]> conditionEntry : conditionMap.entrySet()) {
+			Map<String, Object> condition = new HashMap<>();
+			condition.put("selector", conditionEntry.getValue()[0]);
+			condition.put("text", conditionEntry.getValue()[1]);
+			
+			stateList.add(conditionEntry.getKey());
+			conditionList.add(condition);
+		}
+		
+		Duration originalScriptTimeout = webDriver.manage().timeouts().getScriptTimeout();
+		try {
+			long deadline = System.currentTimeMillis() + timeout;
+			while (true) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0L)
+					break;
+				
+				try {
+					//Let the script timeout by itself first
+					webDriver.manage().timeouts().scriptTimeout(Duration.ofMillis(remaining + 2000L));
+					
+					Object result = ((JavascriptExecutor)webDriver).executeAsyncScript(WAIT_FOR_ANY_SCRIPT, conditionList, remaining);
+					int stateIndex = result instanceof Number ? ((Number)result).intValue() : -1;
+					if (stateIndex < 0)
+						break;
+					
+					myLogger.debug("Page state reached: {}", stateList.get(stateIndex));
+					return stateList.get(stateIndex);
+				} catch (ScriptTimeoutException e) {
+					break;
+				} catch (WebDriverException e) {
+					//Anything else (e.g. invalid selector, window closed) would not be fixed by retry
+					if (!isNavigationError(e))
+						throw e;
+					
+					//Script context gone (e.g. navigated), so observe the new page again
+					myLogger.debug("Page state script interrupted, retry: {}", e.getMessage());
+					try {
+						Thread.sleep(100L);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+		} finally {
+			//Timeout is global to the driver
+			webDriver.manage().timeouts().scriptTimeout(originalScriptTimeout);
+		}
+		
+		myLogger.debug("None of page states reached: {}", stateList);
+		return null;
+	}
+	
+	private static boolean isNavigationError(WebDriverException e) {
+		if (e.getMessage() == null)
+			return false;
+		
+		String message = e.getMessage().toLowerCase();
+		for (String navigationErrorMessage : NAVIGATION_ERROR_MESSAGES) {
+			if (message.contains(navigationErrorMessage))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,35 +1,61 @@
 package io.github.micwan88.moneytab.selenium;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.Cookie;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriver.Options;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 
+import io.github.micwan88.moneytab.selenium.BlockProfile.RESOURCE_TYPE;
+
 public class WebDriverMgr {
 	
 	private static final Logger myLogger = LogManager.getLogger(WebDriverMgr.class);
 	
+	//'MTCK'
+	private static final int COOKIE_FILE_MAGIC = 0x4D54434B;
+	private static final int COOKIE_FILE_VERSION = 1;
+	
 	public enum DRIVER_TYPE {
 		CHROME,
 		FIREFOX
 	}
 	
+	//Null to load everything
+	private BlockProfile blockProfile = null;
+	
+	//NORMAL would wait all subresources loaded for every navigation
+	private PageLoadStrategy pageLoadStrategy = PageLoadStrategy.NORMAL;
+	
+	//Each chrome running at the same time needs its own port
+	private int chromeDebugPort = 9222;
+	
 	public WebDriver getWebDriver(DRIVER_TYPE driverType, boolean isHeadlessMode, List<String> driverOptions) {
 		if (driverType == DRIVER_TYPE.CHROME) {
 			return getChromeDriver(isHeadlessMode, driverOptions);
@@ -48,6 +74,18 @@ public class WebDriverMgr {
 		//Set it for temp debug
 		//firefoxOptions.setLogLevel(FirefoxDriverLogLevel.DEBUG);
 		
+		//No DevTools url blocking in firefox, so only resource types can be blocked by preference
+		if (blockProfile != null) {
+			if (blockProfile.getBlockedResourceTypes().contains(RESOURCE_TYPE.IMAGE))
+				firefoxOptions.addPreference("permissions.default.image", 2);
+			if (blockProfile.getBlockedResourceTypes().contains(RESOURCE_TYPE.FONT))
+				firefoxOptions.addPreference("gfx.downloadable_fonts.enabled", false);
+			if (blockProfile.getBlockedResourceTypes().contains(RESOURCE_TYPE.MEDIA))
+				firefoxOptions.addPreference("media.autoplay.default", 5);
+		}
+		
+		firefoxOptions.setPageLoadStrategy(pageLoadStrategy);
+		
 		if (isHeadlessMode)
 			firefoxOptions.setHeadless(true);
 		
@@ -64,7 +102,16 @@ public class WebDriverMgr {
 		 * Not sure why we need this when in Linux, may be bug of chromedriver ?
 		 * So hardcode it first ...
 		 */
-		chromeOptions.addArguments("--remote-debugging-port=9222");
+		chromeOptions.addArguments("--remote-debugging-port=" + chromeDebugPort);
+		
+		//Urls are blocked per page by applyBlockedURLs, images can also be skipped by content setting
+		if (blockProfile != null && blockProfile.getBlockedResourceTypes().contains(RESOURCE_TYPE.IMAGE)) {
+			HashMap<String, Object> chromePrefs = new HashMap<>();
+			chromePrefs.put("profile.managed_default_content_settings.images", 2);
+			chromeOptions.setExperimentalOption("prefs", chromePrefs);
+		}
+		
+		chromeOptions.setPageLoadStrategy(pageLoadStrategy);
 		
 		if (isHeadlessMode)
 			chromeOptions.setHeadless(true);
@@ -75,66 +122,204 @@ public class WebDriverMgr {
 		return new ChromeDriver(chromeOptions);
 	}
 	
-	public static void saveCookie(Path cookieFilePath, Set<Cookie> cookies) {
-		myLogger.debug("Saving cookie to file: {}", cookieFilePath.toAbsolutePath());
-		ObjectOutputStream objOutStream = null;
+	/**
+	 * Block the url patterns in current tab by DevTools 'Network.setBlockedURLs', it apply to next navigation
+	 * @return false if not supported by the driver (e.g. firefox) or failed
+	 */
+	public static boolean applyBlockedURLs(WebDriver webDriver, List<String> blockedURLs) {
+		if (!(webDriver instanceof ChromiumDriver))
+			return false;
+		
+		Map<String, Object> cdpParams = new HashMap<>();
+		cdpParams.put("urls", blockedURLs);
+		
 		try {
-			objOutStream = new ObjectOutputStream(Files.newOutputStream(cookieFilePath));
+			ChromiumDriver chromiumDriver = (ChromiumDriver)webDriver;
+			//Blocking only works with network domain enabled, enable again is harmless
+			chromiumDriver.executeCdpCommand("Network.enable", new HashMap<>());
+			chromiumDriver.executeCdpCommand("Network.setBlockedURLs", cdpParams);
+			myLogger.debug("Blocked URLs count: {}", blockedURLs.size());
+			return true;
+		} catch (Exception e) {
+			myLogger.error("Cannot block urls by DevTools", e);
+		}
+		return false;
+	}
+	
+	/**
+	 * Write cookies in own versioned format instead of java serialization of Cookie,
+	 * so that the file would not be broken when the class of selenium changed.
+	 * Write to temp file and then move, so that the file would not be broken if crash in the middle
+	 * @return false if cannot save
+	 */
+	public static boolean saveCookie(Path cookieFilePath, Set<Cookie> cookies) {
+		myLogger.debug("Saving cookie to file: {}", cookieFilePath.toAbsolutePath());
+		
+		Path tempFilePath = cookieFilePath.resolveSibling(cookieFilePath.getFileName() + ".tmp");
+		try (DataOutputStream dataOutStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFilePath)))) {
+			dataOutStream.writeInt(COOKIE_FILE_MAGIC);
+			dataOutStream.writeInt(COOKIE_FILE_VERSION);
 			
 			myLogger.debug("Number of cookies: {}", cookies.size());
-			objOutStream.writeInt(cookies.size());
+			dataOutStream.writeInt(cookies.size());
 			
 			for (Cookie cookie : cookies) {
 				myLogger.debug("Cookie Name {}, Value {}", cookie.getName(), cookie.getValue());
-				objOutStream.writeObject(cookie);
+				dataOutStream.writeUTF(cookie.getName());
+				dataOutStream.writeUTF(cookie.getValue());
+				writeNullableUTF(dataOutStream, cookie.getDomain());
+				writeNullableUTF(dataOutStream, cookie.getPath());
+				dataOutStream.writeLong(cookie.getExpiry() == null ? -1L : cookie.getExpiry().getTime());
+				dataOutStream.writeBoolean(cookie.isSecure());
+				dataOutStream.writeBoolean(cookie.isHttpOnly());
+				writeNullableUTF(dataOutStream, cookie.getSameSite());
 			}
 			
-			objOutStream.flush();
+			dataOutStream.flush();
+		} catch (IOException e) {
+			myLogger.error("Error in saving cookie file", e);
+			return false;
+		}
+		
+		try {
+			Files.move(tempFilePath, cookieFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
 		} catch (IOException e) {
 			myLogger.error("Error in saving cookie file", e);
-		} finally {
-			try {
-				objOutStream.close();
-			} catch (IOException e) {
-				//Do Nothing
-			}
 		}
+		return false;
 	}
 	
 	public static boolean loadCookie(Path cookieFilePath, WebDriver webDriver) {
+		Set<Cookie> cookies = readCookies(cookieFilePath);
+		if (cookies == null)
+			return false;
+		
+		Options webDriverOptions = webDriver.manage();
+		for (Cookie cookie : cookies) {
+			webDriverOptions.addCookie(cookie);
+		}
+		return cookies.size() > 0;
+	}
+	
+	/**
+	 * Set all cookies by one DevTools 'Network.setCookies' call, it can be done before any page is loaded
+	 * @return false if not supported by the driver (e.g. firefox) or failed, then {@link #loadCookie(Path, WebDriver)} should be used
+	 */
+	public static boolean injectCookies(WebDriver webDriver, Set<Cookie> cookies) {
+		if (!(webDriver instanceof ChromiumDriver))
+			return false;
+		
+		List<Map<String, Object>> cookieParamList = new ArrayList<>();
+		for (Cookie cookie : cookies) {
+			Map<String, Object> cookieParam = new HashMap<>();
+			cookieParam.put("name", cookie.getName());
+			cookieParam.put("value", cookie.getValue());
+			if (cookie.getDomain() != null)
+				cookieParam.put("domain", cookie.getDomain());
+			cookieParam.put("path", cookie.getPath() == null ? "/" : cookie.getPath());
+			cookieParam.put("secure", cookie.isSecure());
+			cookieParam.put("httpOnly", cookie.isHttpOnly());
+			if (cookie.getSameSite() != null)
+				cookieParam.put("sameSite", cookie.getSameSite());
+			//In seconds for DevTools
+			if (cookie.getExpiry() != null)
+				cookieParam.put("expires", cookie.getExpiry().getTime() / 1000.0);
+			cookieParamList.add(cookieParam);
+		}
+		
+		Map<String, Object> cdpParams = new HashMap<>();
+		cdpParams.put("cookies", cookieParamList);
+		
+		try {
+			((ChromiumDriver)webDriver).executeCdpCommand("Network.setCookies", cdpParams);
+			myLogger.debug("Injected cookies count: {}", cookieParamList.size());
+			return true;
+		} catch (Exception e) {
+			myLogger.error("Cannot inject cookies by DevTools", e);
+		}
+		return false;
+	}
+	
+	/**
+	 * Read cookies saved by saveCookie, it can be used without any browser (e.g. plain http request)
+	 * @return null if file not exist or cannot be read
+	 */
+	public static Set<Cookie> readCookies(Path cookieFilePath) {
 		myLogger.debug("Loading cookie from file: {}", cookieFilePath.toAbsolutePath());
 		if (!Files.isReadable(cookieFilePath)) {
 			myLogger.debug("Cookie file not exist, so skip loading : {}", cookieFilePath.toAbsolutePath());
-			return false;
+			return null;
 		}
 		
-		Options webDriverOptions = webDriver.manage();
-		ObjectInputStream objInStream = null;
-		try {
-			objInStream = new ObjectInputStream(Files.newInputStream(cookieFilePath));
+		try (DataInputStream dataInStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(cookieFilePath)))) {
+			dataInStream.mark(4);
+			int magic = dataInStream.readInt();
+			if (magic != COOKIE_FILE_MAGIC) {
+				//File saved by older version
+				dataInStream.reset();
+				return readLegacyCookies(dataInStream);
+			}
 			
-			int noOfCookies = objInStream.readInt();
+			int version = dataInStream.readInt();
+			if (version != COOKIE_FILE_VERSION) {
+				myLogger.error("Unsupported cookie file version: {}", version);
+				return null;
+			}
+			
+			int noOfCookies = dataInStream.readInt();
 			myLogger.debug("Number of cookies in file: {}", noOfCookies);
 			
+			Set<Cookie> cookies = new LinkedHashSet<>();
 			for (int i=0; i<noOfCookies; i++) {
-				Cookie cookie = (Cookie)objInStream.readObject();
+				String name = dataInStream.readUTF();
+				String value = dataInStream.readUTF();
+				String domain = readNullableUTF(dataInStream);
+				String path = readNullableUTF(dataInStream);
+				long expiry = dataInStream.readLong();
+				boolean isSecure = dataInStream.readBoolean();
+				boolean isHttpOnly = dataInStream.readBoolean();
+				String sameSite = readNullableUTF(dataInStream);
+				
+				Cookie cookie = new Cookie(name, value, domain, path, expiry == -1L ? null : new Date(expiry), isSecure, isHttpOnly, sameSite);
 				myLogger.debug("Read cookie: Name {}, Value {}", cookie.getName(), cookie.getValue());
 				
-				webDriverOptions.addCookie(cookie);
+				cookies.add(cookie);
 			}
-			return noOfCookies > 0;
+			return cookies;
 		} catch (IOException e) {
 			myLogger.error("Error in loading cookie file", e);
+		}
+		return null;
+	}
+	
+	private static Set<Cookie> readLegacyCookies(InputStream inStream) throws IOException {
+		try (ObjectInputStream objInStream = new ObjectInputStream(inStream)) {
+			int noOfCookies = objInStream.readInt();
+			myLogger.debug("Number of cookies in legacy file: {}", noOfCookies);
+			
+			Set<Cookie> cookies = new LinkedHashSet<>();
+			for (int i=0; i<noOfCookies; i++) {
+				Cookie cookie = (Cookie)objInStream.readObject();
+				myLogger.debug("Read cookie: Name {}, Value {}", cookie.getName(), cookie.getValue());
+				
+				cookies.add(cookie);
+			}
+			return cookies;
 		} catch (ClassNotFoundException e) {
 			myLogger.error("Error in loading cookie file", e);
-		} finally {
-			try {
-				objInStream.close();
-			} catch (IOException e) {
-				//Do Nothing
-			}
 		}
-		return false;
+		return null;
+	}
+	
+	private static void writeNullableUTF(DataOutputStream dataOutStream, String value) throws IOException {
+		dataOutStream.writeBoolean(value != null);
+		if (value != null)
+			dataOutStream.writeUTF(value);
+	}
+	
+	private static String readNullableUTF(DataInputStream dataInStream) throws IOException {
+		return dataInStream.readBoolean() ? dataInStream.readUTF() : null;
 	}
 	
 	public static void printCookies(WebDriver webDriver) {
@@ -145,88 +330,124 @@ public class WebDriverMgr {
 		cookies.forEach((cookie) -> myLogger.debug("Cookie : {}", cookie));
 	}
 	
+	/**
+	 * Dump all items in one script call
+	 */
 	public static HashMap<String, String> getLocalStorageItems(WebDriver webDriver) {
 		JavascriptExecutor jsExecutor = (JavascriptExecutor)webDriver;
 		
-		long itemCount = (Long)jsExecutor.executeScript("return window.localStorage.length;");
-		myLogger.debug("LocalStorageItems count: {}", itemCount);
+		@SuppressWarnings("unchecked")
+		Map<String, Object> scriptResult = (Map<String, Object>)jsExecutor.executeScript(
+				"var items = {};"
+				+ "for (var i=0; i<window.localStorage.length; i++) {"
+				+ "  var key = window.localStorage.key(i);"
+				+ "  items[key] = window.localStorage.getItem(key);"
+				+ "}"
+				+ "return items;");
 		
 		HashMap<String, String> localStorageItemsMap = new HashMap<>();
-		String itemKey = null;
-		String itemValue = null;
-		for (int i=0; i<itemCount; i++) {
-			itemKey = (String)jsExecutor.executeScript("return window.localStorage.key(" + i + ");");
-			itemValue = (String)jsExecutor.executeScript("return window.localStorage.getItem('" + itemKey + "');");
-			
-			localStorageItemsMap.put(itemKey, itemValue);
-			myLogger.debug("{}: {}", itemKey, itemValue);
-		}
+		if (scriptResult != null)
+			scriptResult.forEach((itemKey, itemValue) -> localStorageItemsMap.put(itemKey, itemValue == null ? null : itemValue.toString()));
+		
+		myLogger.debug("LocalStorageItems count: {}", localStorageItemsMap.size());
 		return localStorageItemsMap;
 	}
 	
-	public static void saveLocalStorageItems(Path localStorageFilePath, HashMap<String, String> localStorageItemsMap) {
+	/**
+	 * Restore all items in one script call, items are passed as script argument so that no escaping is needed
+	 * @return number of items in localStorage after restore
+	 */
+	public static long setLocalStorageItems(WebDriver webDriver, Map<String, String> localStorageItemsMap) {
+		JavascriptExecutor jsExecutor = (JavascriptExecutor)webDriver;
+		
+		Object count = jsExecutor.executeScript(
+				"var items = arguments[0];"
+				+ "for (var key in items) {"
+				+ "  window.localStorage.setItem(key, items[key]);"
+				+ "}"
+				+ "return window.localStorage.length;", localStorageItemsMap);
+		
+		return count instanceof Number ? ((Number)count).longValue() : 0L;
+	}
+	
+	/**
+	 * Write to temp file and then move, so that the file would not be broken if crash in the middle
+	 * @return false if cannot save
+	 */
+	public static boolean saveLocalStorageItems(Path localStorageFilePath, HashMap<String, String> localStorageItemsMap) {
 		myLogger.debug("Saving localStorage to file: {}", localStorageFilePath.toAbsolutePath());
-		ObjectOutputStream objOutStream = null;
-		try {
-			objOutStream = new ObjectOutputStream(Files.newOutputStream(localStorageFilePath));
-			
+		
+		Path tempFilePath = localStorageFilePath.resolveSibling(localStorageFilePath.getFileName() + ".tmp");
+		try (ObjectOutputStream objOutStream = new ObjectOutputStream(Files.newOutputStream(tempFilePath))) {
 			myLogger.debug("Number of localStorageItems: {}", localStorageItemsMap.size());
 			objOutStream.writeObject(localStorageItemsMap);
 			
 			objOutStream.flush();
 		} catch (IOException e) {
-			myLogger.error("Error in saving cookie file", e);
-		} finally {
-			try {
-				objOutStream.close();
-			} catch (IOException e) {
-				//Do Nothing
-			}
+			myLogger.error("Error in saving localStorageItems file", e);
+			return false;
+		}
+		
+		try {
+			Files.move(tempFilePath, localStorageFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			myLogger.error("Error in saving localStorageItems file", e);
 		}
+		return false;
 	}
 	
-	public static boolean loadLocalStorageItems(Path localStorageFilePath, WebDriver webDriver) {
+	/**
+	 * Read items saved by saveLocalStorageItems
+	 * @return null if file not exist or cannot be read
+	 */
+	public static HashMap<String, String> readLocalStorageItems(Path localStorageFilePath) {
 		myLogger.debug("Loading localStorage from file: {}", localStorageFilePath.toAbsolutePath());
 		if (!Files.isReadable(localStorageFilePath)) {
 			myLogger.debug("LocalStorage file not exist, so skip loading : {}", localStorageFilePath.toAbsolutePath());
-			return false;
+			return null;
 		}
 		
-		JavascriptExecutor jsExecutor = (JavascriptExecutor)webDriver;
-		ObjectInputStream objInStream = null;
-		try {
-			objInStream = new ObjectInputStream(Files.newInputStream(localStorageFilePath));
-			
+		try (ObjectInputStream objInStream = new ObjectInputStream(Files.newInputStream(localStorageFilePath))) {
 			@SuppressWarnings("unchecked")
 			HashMap<String, String> localStorageMap = (HashMap<String, String>)objInStream.readObject();
 			myLogger.debug("Number of localStorageItem in file: {}", localStorageMap.size());
-			
-			for (Entry<String, String> mapEntry : localStorageMap.entrySet()) {
-				myLogger.debug("Read localStorageItem: Key {}, Value {}", mapEntry.getKey(), mapEntry.getValue());
-				
-				jsExecutor.executeScript("return window.localStorage.setItem('" + mapEntry.getKey() + "', '" + mapEntry.getValue().replaceAll("\\\\", "\\\\\\\\") + "');");
-			}
-			
-			long count = (Long)jsExecutor.executeScript("return window.localStorage.length;");
-			myLogger.debug("Final localStorageItems count: {}", count);
-			return count > 0L;
+			return localStorageMap;
 		} catch (IOException e) {
 			myLogger.error("Error in loading localStorageItems file", e);
 		} catch (ClassNotFoundException e) {
 			myLogger.error("Error in loading localStorageItems file", e);
 		} catch (Exception e) {
 			myLogger.error("Error in loading localStorageItems file", e);
-		} finally {
-			try {
-				objInStream.close();
-			} catch (IOException e) {
-				//Do Nothing
-			}
 		}
-		return false;
+		return null;
 	}
 	
 	public static void printLocalStorageItems(WebDriver webDriver) {
-		getLocalStorageItems(webDriver);
+		getLocalStorageItems(webDriver).forEach((itemKey, itemValue) -> myLogger.debug("{}: {}", itemKey, itemValue));
+	}
+	
+	public BlockProfile getBlockProfile() {
+		return blockProfile;
+	}
+	
+	public void setBlockProfile(BlockProfile blockProfile) {
+		this.blockProfile = blockProfile;
+	}
+	
+	public PageLoadStrategy getPageLoadStrategy() {
+		return pageLoadStrategy;
+	}
+	
+	public void setPageLoadStrategy(PageLoadStrategy pageLoadStrategy) {
+		this.pageLoadStrategy = pageLoadStrategy;
+	}
+	
+	public int getChromeDebugPort() {
+		return chromeDebugPort;
+	}
+	
+	public void setChromeDebugPort(int chromeDebugPort) {
+		this.chromeDebugPort = chromeDebugPort;
 	}
 }
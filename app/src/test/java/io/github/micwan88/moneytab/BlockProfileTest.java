@@ -0,0 +1,41 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.selenium.BlockProfile;
+import io.github.micwan88.moneytab.selenium.BlockProfile.RESOURCE_TYPE;
+
+class BlockProfileTest {
+	
+	BlockProfile newBlockProfile() {
+		BlockProfile blockProfile = new BlockProfile();
+		blockProfile.blockURLs(BlockProfile.DEFAULT_BLOCKED_URL_PATTERNS);
+		blockProfile.blockURLs(Arrays.asList("*ads.example.com*"));
+		blockProfile.blockResourceTypes(EnumSet.of(RESOURCE_TYPE.IMAGE));
+		blockProfile.allowOnPage(BlockProfile.VIDEO_PAGE_URL_REGEX, BlockProfile.VIDEO_PAGE_ALLOWED_URL_PATTERNS);
+		return blockProfile;
+	}
+	
+	@Test void notificationPageTest() {
+		List<String> blockedURLs = newBlockProfile().getBlockedURLs("https://www.money-tab.com/notification");
+		
+		assertTrue(blockedURLs.contains("*youtube.com/embed/*"), "notificationPageTest - youtube embed blocked");
+		assertTrue(blockedURLs.contains("*ads.example.com*"), "notificationPageTest - extra pattern blocked");
+		assertTrue(blockedURLs.contains("*.png*"), "notificationPageTest - image blocked");
+		assertFalse(blockedURLs.contains("*.woff*"), "notificationPageTest - font not blocked");
+	}
+	
+	@Test void videoPageTest() {
+		List<String> blockedURLs = newBlockProfile().getBlockedURLs("https://www.money-tab.com/channel/a/1");
+		
+		assertFalse(blockedURLs.contains("*youtube.com/embed/*"), "videoPageTest - youtube embed allowed");
+		assertTrue(blockedURLs.contains("*googlevideo.com*"), "videoPageTest - video stream still blocked");
+	}
+}
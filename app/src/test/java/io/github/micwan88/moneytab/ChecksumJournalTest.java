@@ -0,0 +1,212 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.data.ChecksumIndex;
+import io.github.micwan88.moneytab.data.ChecksumIndex.IndexRecord;
+import io.github.micwan88.moneytab.data.ChecksumJournal;
+
+class ChecksumJournalTest {
+	static final long RETENTION = 86400000L;
+	
+	Path journalPath = null;
+	
+	Path indexPath = null;
+	
+	Path preKeyIndexPath = null;
+	
+	@BeforeEach void beforeEachTest() throws IOException {
+		journalPath = Files.createTempFile("checksum", ".dat");
+		Files.delete(journalPath);
+		indexPath = journalPath.resolveSibling(journalPath.getFileName() + ".idx");
+		preKeyIndexPath = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100).getPreKeyIndexPath();
+	}
+	
+	@AfterEach void afterEachTest() throws IOException {
+		Files.deleteIfExists(journalPath);
+		Files.deleteIfExists(indexPath);
+		Files.deleteIfExists(preKeyIndexPath);
+	}
+	
+	@Test void appendReloadTest() throws IOException {
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 2, 100);
+		checksumJournal.load();
+		assertTrue(checksumJournal.append("aaaa"), "appendReloadTest - append new");
+		assertTrue(checksumJournal.append("bbbb"), "appendReloadTest - append new");
+		assertFalse(checksumJournal.append("aaaa"), "appendReloadTest - append duplicated");
+		checksumJournal.close();
+		
+		assertEquals(2, Files.readAllLines(journalPath, StandardCharsets.UTF_8).size(), "appendReloadTest - only new lines appended");
+		
+		ChecksumJournal reloadedJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 2, 100);
+		reloadedJournal.load();
+		assertEquals(2, reloadedJournal.size(), "appendReloadTest - reload size");
+		assertTrue(reloadedJournal.contains("bbbb"), "appendReloadTest - reload contains");
+		reloadedJournal.close();
+	}
+	
+	@Test void legacyMigrationTest() throws IOException {
+		//Old checksum.dat format without timestamp and trailing new line
+		Files.write(journalPath, (DigestUtils.sha256Hex("aaaa") + "\n" + DigestUtils.sha256Hex("bbbb")).getBytes(StandardCharsets.UTF_8));
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		assertEquals(2, checksumJournal.size(), "legacyMigrationTest - size");
+		assertTrue(checksumJournal.isCompactionNeeded(), "legacyMigrationTest - compaction needed");
+		
+		checksumJournal.append("cccc");
+		checksumJournal.compact();
+		assertEquals(3, checksumJournal.size(), "legacyMigrationTest - compacted size");
+		checksumJournal.close();
+		
+		//SHA-256 checksums are moved into index
+		List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+		assertEquals(1, lines.size(), "legacyMigrationTest - compacted lines");
+		assertTrue(lines.stream().allMatch((line) -> line.matches("^\\d+\\t\\w+$")), "legacyMigrationTest - new format");
+	}
+	
+	@Test void retentionCompactionTest() throws IOException {
+		long now = System.currentTimeMillis();
+		List<String> lines = Arrays.asList((now - RETENTION * 2) + "\taaaa", now + "\tbbbb", now + "\tbbbb");
+		Files.write(journalPath, lines, StandardCharsets.UTF_8);
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		assertFalse(checksumJournal.contains("aaaa"), "retentionCompactionTest - expired");
+		assertTrue(checksumJournal.contains("bbbb"), "retentionCompactionTest - live");
+		
+		checksumJournal.compactIfNeeded();
+		assertFalse(checksumJournal.isCompactionNeeded(), "retentionCompactionTest - compacted");
+		checksumJournal.close();
+		
+		assertEquals(1, Files.readAllLines(journalPath, StandardCharsets.UTF_8).size(), "retentionCompactionTest - compacted lines");
+	}
+	
+	@Test void partialLineTest() throws IOException {
+		//Crash in the middle of writing a line
+		Files.write(journalPath, (System.currentTimeMillis() + "\taaaa\n1234").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		checksumJournal.append("bbbb");
+		checksumJournal.close();
+		
+		ChecksumJournal reloadedJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		reloadedJournal.load();
+		assertTrue(reloadedJournal.contains("aaaa"), "partialLineTest - aaaa");
+		assertTrue(reloadedJournal.contains("bbbb"), "partialLineTest - bbbb");
+		assertFalse(reloadedJournal.contains("1234"), "partialLineTest - partial sent time");
+		assertEquals(2, reloadedJournal.size(), "partialLineTest - size");
+		reloadedJournal.close();
+	}
+	
+	@Test void partialLegacyLineTest() throws IOException {
+		//Legacy file got versioned appends before its first compaction, then crashed in the middle of a line
+		String legacyChecksum = DigestUtils.sha256Hex("aaaa");
+		String checksum = DigestUtils.sha256Hex("bbbb");
+		Files.write(journalPath, Arrays.asList(legacyChecksum, "abcd", System.currentTimeMillis() + "\t" + checksum, "1234"), StandardCharsets.UTF_8);
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		assertTrue(checksumJournal.contains(legacyChecksum), "partialLegacyLineTest - legacy line");
+		assertTrue(checksumJournal.contains(checksum), "partialLegacyLineTest - versioned line");
+		assertFalse(checksumJournal.contains("abcd"), "partialLegacyLineTest - not a checksum");
+		assertFalse(checksumJournal.contains("1234"), "partialLegacyLineTest - partial sent time");
+		assertEquals(2, checksumJournal.size(), "partialLegacyLineTest - size");
+		assertTrue(checksumJournal.isCompactionNeeded(), "partialLegacyLineTest - compaction needed");
+		checksumJournal.close();
+	}
+	
+	@Test void indexCompactionTest() throws IOException {
+		String checksum1 = DigestUtils.sha256Hex("item1");
+		String checksum2 = DigestUtils.sha256Hex("item2");
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 2);
+		checksumJournal.load();
+		checksumJournal.append(checksum1);
+		checksumJournal.append(checksum2);
+		checksumJournal.append("aaaa");
+		assertTrue(checksumJournal.isCompactionNeeded(), "indexCompactionTest - over threshold");
+		
+		checksumJournal.compact();
+		checksumJournal.close();
+		
+		//Only non SHA-256 checksum left in journal
+		assertEquals(1, Files.readAllLines(journalPath, StandardCharsets.UTF_8).size(), "indexCompactionTest - journal lines");
+		
+		ChecksumJournal reloadedJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 2);
+		reloadedJournal.load();
+		assertEquals(3, reloadedJournal.size(), "indexCompactionTest - reload size");
+		assertTrue(reloadedJournal.contains(checksum1), "indexCompactionTest - contains in index");
+		assertTrue(reloadedJournal.contains("aaaa"), "indexCompactionTest - contains in journal");
+		assertFalse(reloadedJournal.contains(DigestUtils.sha256Hex("item3")), "indexCompactionTest - not contains");
+		assertFalse(reloadedJournal.append(checksum2), "indexCompactionTest - append duplicated in index");
+		reloadedJournal.close();
+	}
+	
+	@Test void indexRetentionTest() throws IOException {
+		long now = System.currentTimeMillis();
+		byte[] expiredDigest = DigestUtils.sha256("item1");
+		byte[] liveDigest = DigestUtils.sha256("item2");
+		ChecksumIndex.write(indexPath, Arrays.asList(new IndexRecord(expiredDigest, now - RETENTION * 2), new IndexRecord(liveDigest, now)));
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		assertTrue(checksumJournal.isCompactionNeeded(), "indexRetentionTest - expired in index");
+		
+		checksumJournal.compact();
+		assertFalse(checksumJournal.contains(Hex.encodeHexString(expiredDigest)), "indexRetentionTest - expired removed");
+		assertTrue(checksumJournal.contains(Hex.encodeHexString(liveDigest)), "indexRetentionTest - live kept");
+		assertFalse(checksumJournal.isCompactionNeeded(), "indexRetentionTest - compacted");
+		checksumJournal.close();
+	}
+	
+	@Test void preKeyTest() throws IOException {
+		String checksum1 = DigestUtils.sha256Hex("item1");
+		String preKey1 = DigestUtils.sha256Hex("preKey1");
+		String checksum2 = DigestUtils.sha256Hex("item2");
+		String preKey2 = DigestUtils.sha256Hex("preKey2");
+		
+		//Line written before pre-key is introduced
+		Files.write(journalPath, (System.currentTimeMillis() + "\t" + checksum1 + "\n").getBytes(StandardCharsets.UTF_8));
+		
+		ChecksumJournal checksumJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		checksumJournal.load();
+		assertFalse(checksumJournal.containsPreKey(preKey1), "preKeyTest - no pre-key in old line");
+		
+		assertTrue(checksumJournal.append(checksum1, preKey1), "preKeyTest - migrate pre-key to sent checksum");
+		assertFalse(checksumJournal.append(checksum1, preKey1), "preKeyTest - both exist");
+		assertTrue(checksumJournal.append(checksum2, preKey2), "preKeyTest - append new");
+		assertEquals(2, checksumJournal.size(), "preKeyTest - checksum not duplicated");
+		checksumJournal.close();
+		
+		ChecksumJournal reloadedJournal = new ChecksumJournal(journalPath, indexPath, RETENTION, 1, 100);
+		reloadedJournal.load();
+		assertTrue(reloadedJournal.containsPreKey(preKey1), "preKeyTest - reload migrated pre-key");
+		assertTrue(reloadedJournal.containsPreKey(preKey2), "preKeyTest - reload pre-key");
+		
+		reloadedJournal.compact();
+		assertTrue(Files.exists(preKeyIndexPath), "preKeyTest - pre-key index written");
+		assertTrue(reloadedJournal.containsPreKey(preKey1), "preKeyTest - contains in index");
+		assertFalse(reloadedJournal.containsPreKey(DigestUtils.sha256Hex("preKey3")), "preKeyTest - not contains");
+		reloadedJournal.close();
+		
+		assertEquals(0, Files.readAllLines(journalPath, StandardCharsets.UTF_8).size(), "preKeyTest - all moved to index");
+	}
+}
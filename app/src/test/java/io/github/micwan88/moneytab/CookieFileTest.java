@@ -0,0 +1,73 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.Cookie;
+
+import io.github.micwan88.moneytab.selenium.WebDriverMgr;
+
+class CookieFileTest {
+	Path cookieFilePath = null;
+	
+	@BeforeEach void beforeEachTest() throws IOException {
+		cookieFilePath = Files.createTempFile("cookies", ".dat");
+		Files.delete(cookieFilePath);
+	}
+	
+	@AfterEach void afterEachTest() throws IOException {
+		Files.deleteIfExists(cookieFilePath);
+	}
+	
+	Set<Cookie> newCookies() {
+		Set<Cookie> cookies = new LinkedHashSet<>();
+		cookies.add(new Cookie("session", "abc", "www.money-tab.com", "/", new Date(1700000000000L), true, true, "Lax"));
+		cookies.add(new Cookie("lang", "zh-HK", null, "/", null, false, false, null));
+		return cookies;
+	}
+	
+	@Test void saveReadTest() {
+		assertNull(WebDriverMgr.readCookies(cookieFilePath), "saveReadTest - no file");
+		
+		assertTrue(WebDriverMgr.saveCookie(cookieFilePath, newCookies()), "saveReadTest - saved");
+		
+		List<Cookie> cookieList = new ArrayList<>(WebDriverMgr.readCookies(cookieFilePath));
+		assertEquals(2, cookieList.size(), "saveReadTest - count");
+		assertEquals("abc", cookieList.get(0).getValue(), "saveReadTest - value");
+		assertEquals("www.money-tab.com", cookieList.get(0).getDomain(), "saveReadTest - domain");
+		assertEquals(1700000000000L, cookieList.get(0).getExpiry().getTime(), "saveReadTest - expiry");
+		assertTrue(cookieList.get(0).isHttpOnly(), "saveReadTest - httpOnly");
+		assertEquals("Lax", cookieList.get(0).getSameSite(), "saveReadTest - sameSite");
+		assertNull(cookieList.get(1).getDomain(), "saveReadTest - no domain");
+		assertNull(cookieList.get(1).getExpiry(), "saveReadTest - session cookie");
+	}
+	
+	@Test void legacyFileTest() throws IOException {
+		//Format written by older version
+		Set<Cookie> cookies = newCookies();
+		try (ObjectOutputStream objOutStream = new ObjectOutputStream(Files.newOutputStream(cookieFilePath))) {
+			objOutStream.writeInt(cookies.size());
+			for (Cookie cookie : cookies) {
+				objOutStream.writeObject(cookie);
+			}
+		}
+		
+		Set<Cookie> readCookies = WebDriverMgr.readCookies(cookieFilePath);
+		assertEquals(2, readCookies.size(), "legacyFileTest - count");
+		assertEquals("abc", readCookies.iterator().next().getValue(), "legacyFileTest - value");
+	}
+}
@@ -0,0 +1,65 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+
+class ExtractScriptTest {
+	
+	//Same item of stub site, as innerText (paragraph with blank lines, nbsp) and WebElement.getText() give it
+	static final String VIDEO_INNER_TEXT = "20.01.2023\n\n90後零至千萬的故事 \n\n第六集\u00a0已經上架\n";
+	
+	static final String VIDEO_ELEMENT_TEXT = "20.01.2023\n90後零至千萬的故事\n第六集 已經上架";
+	
+	JsonObject newItemJson(String type, String date, String title, String fullText, String href) {
+		JsonObject itemJson = new JsonObject();
+		itemJson.addProperty("type", type);
+		itemJson.addProperty("date", date);
+		itemJson.addProperty("title", title);
+		itemJson.addProperty("fullText", fullText);
+		itemJson.addProperty("href", href);
+		return itemJson;
+	}
+	
+	@Test void normalizeTextTest() {
+		assertEquals(VIDEO_ELEMENT_TEXT, NotificationItem.normalizeText(VIDEO_INNER_TEXT), "normalizeTextTest - inner text");
+		assertEquals(VIDEO_ELEMENT_TEXT, NotificationItem.normalizeText(VIDEO_ELEMENT_TEXT), "normalizeTextTest - already canonical");
+		assertEquals("a b\nc", NotificationItem.normalizeText(" a \t b \r\n\r\n c "), "normalizeTextTest - whitespace");
+		assertEquals("", NotificationItem.normalizeText(" \n "), "normalizeTextTest - blank");
+		assertNull(NotificationItem.normalizeText(null), "normalizeTextTest - null");
+	}
+	
+	@Test void parseScriptResultTest() {
+		JsonArray itemJsonArray = new JsonArray();
+		itemJsonArray.add(newItemJson(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事 ", VIDEO_INNER_TEXT,
+				"https://www.money-tab.com/channel/90s-ten-million-story/6124"));
+		//Item with missing element
+		itemJsonArray.add(JsonNull.INSTANCE);
+		itemJsonArray.add(newItemJson(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "系統維護", "19.01.2023\n\n系統維護\n\n本網站將於凌晨進行維護", null));
+		
+		List<NotificationItem> notificationItemList = WebBot.parseScriptResult(itemJsonArray.toString());
+		assertEquals(2, notificationItemList.size(), "parseScriptResultTest - size");
+		
+		//Same as element strategy, so checksum is not changed by switching strategy
+		NotificationItem videoItem = notificationItemList.get(0);
+		NotificationItem elementVideoItem = new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事", VIDEO_ELEMENT_TEXT,
+				"https://www.money-tab.com/channel/90s-ten-million-story/6124", null);
+		assertEquals(elementVideoItem.getTitle(), videoItem.getTitle(), "parseScriptResultTest - video title");
+		assertEquals(elementVideoItem.getFullDescription(), videoItem.getFullDescription(), "parseScriptResultTest - video fullDescription");
+		assertEquals(elementVideoItem.getPageLink(), videoItem.getPageLink(), "parseScriptResultTest - video pageLink");
+		
+		//Same as http strategy of stub site
+		NotificationItem newsItem = notificationItemList.get(1);
+		assertEquals("19.01.2023\n系統維護\n本網站將於凌晨進行維護", newsItem.getFullDescription(), "parseScriptResultTest - news fullDescription");
+		assertNull(newsItem.getPageLink(), "parseScriptResultTest - news pageLink");
+	}
+}
@@ -0,0 +1,104 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.HighWaterMark;
+
+class HighWaterMarkTest {
+	
+	Path markFilePath = null;
+	
+	@BeforeEach void beforeEachTest() throws IOException {
+		markFilePath = Files.createTempFile("hwm", ".dat");
+		Files.delete(markFilePath);
+	}
+	
+	@AfterEach void afterEachTest() throws IOException {
+		Files.deleteIfExists(markFilePath);
+	}
+	
+	@Test void toDateKeyTest() {
+		assertEquals("20230120", HighWaterMark.toDateKey("20.01.2023"), "toDateKeyTest - valid");
+		assertTrue(HighWaterMark.toDateKey("01.02.2023").compareTo(HighWaterMark.toDateKey("31.01.2023")) > 0, "toDateKeyTest - comparable");
+		assertNull(HighWaterMark.toDateKey("2023-01-20"), "toDateKeyTest - invalid");
+	}
+	
+	@Test void isReachedTest() {
+		HighWaterMark highWaterMark = new HighWaterMark(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "系統維護 本網站將於凌晨進行維護");
+		
+		assertTrue(highWaterMark.isMarkItem(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "系統維護", "系統維護 本網站將於凌晨進行維護")),
+				"isReachedTest - same item");
+		assertTrue(highWaterMark.isOlderThanMark(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "18.01.2023", "舊通知", "舊通知 內容")),
+				"isReachedTest - older item");
+		assertFalse(highWaterMark.isMarkItem(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "18.01.2023", "舊通知", "舊通知 內容")),
+				"isReachedTest - older item is not mark item");
+		assertFalse(highWaterMark.isOlderThanMark(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "新通知", "新通知 內容")),
+				"isReachedTest - new item on same date");
+		assertFalse(highWaterMark.isOlderThanMark(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事", "第六集已經上架")),
+				"isReachedTest - newer item");
+	}
+	
+	NotificationItem newItem(String dateInString, String fullDescription) {
+		return new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, dateInString, fullDescription, fullDescription);
+	}
+	
+	List<NotificationItem> extract(List<NotificationItem> pageItemList, HighWaterMark highWaterMark, String windowStartKey) {
+		List<NotificationItem> extractedItemList = new ArrayList<>();
+		for (NotificationItem notificationItem : pageItemList) {
+			if (!WebBot.addExtractedItem(extractedItemList, notificationItem, highWaterMark, windowStartKey))
+				break;
+		}
+		return extractedItemList;
+	}
+	
+	@Test void outOfOrderTest() {
+		HighWaterMark highWaterMark = new HighWaterMark(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "mark");
+		
+		//Pinned older item on top must not hide the new items below it
+		List<NotificationItem> pageItemList = Arrays.asList(newItem("10.01.2023", "pinned"), newItem("20.01.2023", "new1"), newItem("19.01.2023", "new2"),
+				newItem("19.01.2023", "mark"), newItem("18.01.2023", "old1"));
+		List<NotificationItem> extractedItemList = extract(pageItemList, highWaterMark, null);
+		assertEquals(Arrays.asList("pinned", "new1", "new2"), extractedItemList.stream().map(NotificationItem::getFullDescription).collect(Collectors.toList()),
+				"outOfOrderTest - stop at mark item");
+		
+		//Mark item removed from the page, stop after a run of older items
+		pageItemList = Arrays.asList(newItem("10.01.2023", "pinned"), newItem("20.01.2023", "new1"), newItem("18.01.2023", "old1"),
+				newItem("17.01.2023", "old2"), newItem("16.01.2023", "old3"), newItem("15.01.2023", "old4"));
+		extractedItemList = extract(pageItemList, highWaterMark, null);
+		assertEquals(2 + WebBotConst.EXTRACT_OLDER_ITEM_STOP_COUNT - 1, extractedItemList.size(), "outOfOrderTest - stop after older items");
+		
+		//Same for date window
+		extractedItemList = extract(pageItemList, null, "20230120");
+		assertEquals("new1", extractedItemList.get(1).getFullDescription(), "outOfOrderTest - date window");
+		
+		//Pinned item is not the newest one
+		assertEquals("new1", HighWaterMark.findNewestItem(pageItemList).getFullDescription(), "outOfOrderTest - newest item");
+	}
+	
+	@Test void saveAndReadTest() throws IOException {
+		assertNull(HighWaterMark.read(markFilePath), "saveAndReadTest - no file");
+		
+		HighWaterMark highWaterMark = new HighWaterMark(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事 第六集已經上架");
+		assertTrue(highWaterMark.save(markFilePath), "saveAndReadTest - save");
+		assertEquals(highWaterMark, HighWaterMark.read(markFilePath), "saveAndReadTest - read");
+		
+		Files.write(markFilePath, "broken".getBytes());
+		assertNull(HighWaterMark.read(markFilePath), "saveAndReadTest - broken file");
+	}
+}
@@ -0,0 +1,83 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.KeywordMatcher;
+import io.github.micwan88.moneytab.data.NotificationFilter;
+import io.github.micwan88.moneytab.data.NotificationFilter.TITLE_MATCH_MODE;
+
+class KeywordMatcherTest {
+	
+	NotificationItem newItem(String title) {
+		return new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", title, "新影片已經上架");
+	}
+	
+	@Test void containsAnyTest() {
+		//Keywords sharing prefix and suffix, so only fail links can find them
+		KeywordMatcher keywordMatcher = new KeywordMatcher(Arrays.asList("he", "she", "his", "hers", ""));
+		
+		assertEquals(4, keywordMatcher.getKeywordCount(), "containsAnyTest - empty keyword ignored");
+		assertTrue(keywordMatcher.containsAny("ushers"), "containsAnyTest - ushers");
+		assertTrue(keywordMatcher.containsAny("ahishers"), "containsAnyTest - ahishers");
+		assertTrue(keywordMatcher.containsAny("xxhe"), "containsAnyTest - at end");
+		assertFalse(keywordMatcher.containsAny("hxsxex"), "containsAnyTest - no match");
+		assertFalse(keywordMatcher.containsAny(""), "containsAnyTest - empty text");
+		assertFalse(keywordMatcher.containsAny(null), "containsAnyTest - null text");
+		
+		KeywordMatcher abcMatcher = new KeywordMatcher(Arrays.asList("abcd", "bc"));
+		assertTrue(abcMatcher.containsAny("xabcx"), "containsAnyTest - keyword inside failed longer keyword");
+		
+		assertFalse(new KeywordMatcher(Arrays.asList()).containsAny("abc"), "containsAnyTest - no keyword");
+	}
+	
+	@Test void findAllTest() {
+		KeywordMatcher keywordMatcher = new KeywordMatcher(Arrays.asList("he", "", "she", "his", "hers", "he"));
+		
+		//Index in given keywords, also for empty one and both duplicated ones
+		assertEquals(BitSet.valueOf(new long[] {0b110101L}), keywordMatcher.findAll("ushers"), "findAllTest - ushers");
+		assertEquals(BitSet.valueOf(new long[] {0b101001L}), keywordMatcher.findAll("ahis he"), "findAllTest - ahis he");
+		assertTrue(keywordMatcher.findAll("hxsxex").isEmpty(), "findAllTest - no match");
+		assertTrue(keywordMatcher.findAll(null).isEmpty(), "findAllTest - null text");
+	}
+	
+	@Test void chineseTest() {
+		KeywordMatcher keywordMatcher = new KeywordMatcher(Arrays.asList("我要炒股票", "贏在美股系列", "股票"));
+		
+		assertTrue(keywordMatcher.containsAny("我要炒股票 第十二集"), "chineseTest - episode suffix");
+		assertTrue(keywordMatcher.containsAny("【新】贏在美股系列(下)"), "chineseTest - prefix and suffix");
+		assertFalse(keywordMatcher.containsAny("我要炒股"), "chineseTest - partial keyword");
+		assertTrue(keywordMatcher.containsAny("港股票房"), "chineseTest - short keyword");
+		assertFalse(keywordMatcher.containsAny("我要做屋主"), "chineseTest - no match");
+	}
+	
+	@Test void titleMatchModeTest() {
+		NotificationFilter titleFilter = new NotificationFilter("^90後零至千萬的故事,我要炒股票");
+		String exactFilterString = titleFilter.toString();
+		
+		//Exact by default, as before
+		assertFalse(titleFilter.filterTitle(newItem("我要炒股票")), "titleMatchModeTest - exact blacklisted");
+		assertTrue(titleFilter.filterTitle(newItem("我要炒股票 第二集")), "titleMatchModeTest - exact suffix not blacklisted");
+		
+		titleFilter.setTitleMatchMode(TITLE_MATCH_MODE.KEYWORD);
+		assertFalse(titleFilter.filterTitle(newItem("我要炒股票 第二集")), "titleMatchModeTest - keyword suffix blacklisted");
+		assertTrue(titleFilter.filterTitle(newItem("施傅教學")), "titleMatchModeTest - keyword not blacklisted");
+		assertNotEquals(exactFilterString, titleFilter.toString(), "titleMatchModeTest - mode is part of fingerprint");
+		
+		NotificationFilter whiteListFilter = new NotificationFilter("我要炒股票");
+		whiteListFilter.setTitleMatchMode(TITLE_MATCH_MODE.KEYWORD);
+		assertTrue(whiteListFilter.filterTitle(newItem("我要炒股票 第二集")), "titleMatchModeTest - keyword whitelisted");
+		assertFalse(whiteListFilter.filterTitle(newItem("施傅教學")), "titleMatchModeTest - keyword not whitelisted");
+		
+		whiteListFilter.setTitleMatchMode(TITLE_MATCH_MODE.EXACT);
+		assertFalse(whiteListFilter.filterTitle(newItem("我要炒股票 第二集")), "titleMatchModeTest - back to exact");
+	}
+}
@@ -0,0 +1,51 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.NotificationFilter;
+
+class ListFingerprintTest {
+	
+	List<NotificationItem> newItemList() {
+		List<NotificationItem> notificationItemList = new ArrayList<>();
+		notificationItemList.add(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事", "第六集已經上架",
+				"https://www.money-tab.com/channel/90s-ten-million-story/6124", null));
+		notificationItemList.add(new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "系統維護", "本網站將於凌晨進行維護"));
+		return notificationItemList;
+	}
+	
+	@Test void sameListTest() {
+		NotificationFilter dateFilter = new NotificationFilter("20.01.2023");
+		
+		String fingerprint = WebBot.computeListFingerprint(newItemList(), dateFilter, null);
+		
+		//Resolved links and checksums are not part of it
+		List<NotificationItem> resolvedItemList = newItemList();
+		resolvedItemList.get(0).setVideoLink("https://www.youtube.com/watch?v=mT6124abcde");
+		resolvedItemList.get(0).setChecksum("abc");
+		
+		assertEquals(fingerprint, WebBot.computeListFingerprint(resolvedItemList, new NotificationFilter("20.01.2023"), null), "sameListTest");
+	}
+	
+	@Test void changedListTest() {
+		NotificationFilter dateFilter = new NotificationFilter("20.01.2023");
+		String fingerprint = WebBot.computeListFingerprint(newItemList(), dateFilter, null);
+		
+		List<NotificationItem> newItemList = newItemList();
+		newItemList.add(0, new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "20.01.2023", "新通知", "內容"));
+		assertNotEquals(fingerprint, WebBot.computeListFingerprint(newItemList, dateFilter, null), "changedListTest - new item");
+		
+		List<NotificationItem> editedItemList = newItemList();
+		editedItemList.get(1).setFullDescription("維護已完成");
+		assertNotEquals(fingerprint, WebBot.computeListFingerprint(editedItemList, dateFilter, null), "changedListTest - edited item");
+		
+		assertNotEquals(fingerprint, WebBot.computeListFingerprint(newItemList(), new NotificationFilter("21.01.2023"), null), "changedListTest - date filter changed");
+	}
+}
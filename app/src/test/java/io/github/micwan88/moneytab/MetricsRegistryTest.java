@@ -0,0 +1,57 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.metrics.LatencyHistogram;
+import io.github.micwan88.moneytab.metrics.MetricsRegistry;
+
+class MetricsRegistryTest {
+	
+	@Test void histogramPercentileTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i=1; i<=1000; i++)
+			histogram.record(i * 1000L);
+		
+		assertEquals(1000L, histogram.getCount(), "histogramPercentileTest - count");
+		assertEquals(1000000L, histogram.getMax(), "histogramPercentileTest - max");
+		
+		long median = histogram.getValueAtPercentile(50.0);
+		assertTrue(Math.abs(median - 500000L) <= 500000L * 0.04, "histogramPercentileTest - median within bucket error: " + median);
+		long p99 = histogram.getValueAtPercentile(99.0);
+		assertTrue(Math.abs(p99 - 990000L) <= 990000L * 0.04, "histogramPercentileTest - p99 within bucket error: " + p99);
+		assertEquals(1000000L, histogram.getValueAtPercentile(100.0), "histogramPercentileTest - p100 is max");
+	}
+	
+	@Test void prometheusTextTest() {
+		MetricsRegistry metricsRegistry = new MetricsRegistry();
+		metricsRegistry.recordLatency(WebBotConst.METRICS_STAGE_LOGIN, TimeUnit.MILLISECONDS.toNanos(1500L));
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ITEMS, WebBotConst.METRICS_STAGE_EXTRACTION, 3L);
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ITEMS, WebBotConst.METRICS_STAGE_EXTRACTION, 2L);
+		
+		String metricsText = metricsRegistry.toPrometheusText();
+		
+		assertTrue(metricsText.contains("moneytab_stage_duration_seconds_count{stage=\"login\"} 1\n"), "prometheusTextTest - latency count");
+		assertTrue(metricsText.contains("moneytab_stage_duration_max_seconds{stage=\"login\"} 1.500000\n"), "prometheusTextTest - latency max");
+		assertTrue(metricsText.contains("moneytab_items_total{stage=\"extraction\"} 5\n"), "prometheusTextTest - counter");
+		assertEquals(0L, metricsRegistry.getCounter(MetricsRegistry.COUNTER_ERRORS, WebBotConst.METRICS_STAGE_EXTRACTION), "prometheusTextTest - no error counter");
+	}
+	
+	@Test void labelledStageTest() {
+		MetricsRegistry metricsRegistry = new MetricsRegistry();
+		String chatStage = MetricsRegistry.labelledStage("telegram_post_chat", "chat", "-100\"1");
+		metricsRegistry.recordLatency(chatStage, TimeUnit.MILLISECONDS.toNanos(200L));
+		metricsRegistry.increment(MetricsRegistry.COUNTER_ITEMS, chatStage, 1L);
+		
+		String metricsText = metricsRegistry.toPrometheusText();
+		
+		assertTrue(metricsText.contains("moneytab_stage_duration_seconds{stage=\"telegram_post_chat\",chat=\"-100\\\"1\",quantile=\"0.5\"} "), "labelledStageTest - quantile");
+		assertTrue(metricsText.contains("moneytab_stage_duration_max_seconds{stage=\"telegram_post_chat\",chat=\"-100\\\"1\"} 0.200000\n"), "labelledStageTest - latency max");
+		assertTrue(metricsText.contains("moneytab_items_total{stage=\"telegram_post_chat\",chat=\"-100\\\"1\"} 1\n"), "labelledStageTest - counter");
+		assertEquals(1L, metricsRegistry.getHistogram(chatStage).getCount(), "labelledStageTest - histogram");
+	}
+}
@@ -0,0 +1,84 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.openqa.selenium.Cookie;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.http.MoneyTabHttpClient;
+
+@TestInstance(Lifecycle.PER_CLASS)
+class MoneyTabHttpClientTest {
+	static final String SESSION_COOKIE = "mt_session=valid";
+	
+	StubHttpServer stubServer = null;
+	
+	@BeforeAll void beforeTest() throws IOException {
+		stubServer = new StubHttpServer();
+		stubServer.addRecordedPage(WebBotConst.MONEYTAB_NOTIFICATION_PATH, "/stubsite/notification.html", SESSION_COOKIE);
+		stubServer.addRecordedPage("/channel/90s-ten-million-story/6124", "/stubsite/video.html", SESSION_COOKIE);
+		stubServer.addRecordedPage("/embed/6124", "/stubsite/embed.html", null);
+		stubServer.addRecordedPage("/player/6124", "/stubsite/player.html", null);
+	}
+	
+	@AfterAll void afterTest() {
+		stubServer.close();
+	}
+	
+	Set<Cookie> validCookies() {
+		HashSet<Cookie> cookies = new HashSet<>();
+		cookies.add(new Cookie("mt_session", "valid", "localhost", "/", null));
+		return cookies;
+	}
+	
+	@Test void fetchNotificationListTest() {
+		try (MoneyTabHttpClient httpClient = new MoneyTabHttpClient(stubServer.getBaseURL(), validCookies(), 5000L)) {
+			List<NotificationItem> notificationItemList = httpClient.fetchNotificationList();
+			assertNotNull(notificationItemList, "fetchNotificationListTest - not null");
+			assertEquals(2, notificationItemList.size(), "fetchNotificationListTest - size");
+			
+			NotificationItem videoItem = notificationItemList.get(0);
+			assertEquals(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, videoItem.getType(), "fetchNotificationListTest - video type");
+			assertEquals("20.01.2023", videoItem.getDateInString(), "fetchNotificationListTest - video date");
+			assertEquals("90後零至千萬的故事", videoItem.getTitle(), "fetchNotificationListTest - video title");
+			assertEquals(stubServer.getBaseURL() + "/channel/90s-ten-million-story/6124", videoItem.getPageLink(), "fetchNotificationListTest - video pageLink");
+			//Same as WebElement.getText() in browser, one line per block
+			assertEquals("20.01.2023\n90後零至千萬的故事\n第六集已經上架", videoItem.getFullDescription(), "fetchNotificationListTest - video fullDescription");
+			
+			NotificationItem newsItem = notificationItemList.get(1);
+			assertEquals(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, newsItem.getType(), "fetchNotificationListTest - news type");
+			assertEquals("系統維護", newsItem.getTitle(), "fetchNotificationListTest - news title");
+			assertNull(newsItem.getPageLink(), "fetchNotificationListTest - news no pageLink");
+			assertEquals("19.01.2023\n系統維護\n本網站將於凌晨進行維護", newsItem.getFullDescription(), "fetchNotificationListTest - news fullDescription");
+		}
+	}
+	
+	@Test void fetchYoutubeLinkTest() {
+		try (MoneyTabHttpClient httpClient = new MoneyTabHttpClient(stubServer.getBaseURL(), validCookies(), 5000L)) {
+			String youtubeLink = httpClient.fetchYoutubeLink(stubServer.getBaseURL() + "/channel/90s-ten-million-story/6124");
+			assertEquals("https://www.youtube.com/watch?v=mT6124abcde", youtubeLink, "fetchYoutubeLinkTest");
+		}
+	}
+	
+	@Test void invalidSessionTest() {
+		HashSet<Cookie> cookies = new HashSet<>();
+		cookies.add(new Cookie("mt_session", "expired", "localhost", "/", null));
+		
+		try (MoneyTabHttpClient httpClient = new MoneyTabHttpClient(stubServer.getBaseURL(), cookies, 5000L)) {
+			assertNull(httpClient.fetchNotificationList(), "invalidSessionTest - notification list");
+			assertNull(httpClient.fetchYoutubeLink(stubServer.getBaseURL() + "/channel/90s-ten-million-story/6124"), "invalidSessionTest - youtube link");
+		}
+	}
+}
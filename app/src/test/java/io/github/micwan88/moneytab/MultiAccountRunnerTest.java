@@ -0,0 +1,108 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class MultiAccountRunnerTest {
+	
+	Properties newAppProperties() {
+		Properties appProperties = new Properties();
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_RUNNER_ACCOUNTS, "alice,bob");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_RUNNER_STATE_BASE_DIR, "accounts");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_BROWSER_USERDATA, "userdata");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE, "metrics.prom");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT, "9100");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_LOGIN, "base");
+		appProperties.setProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID, "base-chat");
+		appProperties.setProperty(WebBotConst.ACCOUNT_PROPERTIES_PREFIX + "alice.login", "alice");
+		appProperties.setProperty(WebBotConst.ACCOUNT_PROPERTIES_PREFIX + "bob.login", "bob");
+		appProperties.setProperty(WebBotConst.ACCOUNT_PROPERTIES_PREFIX + "bob.tgBotChatID", "bob-chat");
+		return appProperties;
+	}
+	
+	@Test void accountOverrideTest() {
+		Properties aliceProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), new Properties(), "alice", 0);
+		Properties bobProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), new Properties(), "bob", 1);
+		
+		assertEquals("alice", aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_LOGIN), "accountOverrideTest - own login");
+		assertEquals("bob", bobProperties.getProperty(WebBotConst.APP_PROPERTIES_LOGIN), "accountOverrideTest - own login");
+		assertEquals("base-chat", aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID), "accountOverrideTest - base value");
+		assertEquals("bob-chat", bobProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID), "accountOverrideTest - own value");
+		assertNull(aliceProperties.getProperty(WebBotConst.ACCOUNT_PROPERTIES_PREFIX + "bob.login"), "accountOverrideTest - no other account value");
+	}
+	
+	@Test void accountIsolationTest() {
+		Properties aliceProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), new Properties(), "alice", 0);
+		Properties bobProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), new Properties(), "bob", 1);
+		
+		assertEquals(Paths.get("accounts", "alice").toString(), aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_STATE_DIR), "accountIsolationTest - state dir");
+		assertEquals(Paths.get("accounts", "bob", "userdata").toString(), bobProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_USERDATA), "accountIsolationTest - user data");
+		assertEquals(Paths.get("accounts", "bob", "metrics.prom").toString(), bobProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_FILE), "accountIsolationTest - metrics file");
+		assertEquals(String.valueOf(WebBotConst.BROWSER_DEFAULT_DEBUG_PORT), aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT), "accountIsolationTest - debug port");
+		assertEquals(String.valueOf(WebBotConst.BROWSER_DEFAULT_DEBUG_PORT + 1), bobProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT), "accountIsolationTest - debug port");
+		assertEquals("9101", bobProperties.getProperty(WebBotConst.APP_PROPERTIES_METRICS_PORT), "accountIsolationTest - metrics port");
+	}
+	
+	@Test void systemPropertyTest() {
+		Properties systemProperties = new Properties();
+		systemProperties.setProperty(WebBotConst.APP_PROPERTIES_STATE_DIR, "shared");
+		systemProperties.setProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT, "9300");
+		systemProperties.setProperty(WebBotConst.APP_PROPERTIES_LOGIN, "system");
+		systemProperties.setProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID, "system-chat");
+		systemProperties.setProperty("java.version", "1.8");
+		
+		Properties aliceProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), systemProperties, "alice", 0);
+		Properties bobProperties = MultiAccountRunner.buildAccountProperties(newAppProperties(), systemProperties, "bob", 1);
+		
+		assertEquals(Paths.get("accounts", "bob").toString(), bobProperties.getProperty(WebBotConst.APP_PROPERTIES_STATE_DIR), "systemPropertyTest - own state dir");
+		assertEquals("9301", bobProperties.getProperty(WebBotConst.APP_PROPERTIES_BROWSER_DEBUG_PORT), "systemPropertyTest - own debug port");
+		assertEquals("alice", aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_LOGIN), "systemPropertyTest - own login");
+		assertEquals("system-chat", aliceProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID), "systemPropertyTest - override base value");
+		assertEquals("bob-chat", bobProperties.getProperty(WebBotConst.APP_PROPERTIES_TG_BOT_CHATID), "systemPropertyTest - own value");
+		assertNull(aliceProperties.getProperty("java.version"), "systemPropertyTest - not bot property");
+	}
+	
+	/**
+	 * Cycle throwing out of runCycle must not stop the account from polling
+	 */
+	@Test void cycleErrorTest() throws InterruptedException {
+		AtomicInteger cycleCount = new AtomicInteger();
+		CountDownLatch cycleLatch = new CountDownLatch(3);
+		WebBot webBot = new WebBot() {
+			@Override
+			public void init() {
+				//No browser and state needed
+			}
+			
+			@Override
+			public long runCycle() {
+				cycleLatch.countDown();
+				if (cycleCount.incrementAndGet() == 1)
+					throw new IllegalStateException("cycleErrorTest");
+				return 10L;
+			}
+		};
+		webBot.setSleepTime(10L);
+		
+		MultiAccountRunner runner = new MultiAccountRunner();
+		runner.getWebBotMap().put("alice", webBot);
+		
+		Thread daemonThread = new Thread(() -> runner.runDaemon());
+		daemonThread.start();
+		try {
+			assertTrue(cycleLatch.await(10L, TimeUnit.SECONDS), "cycleErrorTest - keep polling after error");
+		} finally {
+			runner.close();
+			daemonThread.join(10000L);
+		}
+	}
+}
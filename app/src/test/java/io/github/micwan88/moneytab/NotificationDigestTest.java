@@ -0,0 +1,96 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.SubscriptionIndex;
+import io.github.micwan88.moneytab.messaging.NotificationDigest;
+import io.github.micwan88.moneytab.messaging.NotificationDigest.DIGEST_MODE;
+import io.github.micwan88.moneytab.messaging.TelegramBot;
+
+class NotificationDigestTest {
+	
+	NotificationItem newItem(String type, String dateInString, String fullDescription) {
+		NotificationItem notificationItem = new NotificationItem();
+		notificationItem.setType(type);
+		notificationItem.setDateInString(dateInString);
+		notificationItem.setFullDescription(fullDescription);
+		return notificationItem;
+	}
+	
+	@Test void groupByTypeTest() {
+		List<NotificationItem> notificationItemList = Arrays.asList(
+				newItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "video1"),
+				newItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "20.01.2023", "news1"),
+				newItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "video2"));
+		
+		List<NotificationDigest> digestList = NotificationDigest.buildDigests(notificationItemList, DIGEST_MODE.TYPE,
+				NotificationItem::getFullDescription, TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH);
+		
+		assertEquals(2, digestList.size(), "groupByTypeTest - digest count");
+		assertEquals("【" + WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO + "】\n\nvideo1\n\nvideo2", digestList.get(0).getText(), "groupByTypeTest - video digest");
+		assertEquals(1, digestList.get(1).getNotificationItemList().size(), "groupByTypeTest - news digest items");
+	}
+	
+	@Test void maxLengthTest() {
+		//Each item is 1200 chars after escaping (400 before), so only 3 items per message
+		StringBuilder description = new StringBuilder();
+		for (int i=0; i<80; i++) {
+			description.append("<a&b>");
+		}
+		
+		List<NotificationItem> notificationItemList = new ArrayList<>();
+		for (int i=0; i<10; i++) {
+			notificationItemList.add(newItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", description.toString()));
+		}
+		
+		List<NotificationDigest> digestList = NotificationDigest.buildDigests(notificationItemList, DIGEST_MODE.DATE,
+				NotificationItem::getFullDescription, TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH);
+		
+		assertEquals(4, digestList.size(), "maxLengthTest - digest count");
+		assertEquals(10, digestList.stream().mapToInt((digest) -> digest.getNotificationItemList().size()).sum(), "maxLengthTest - all items packed");
+		assertTrue(digestList.stream().allMatch((digest)
+				-> TelegramBot.filterTgRestrictedKeywords(digest.getText()).length() <= TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH), "maxLengthTest - within max length");
+	}
+	
+	/**
+	 * Chat subscribed to everything gets one digest, not one per group of other subscribers
+	 */
+	@Test void perChatDigestTest() throws IOException {
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+		subscriptionIndex.addSubscription("allChat", SubscriptionIndex.TERM_ALL);
+		subscriptionIndex.addSubscription("videoChat", SubscriptionIndex.TERM_TYPE + WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO);
+		
+		List<NotificationItem> notificationItemList = Arrays.asList(
+				newItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "video1"),
+				newItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "20.01.2023", "news1"));
+		
+		try (StubBotApiServer stubServer = new StubBotApiServer();
+				TelegramBot telegramBot = new TelegramBot(stubServer.getApiBaseURL(), "token", 5000L)) {
+			WebBot webBot = new WebBot();
+			webBot.setTgDigestMode(DIGEST_MODE.ALL);
+			webBot.setSubscriptionIndex(subscriptionIndex);
+			webBot.setSharedTelegramBot(telegramBot);
+			
+			assertEquals(0, webBot.sendTelegramNotification(notificationItemList, ""), "perChatDigestTest - sent");
+			assertEquals(1, stubServer.getReceivedMessages("allChat").size(), "perChatDigestTest - one digest for all items");
+			assertEquals(1, stubServer.getReceivedMessages("videoChat").size(), "perChatDigestTest - one digest for video");
+			assertTrue(notificationItemList.stream().allMatch(NotificationItem::isSent), "perChatDigestTest - all items sent");
+			
+			//Video item goes to both chats, one of them fails
+			NotificationItem videoItem = newItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "21.01.2023", "video2");
+			stubServer.injectStatus(400, 1);
+			assertEquals(-1, webBot.sendTelegramNotification(Arrays.asList(videoItem), ""), "perChatDigestTest - one chat failed");
+			assertFalse(videoItem.isSent(), "perChatDigestTest - not sent until all chats sent");
+		}
+	}
+}
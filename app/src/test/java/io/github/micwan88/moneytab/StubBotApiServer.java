@@ -0,0 +1,188 @@
+package io.github.micwan88.moneytab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stub of Telegram Bot API sendMessage, with injectable error responses and latency
+ */
+public class StubBotApiServer implements Closeable {
+	
+	private HttpServer httpServer = null;
+	
+	private ExecutorService serverExecutor = null;
+	
+	private long latency = 0L;
+	
+	//Status code of the coming responses, 200 when empty
+	private LinkedList<Integer> injectedStatusList = new LinkedList<>();
+	
+	private int retryAfter = 1;
+	
+	private AtomicInteger requestCount = new AtomicInteger();
+	
+	private AtomicInteger inFlightCount = new AtomicInteger();
+	
+	//Most requests handled at the same time
+	private AtomicInteger maxInFlightCount = new AtomicInteger();
+	
+	private List<ReceivedMessage> receivedMessageList = new ArrayList<>();
+	
+	public static class ReceivedMessage {
+		private String chatID = null;
+		private String text = null;
+		private long receivedTime = 0L;
+		
+		public ReceivedMessage(String chatID, String text, long receivedTime) {
+			this.chatID = chatID;
+			this.text = text;
+			this.receivedTime = receivedTime;
+		}
+		
+		public String getChatID() {
+			return chatID;
+		}
+		
+		public String getText() {
+			return text;
+		}
+		
+		public long getReceivedTime() {
+			return receivedTime;
+		}
+	}
+	
+	public StubBotApiServer() throws IOException {
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		
+		//Handle requests in parallel like the real one
+		serverExecutor = Executors.newCachedThreadPool();
+		httpServer.setExecutor(serverExecutor);
+		httpServer.createContext("/", (httpExchange) -> handleSendMessage(httpExchange));
+		httpServer.start();
+	}
+	
+	/**
+	 * Base url to be used in place of https://api.telegram.org/bot
+	 */
+	public String getApiBaseURL() {
+		return "http://localhost:" + httpServer.getAddress().getPort() + "/bot";
+	}
+	
+	private void handleSendMessage(HttpExchange httpExchange) throws IOException {
+		requestCount.incrementAndGet();
+		maxInFlightCount.accumulateAndGet(inFlightCount.incrementAndGet(), Math::max);
+		try {
+			handleRequest(httpExchange);
+		} finally {
+			inFlightCount.decrementAndGet();
+		}
+	}
+	
+	private void handleRequest(HttpExchange httpExchange) throws IOException {
+		String requestBody = readBody(httpExchange.getRequestBody());
+		
+		if (latency > 0L) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		Integer injectedStatus = null;
+		synchronized (this) {
+			injectedStatus = injectedStatusList.poll();
+		}
+		
+		if (injectedStatus == null) {
+			JsonObject requestJson = JsonParser.parseString(requestBody).getAsJsonObject();
+			synchronized (this) {
+				receivedMessageList.add(new ReceivedMessage(requestJson.get("chat_id").getAsString(), requestJson.get("text").getAsString(), System.currentTimeMillis()));
+			}
+			sendResponse(httpExchange, 200, "{\"ok\":true,\"result\":{}}");
+		} else if (injectedStatus == 429)
+			sendResponse(httpExchange, 429, "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests: retry after " + retryAfter + "\",\"parameters\":{\"retry_after\":" + retryAfter + "}}");
+		else
+			sendResponse(httpExchange, injectedStatus, "{\"ok\":false,\"error_code\":" + injectedStatus + ",\"description\":\"Injected error\"}");
+	}
+	
+	private static String readBody(InputStream inStream) throws IOException {
+		ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int length = 0;
+		while ((length = inStream.read(buffer)) != -1) {
+			outStream.write(buffer, 0, length);
+		}
+		return new String(outStream.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	private static void sendResponse(HttpExchange httpExchange, int statusCode, String body) throws IOException {
+		byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+		
+		httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+		httpExchange.sendResponseHeaders(statusCode, bodyBytes.length);
+		
+		try (OutputStream outStream = httpExchange.getResponseBody()) {
+			outStream.write(bodyBytes);
+		}
+	}
+	
+	public synchronized void injectStatus(int statusCode, int count) {
+		for (int i=0; i<count; i++) {
+			injectedStatusList.add(statusCode);
+		}
+	}
+	
+	public synchronized void reset() {
+		injectedStatusList.clear();
+		receivedMessageList.clear();
+		requestCount.set(0);
+		maxInFlightCount.set(0);
+		latency = 0L;
+		retryAfter = 1;
+	}
+	
+	public synchronized List<ReceivedMessage> getReceivedMessages(String chatID) {
+		return receivedMessageList.stream().filter((receivedMessage) -> receivedMessage.getChatID().equals(chatID)).collect(Collectors.toList());
+	}
+	
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+	
+	public int getMaxInFlightCount() {
+		return maxInFlightCount.get();
+	}
+	
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+	
+	public void setRetryAfter(int retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+	
+	@Override
+	public void close() {
+		httpServer.stop(0);
+		serverExecutor.shutdownNow();
+	}
+}
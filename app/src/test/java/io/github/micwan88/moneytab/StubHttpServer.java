@@ -0,0 +1,88 @@
+package io.github.micwan88.moneytab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tiny local http server for test, which replay recorded responses from test resources
+ */
+public class StubHttpServer implements Closeable {
+	
+	private HttpServer httpServer = null;
+	
+	//Browser loads pages and frames in parallel, so slow handlers must not block each other
+	private ExecutorService executorService = Executors.newCachedThreadPool();
+	
+	public StubHttpServer() throws IOException {
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		httpServer.setExecutor(executorService);
+		httpServer.start();
+	}
+	
+	public String getBaseURL() {
+		return "http://localhost:" + httpServer.getAddress().getPort();
+	}
+	
+	public void addHandler(String path, HttpHandler httpHandler) {
+		httpServer.createContext(path, httpHandler);
+	}
+	
+	/**
+	 * Replay the resource file, but redirect to home if required cookie is missing
+	 */
+	public void addRecordedPage(String path, String resourceName, String requiredCookie) {
+		addHandler(path, (httpExchange) -> {
+			String cookieHeader = httpExchange.getRequestHeaders().getFirst("Cookie");
+			if (requiredCookie != null && (cookieHeader == null || !cookieHeader.contains(requiredCookie))) {
+				httpExchange.getResponseHeaders().add("Location", getBaseURL() + "/");
+				sendResponse(httpExchange, 302, "");
+				return;
+			}
+			
+			sendResponse(httpExchange, 200, readResource(resourceName));
+		});
+	}
+	
+	public static String readResource(String resourceName) throws IOException {
+		try (InputStream inStream = StubHttpServer.class.getResourceAsStream(resourceName)) {
+			if (inStream == null)
+				throw new IOException("Resource not found: " + resourceName);
+			
+			ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length = 0;
+			while ((length = inStream.read(buffer)) != -1) {
+				outStream.write(buffer, 0, length);
+			}
+			return new String(outStream.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+	
+	public static void sendResponse(HttpExchange httpExchange, int statusCode, String body) throws IOException {
+		byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+		
+		httpExchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+		httpExchange.sendResponseHeaders(statusCode, bodyBytes.length == 0 ? -1 : bodyBytes.length);
+		
+		try (OutputStream outStream = httpExchange.getResponseBody()) {
+			outStream.write(bodyBytes);
+		}
+	}
+	
+	@Override
+	public void close() {
+		httpServer.stop(0);
+		executorService.shutdownNow();
+	}
+}
@@ -0,0 +1,231 @@
+package io.github.micwan88.moneytab;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Synthetic money-tab site for running WebBot in real browser offline.
+ * Same page structure as the live site (login button and form, notification list, video page with nested iframes),
+ * with any number of notification items and fixed latency for every response.
+ */
+public class StubMoneyTabSite implements Closeable {
+	
+	public static final String SESSION_COOKIE_NAME = "mt_session";
+	public static final String SESSION_COOKIE_VALUE = "valid";
+	
+	public static final String VIDEO_PAGE_PATH = "/channel/stub-channel/";
+	
+	private static final String HOME_LOGON_BODY =
+			"<header><a href=\"/profile/account\"><svg class=\"svg-icon\" width=\"24\" height=\"24\"></svg></a></header>";
+	
+	private static final String HOME_LOGIN_BODY =
+			"<main><section><div><div><span role=\"button\" onclick=\"document.getElementById('loginForm').style.display='block'\"><span>登入</span></span></div></div></section></main>"
+			+ "<form id=\"loginForm\" method=\"post\" action=\"/login\" style=\"display:%s\">"
+			+ "<div><div class=\"input-row\"><input id=\"username\" name=\"username\"></div>"
+			+ "<div class=\"input-row\"><input id=\"password\" name=\"password\" type=\"password\"></div>%s</div>"
+			+ "<button type=\"submit\">登入</button></form>";
+	
+	private StubHttpServer stubServer = null;
+	
+	private String username = null;
+	
+	private String password = null;
+	
+	private volatile int notificationCount = 10;
+	
+	private volatile long latency = 0L;
+	
+	//Notification count -> page, generating thousands of items for each request would be counted as server latency
+	private ConcurrentHashMap<Integer, String> notificationPageMap = new ConcurrentHashMap<>();
+	
+	public StubMoneyTabSite(String username, String password) throws IOException {
+		this.username = username;
+		this.password = password;
+		
+		stubServer = new StubHttpServer();
+		stubServer.addHandler("/", (httpExchange) -> handleHome(httpExchange));
+		stubServer.addHandler("/login", (httpExchange) -> handleLogin(httpExchange));
+		stubServer.addHandler(WebBotConst.MONEYTAB_NOTIFICATION_PATH, (httpExchange) -> handleNotification(httpExchange));
+		stubServer.addHandler(VIDEO_PAGE_PATH, (httpExchange) -> handleVideo(httpExchange));
+		stubServer.addHandler("/embed/", (httpExchange) -> handleEmbed(httpExchange));
+		stubServer.addHandler("/player/", (httpExchange) -> handlePlayer(httpExchange));
+	}
+	
+	public String getBaseURL() {
+		return stubServer.getBaseURL();
+	}
+	
+	/**
+	 * For adding recorded pages, see {@link StubHttpServer#addRecordedPage(String, String, String)}
+	 */
+	public StubHttpServer getStubServer() {
+		return stubServer;
+	}
+	
+	public static String getYoutubeLink(int videoID) {
+		return "https://www.youtube.com/watch?v=stub" + videoID;
+	}
+	
+	private boolean isLogon(HttpExchange httpExchange) {
+		String cookieHeader = httpExchange.getRequestHeaders().getFirst("Cookie");
+		return cookieHeader != null && cookieHeader.contains(SESSION_COOKIE_NAME + "=" + SESSION_COOKIE_VALUE);
+	}
+	
+	private void sendPage(HttpExchange httpExchange, String title, String body) throws IOException {
+		try {
+			if (latency > 0L)
+				Thread.sleep(latency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		StubHttpServer.sendResponse(httpExchange, 200, "<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>"
+				+ title + "</title></head><body>" + body + "</body></html>");
+	}
+	
+	private void redirectHome(HttpExchange httpExchange) throws IOException {
+		httpExchange.getResponseHeaders().add("Location", getBaseURL() + "/");
+		StubHttpServer.sendResponse(httpExchange, 302, "");
+	}
+	
+	private void handleHome(HttpExchange httpExchange) throws IOException {
+		if (!httpExchange.getRequestURI().getPath().equals("/")) {
+			StubHttpServer.sendResponse(httpExchange, 404, "");
+			return;
+		}
+		
+		if (isLogon(httpExchange))
+			sendPage(httpExchange, "Money Tab", HOME_LOGON_BODY);
+		else
+			sendPage(httpExchange, "Money Tab", String.format(HOME_LOGIN_BODY, "none", ""));
+	}
+	
+	private void handleLogin(HttpExchange httpExchange) throws IOException {
+		HashMap<String, String> formMap = new HashMap<>();
+		for (String field : readBody(httpExchange).split("&")) {
+			String[] keyValue = field.split("=", 2);
+			if (keyValue.length == 2)
+				formMap.put(URLDecoder.decode(keyValue[0], "UTF-8"), URLDecoder.decode(keyValue[1], "UTF-8"));
+		}
+		
+		if (username.equals(formMap.get("username")) && password.equals(formMap.get("password"))) {
+			httpExchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE_NAME + "=" + SESSION_COOKIE_VALUE + "; Path=/");
+			redirectHome(httpExchange);
+			return;
+		}
+		
+		sendPage(httpExchange, "Money Tab", String.format(HOME_LOGIN_BODY, "block", "<div>帳號或密碼錯誤</div>"));
+	}
+	
+	private void handleNotification(HttpExchange httpExchange) throws IOException {
+		if (!isLogon(httpExchange)) {
+			redirectHome(httpExchange);
+			return;
+		}
+		
+		sendPage(httpExchange, "通知 - Money Tab", notificationPageMap.computeIfAbsent(notificationCount, (count) -> buildNotificationList(count)));
+	}
+	
+	/**
+	 * Even index is new video, odd one is important news, dates are spread over last few days
+	 */
+	private static String buildNotificationList(int count) {
+		SimpleDateFormat dateFormat = new SimpleDateFormat(WebBotConst.NOTIFICATION_DATE_FORMAT_PATTERN);
+		long now = System.currentTimeMillis();
+		
+		StringBuilder body = new StringBuilder("<main><section><div><div><p>通知</p><div>");
+		for (int i=0; i<count; i++) {
+			String dateInString = dateFormat.format(new Date(now - (i % 5) * 86400000L));
+			
+			body.append("<div class=\"notice_item__a1b2c\">");
+			if (i % 2 == 0) {
+				body.append("<div><span class=\"icon\"></span><span>").append(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO).append("</span></div>");
+				body.append("<div><a class=\"block\" href=\"").append(VIDEO_PAGE_PATH).append(i).append("\">");
+				body.append("<div><span>").append(dateInString).append("</span></div>");
+				body.append("<p>頻道 ").append(i % 20).append("</p><p>第 ").append(i).append(" 集已經上架</p></a></div>");
+			} else {
+				body.append("<div><span class=\"icon\"></span><span>").append(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS).append("</span></div>");
+				body.append("<div><div><span>").append(dateInString).append("</span></div>");
+				body.append("<p>通知 ").append(i).append("</p><p>第 ").append(i).append(" 項重要通知</p></div>");
+			}
+			body.append("</div>");
+		}
+		body.append("</div></div></div></section></main>");
+		return body.toString();
+	}
+	
+	private static String getLastPathSegment(HttpExchange httpExchange) {
+		String path = httpExchange.getRequestURI().getPath();
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+	
+	private void handleVideo(HttpExchange httpExchange) throws IOException {
+		if (!isLogon(httpExchange)) {
+			sendPage(httpExchange, "Money Tab", String.format(HOME_LOGIN_BODY, "none", ""));
+			return;
+		}
+		
+		sendPage(httpExchange, "Video - Money Tab", "<main><section><div><h1>Video</h1></div><div><iframe src=\"/embed/"
+				+ getLastPathSegment(httpExchange) + "\"></iframe></div></section></main>");
+	}
+	
+	private void handleEmbed(HttpExchange httpExchange) throws IOException {
+		sendPage(httpExchange, "Player", "<iframe src=\"/player/" + getLastPathSegment(httpExchange) + "\"></iframe>");
+	}
+	
+	private void handlePlayer(HttpExchange httpExchange) throws IOException {
+		String body = "";
+		try {
+			body = "<link rel=\"canonical\" href=\"" + getYoutubeLink(Integer.parseInt(getLastPathSegment(httpExchange))) + "\">";
+		} catch (NumberFormatException e) {
+			//Player without link
+		}
+		sendPage(httpExchange, "YouTube", body);
+	}
+	
+	private static String readBody(HttpExchange httpExchange) throws IOException {
+		try (InputStream inStream = httpExchange.getRequestBody()) {
+			ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length = 0;
+			while ((length = inStream.read(buffer)) != -1) {
+				outStream.write(buffer, 0, length);
+			}
+			return new String(outStream.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+	
+	public int getNotificationCount() {
+		return notificationCount;
+	}
+	
+	public void setNotificationCount(int notificationCount) {
+		this.notificationCount = notificationCount;
+	}
+	
+	public long getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * @param latency in ms, added to every page
+	 */
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+	
+	@Override
+	public void close() {
+		stubServer.close();
+	}
+}
@@ -0,0 +1,62 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.SubscriptionIndex;
+
+class SubscriptionIndexTest {
+	
+	NotificationItem videoItem = new NotificationItem(WebBotConst.NOTIFICATION_TYPE_NEW_VIDEO, "20.01.2023", "90後零至千萬的故事",
+			"90後零至千萬的故事 第六集已經上架，今集講美股 ETF", "https://www.money-tab.com/channel/90s-ten-million-story/6124", null);
+	
+	NotificationItem newsItem = new NotificationItem(WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS, "19.01.2023", "系統維護", "系統維護 本網站將於凌晨進行維護");
+	
+	@Test void routeTest() {
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+		assertTrue(subscriptionIndex.addSubscription("100", "title:90後零至千萬的故事"), "routeTest - add title");
+		assertTrue(subscriptionIndex.addSubscription("200", "type:" + WebBotConst.NOTIFICATION_TYPE_IMPORTANT_NEWS), "routeTest - add type");
+		assertTrue(subscriptionIndex.addSubscription("300", "keyword:etf, keyword:港股"), "routeTest - add keywords");
+		assertTrue(subscriptionIndex.addSubscription("400", "*"), "routeTest - add all");
+		subscriptionIndex.addAllItemChat("500");
+		
+		assertEquals(new HashSet<>(Arrays.asList("100", "300", "400", "500")), subscriptionIndex.route(videoItem), "routeTest - video item");
+		assertEquals(new HashSet<>(Arrays.asList("200", "400", "500")), subscriptionIndex.route(newsItem), "routeTest - news item");
+	}
+	
+	@Test void keywordRouteTest() {
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+		subscriptionIndex.addSubscription("100", "keyword:ETF");
+		subscriptionIndex.addSubscription("200", "keyword:美股 etf");
+		subscriptionIndex.addSubscription("300", "keyword:今集講美股, keyword:etf");
+		subscriptionIndex.addSubscription("400", "keyword:講美股");
+		subscriptionIndex.addSubscription("500", "keyword:美股 etf 期權");
+		
+		//Keyword inside longer one and keywords shared by chats are all found in one scan
+		assertEquals(new HashSet<>(Arrays.asList("100", "200", "300", "400")), subscriptionIndex.route(videoItem), "keywordRouteTest - video item");
+		assertEquals(Collections.emptySet(), subscriptionIndex.route(newsItem), "keywordRouteTest - news item");
+	}
+	
+	@Test void noSubscriberTest() {
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+		subscriptionIndex.addSubscription("100", "title:我要做磚家,keyword:etf 美股");
+		
+		assertEquals(Collections.emptySet(), subscriptionIndex.route(newsItem), "noSubscriberTest - not matched");
+		assertEquals(Collections.emptySet(), subscriptionIndex.route(videoItem), "noSubscriberTest - keyword not in same order");
+	}
+	
+	@Test void invalidRuleTest() {
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+		assertFalse(subscriptionIndex.addSubscription("100", "title:90後零至千萬的故事,series:abc"), "invalidRuleTest - unknown term");
+		assertFalse(subscriptionIndex.addSubscription("100", "keyword: "), "invalidRuleTest - empty keyword");
+		assertTrue(subscriptionIndex.isEmpty(), "invalidRuleTest - nothing added");
+	}
+}
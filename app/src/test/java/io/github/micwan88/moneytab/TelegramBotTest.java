@@ -1,13 +1,43 @@
 package io.github.micwan88.moneytab;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
 
+import io.github.micwan88.moneytab.StubBotApiServer.ReceivedMessage;
 import io.github.micwan88.moneytab.messaging.TelegramBot;
+import io.github.micwan88.moneytab.metrics.MetricsRegistry;
 
+@TestInstance(Lifecycle.PER_CLASS)
 public class TelegramBotTest {
+	StubBotApiServer stubServer = null;
+	
+	@BeforeAll void beforeTest() throws IOException {
+		stubServer = new StubBotApiServer();
+	}
+	
+	@AfterAll void afterTest() {
+		stubServer.close();
+	}
+	
+	@BeforeEach void beforeEachTest() {
+		stubServer.reset();
+	}
+	
 	@Test void postNotificationTest() {
 		boolean gotRealCredentials = false;
 		
@@ -20,9 +50,150 @@ public class TelegramBotTest {
 		
 		assumeTrue(gotRealCredentials);
 		
-		TelegramBot telegramBot = new TelegramBot(botToken);
-		int retrunCode = telegramBot.postNotifications("postNotificationTest - Testing msg", chatID);
+		try (TelegramBot telegramBot = new TelegramBot(botToken)) {
+			int retrunCode = telegramBot.postNotifications("postNotificationTest - Testing msg", chatID);
+			
+			assertEquals(retrunCode, 0, "postNotificationTest");
+		}
+	}
+	
+	TelegramBot newTelegramBot() {
+		TelegramBot telegramBot = new TelegramBot(stubServer.getApiBaseURL(), "token", 5000L);
+		//No chat limit unless the test need it
+		telegramBot.setChatRateLimit(1000.0, 1000.0);
+		return telegramBot;
+	}
+	
+	/**
+	 * Waits for rate limits and retries are on virtual time of the executor
+	 */
+	TelegramBot newTelegramBot(VirtualTimeExecutor virtualTimeExecutor) {
+		return new TelegramBot(stubServer.getApiBaseURL(), "token", 5000L, virtualTimeExecutor, virtualTimeExecutor::currentTimeMillis);
+	}
+	
+	@Test void parallelChatOrderTest() {
+		stubServer.setLatency(300L);
+		
+		try (TelegramBot telegramBot = newTelegramBot()) {
+			List<CompletableFuture<Integer>> futureList = new ArrayList<>();
+			for (int i=1; i<=3; i++) {
+				futureList.add(telegramBot.postNotificationsAsync("msg" + i, "chat1,chat2"));
+			}
+			futureList.forEach((future) -> assertEquals(0, (int)future.join(), "parallelChatOrderTest - sent"));
+		}
+		
+		List<String> expectedTextList = new ArrayList<>();
+		for (int i=1; i<=3; i++) {
+			expectedTextList.add("msg" + i);
+		}
+		List<ReceivedMessage> chat1MessageList = stubServer.getReceivedMessages("chat1");
+		List<ReceivedMessage> chat2MessageList = stubServer.getReceivedMessages("chat2");
+		assertEquals(expectedTextList, chat1MessageList.stream().map(ReceivedMessage::getText).collect(Collectors.toList()), "parallelChatOrderTest - chat1 order");
+		assertEquals(expectedTextList, chat2MessageList.stream().map(ReceivedMessage::getText).collect(Collectors.toList()), "parallelChatOrderTest - chat2 order");
+		
+		//Same message to different chats should be sent together instead of one after another
+		assertTrue(stubServer.getMaxInFlightCount() >= 2, "parallelChatOrderTest - chats in parallel: " + stubServer.getMaxInFlightCount());
+	}
+	
+	@Test void retryAfterTest() {
+		stubServer.setRetryAfter(1);
+		stubServer.injectStatus(429, 1);
+		
+		VirtualTimeExecutor virtualTimeExecutor = new VirtualTimeExecutor(TelegramBot.TELEGRAM_BOT_MAX_CONNECTIONS);
+		try (TelegramBot telegramBot = newTelegramBot(virtualTimeExecutor)) {
+			assertEquals(0, telegramBot.postNotifications("msg", "chat1"), "retryAfterTest - sent after retry");
+		}
+		
+		assertEquals(2, stubServer.getRequestCount(), "retryAfterTest - request count");
+		assertEquals(1000L, virtualTimeExecutor.currentTimeMillis(), "retryAfterTest - waited retry_after");
+	}
+	
+	@Test void serverErrorBackoffTest() {
+		stubServer.injectStatus(502, 2);
+		
+		try (TelegramBot telegramBot = newTelegramBot()) {
+			assertEquals(0, telegramBot.postNotifications("msg", "chat1"), "serverErrorBackoffTest - sent after retry");
+		}
+		
+		assertEquals(3, stubServer.getRequestCount(), "serverErrorBackoffTest - request count");
+		assertEquals(1, stubServer.getReceivedMessages("chat1").size(), "serverErrorBackoffTest - received");
+	}
+	
+	@Test void chatMetricsTest() {
+		stubServer.injectStatus(400, 1);
+		
+		MetricsRegistry metricsRegistry = new MetricsRegistry();
+		try (TelegramBot telegramBot = newTelegramBot()) {
+			telegramBot.setMetricsRegistry(metricsRegistry);
+			assertEquals(-1, telegramBot.postNotifications("msg1", "chat1"), "chatMetricsTest - error");
+			assertEquals(0, telegramBot.postNotifications("msg2", "chat1,chat2"), "chatMetricsTest - sent");
+		}
+		
+		String chat1Stage = MetricsRegistry.labelledStage(TelegramBot.METRICS_STAGE_TELEGRAM_POST_CHAT, TelegramBot.METRICS_LABEL_CHAT, "chat1");
+		String chat2Stage = MetricsRegistry.labelledStage(TelegramBot.METRICS_STAGE_TELEGRAM_POST_CHAT, TelegramBot.METRICS_LABEL_CHAT, "chat2");
+		assertEquals(3L, metricsRegistry.getHistogram(TelegramBot.METRICS_STAGE_TELEGRAM_POST).getCount(), "chatMetricsTest - all chats");
+		assertEquals(2L, metricsRegistry.getHistogram(chat1Stage).getCount(), "chatMetricsTest - chat1");
+		assertEquals(1L, metricsRegistry.getCounter(MetricsRegistry.COUNTER_ERRORS, chat1Stage), "chatMetricsTest - chat1 error");
+		assertEquals(1L, metricsRegistry.getCounter(MetricsRegistry.COUNTER_ITEMS, chat2Stage), "chatMetricsTest - chat2 sent");
+		assertEquals(1L, metricsRegistry.getCounter(MetricsRegistry.COUNTER_ERRORS, TelegramBot.METRICS_STAGE_TELEGRAM_POST), "chatMetricsTest - total error counted once");
+		assertNull(metricsRegistry.getHistogram(MetricsRegistry.labelledStage(TelegramBot.METRICS_STAGE_TELEGRAM_POST, TelegramBot.METRICS_LABEL_CHAT, "chat1")),
+				"chatMetricsTest - no chat series in total stage");
+	}
+	
+	@Test void preparePostMsgTest() {
+		StringBuilder longMsg = new StringBuilder();
+		for (int i=0; i<TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH - 2; i++)
+			longMsg.append('a');
+		//Escaped to "&amp;" across the limit
+		longMsg.append("&b");
+		
+		String postMsg = TelegramBot.preparePostMsg(longMsg.toString());
+		assertEquals(TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH - 2, postMsg.length(), "preparePostMsgTest - cut before entity");
+		assertTrue(postMsg.endsWith("a"), "preparePostMsgTest - no partial entity");
+		
+		longMsg.setLength(TelegramBot.TELEGRAM_BOT_SENDMSG_MAXLENGTH - 6);
+		longMsg.append("&<b");
+		assertTrue(TelegramBot.preparePostMsg(longMsg.toString()).endsWith("&amp;"), "preparePostMsgTest - keep complete entity");
+		
+		assertEquals("a &lt;b&gt;", TelegramBot.preparePostMsg("a <b>"), "preparePostMsgTest - short message");
+	}
+	
+	@Test void badRequestTest() {
+		//Second message is queued before the first one failed
+		stubServer.setLatency(200L);
+		stubServer.injectStatus(400, 1);
+		
+		try (TelegramBot telegramBot = newTelegramBot()) {
+			CompletableFuture<Integer> future1 = telegramBot.postNotificationsAsync("msg1", "chat1");
+			CompletableFuture<Integer> future2 = telegramBot.postNotificationsAsync("msg2", "chat1");
+			
+			assertEquals(-1, (int)future1.join(), "badRequestTest - no retry");
+			assertEquals(-1, (int)future2.join(), "badRequestTest - skip after error in same batch");
+			
+			//Next batch (e.g. next daemon cycle) is not affected by the old error
+			assertEquals(0, telegramBot.postNotifications("msg3", "chat1"), "badRequestTest - next batch sent");
+		}
+		
+		assertEquals(2, stubServer.getRequestCount(), "badRequestTest - request count");
+		assertEquals(1, stubServer.getReceivedMessages("chat1").size(), "badRequestTest - received");
+		assertEquals("msg3", stubServer.getReceivedMessages("chat1").get(0).getText(), "badRequestTest - next batch message");
+	}
+	
+	@Test void chatRateLimitTest() {
+		VirtualTimeExecutor virtualTimeExecutor = new VirtualTimeExecutor(TelegramBot.TELEGRAM_BOT_MAX_CONNECTIONS);
+		try (TelegramBot telegramBot = newTelegramBot(virtualTimeExecutor)) {
+			telegramBot.setChatRateLimit(4.0, 1.0);
+			
+			List<CompletableFuture<Integer>> futureList = new ArrayList<>();
+			for (int i=1; i<=5; i++) {
+				futureList.add(telegramBot.postNotificationsAsync("msg" + i, "chat1"));
+			}
+			futureList.forEach((future) -> assertEquals(0, (int)future.join(), "chatRateLimitTest - sent"));
+		}
+		long elapsedTime = virtualTimeExecutor.currentTimeMillis();
 		
-		assertEquals(retrunCode, 0, "postNotificationTest");
+		//First one from the burst, then one every 250ms
+		assertEquals(5, stubServer.getReceivedMessages("chat1").size(), "chatRateLimitTest - received");
+		assertTrue(elapsedTime >= 1000L && elapsedTime < 1010L, "chatRateLimitTest - throttled: " + elapsedTime);
 	}
 }
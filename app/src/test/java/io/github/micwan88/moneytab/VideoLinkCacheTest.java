@@ -0,0 +1,70 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.micwan88.moneytab.data.VideoLinkCache;
+
+class VideoLinkCacheTest {
+	Path cacheFilePath = null;
+	
+	@BeforeEach void beforeEachTest() throws IOException {
+		cacheFilePath = Files.createTempFile("videolink", ".dat");
+		Files.delete(cacheFilePath);
+	}
+	
+	@AfterEach void afterEachTest() throws IOException {
+		Files.deleteIfExists(cacheFilePath);
+	}
+	
+	@Test void getPutTest() {
+		VideoLinkCache videoLinkCache = new VideoLinkCache(cacheFilePath, 60000L, 10);
+		assertNull(videoLinkCache.get("https://www.money-tab.com/channel/a/1"), "getPutTest - miss");
+		
+		videoLinkCache.put("https://www.money-tab.com/channel/a/1", "https://www.youtube.com/watch?v=1");
+		assertEquals("https://www.youtube.com/watch?v=1", videoLinkCache.get("https://www.money-tab.com/channel/a/1"), "getPutTest - hit");
+	}
+	
+	@Test void ttlTest() {
+		VideoLinkCache videoLinkCache = new VideoLinkCache(cacheFilePath, 60000L, 10);
+		videoLinkCache.put("https://www.money-tab.com/channel/a/1", "https://www.youtube.com/watch?v=1", System.currentTimeMillis() - 120000L);
+		
+		assertNull(videoLinkCache.get("https://www.money-tab.com/channel/a/1"), "ttlTest - expired");
+		assertEquals(0, videoLinkCache.size(), "ttlTest - expired removed");
+	}
+	
+	@Test void evictionTest() {
+		VideoLinkCache videoLinkCache = new VideoLinkCache(cacheFilePath, 60000L, 2);
+		videoLinkCache.put("page1", "video1");
+		videoLinkCache.put("page2", "video2");
+		
+		//Access page1, so page2 become least recently used
+		videoLinkCache.get("page1");
+		videoLinkCache.put("page3", "video3");
+		
+		assertEquals(2, videoLinkCache.size(), "evictionTest - size");
+		assertEquals("video1", videoLinkCache.get("page1"), "evictionTest - page1 kept");
+		assertNull(videoLinkCache.get("page2"), "evictionTest - page2 evicted");
+	}
+	
+	@Test void saveLoadTest() {
+		VideoLinkCache videoLinkCache = new VideoLinkCache(cacheFilePath, 60000L, 10);
+		videoLinkCache.put("page1", "video1");
+		videoLinkCache.put("page2", "video2", System.currentTimeMillis() - 120000L);
+		videoLinkCache.save();
+		
+		VideoLinkCache reloadedCache = new VideoLinkCache(cacheFilePath, 60000L, 10);
+		reloadedCache.load();
+		
+		assertEquals(1, reloadedCache.size(), "saveLoadTest - expired not loaded");
+		assertEquals("video1", reloadedCache.get("page1"), "saveLoadTest - page1");
+	}
+}
@@ -0,0 +1,40 @@
+package io.github.micwan88.moneytab;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduled executor on virtual time, delayed task is run at once and the clock jumps to its time,
+ * so rate limits and retries can be asserted without waiting or depending on the speed of test machine
+ */
+public class VirtualTimeExecutor extends ScheduledThreadPoolExecutor {
+	
+	private AtomicLong currentTime = new AtomicLong();
+	
+	public VirtualTimeExecutor(int poolSize) {
+		super(poolSize, (runnable) -> {
+			Thread thread = new Thread(runnable, "virtual-time-executor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		long runTime = currentTime.get() + unit.toMillis(Math.max(0L, delay));
+		return super.schedule(() -> {
+			//Clock never goes back, even if tasks scheduled earlier run later
+			currentTime.accumulateAndGet(runTime, Math::max);
+			command.run();
+		}, 0L, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Virtual time in ms, starting from zero
+	 */
+	public long currentTimeMillis() {
+		return currentTime.get();
+	}
+}
@@ -0,0 +1,255 @@
+package io.github.micwan88.moneytab;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.PageLoadStrategy;
+
+import io.github.micwan88.moneytab.WebBot.EXTRACT_STRATEGY;
+import io.github.micwan88.moneytab.bean.NotificationItem;
+import io.github.micwan88.moneytab.data.HighWaterMark;
+import io.github.micwan88.moneytab.http.MoneyTabHttpClient;
+import io.github.micwan88.moneytab.metrics.LatencyHistogram;
+import io.github.micwan88.moneytab.metrics.MetricsRegistry;
+import io.github.micwan88.moneytab.selenium.WebDriverMgr.DRIVER_TYPE;
+
+/**
+ * Drive WebBot in real browser against {@link StubMoneyTabSite}, and report timings of each stage.
+ * Only run with -Dmoneytab.e2e=true as it needs Chrome and Firefox installed, e.g.
+ * gradlew test --tests '*WebBotE2ETest' -Dmoneytab.e2e=true -Dmoneytab.e2e.itemCounts=100,5000 -Dmoneytab.e2e.latency=50
+ *
+ * Any moneytab.bot.* system properties (e.g. extractStrategy, browserTabPoolSize) override the setting as usual.
+ */
+@TestInstance(Lifecycle.PER_CLASS)
+class WebBotE2ETest {
+	static final Logger myLogger = LogManager.getLogger(WebBotE2ETest.class);
+	
+	static final String E2E_ENABLED = "moneytab.e2e";
+	static final String E2E_ITEM_COUNTS = "moneytab.e2e.itemCounts";
+	static final String E2E_VIDEO_COUNT = "moneytab.e2e.videoCount";
+	static final String E2E_REPEAT = "moneytab.e2e.repeat";
+	static final String E2E_LATENCY = "moneytab.e2e.latency";
+	
+	static final String STUB_USERNAME = "stub-user";
+	static final String STUB_PASSWORD = "stub-password";
+	
+	static final String[] REPORT_STAGES = {WebBotConst.METRICS_STAGE_BROWSER_LAUNCH, WebBotConst.METRICS_STAGE_LOGIN,
+			WebBotConst.METRICS_STAGE_EXTRACTION, WebBotConst.METRICS_STAGE_VIDEO_RESOLVE};
+	
+	static final Path REPORT_DIR = Paths.get("build", "e2e");
+	
+	static final Path STATE_DIR = REPORT_DIR.resolve("state");
+	
+	StubMoneyTabSite stubSite = null;
+	
+	@BeforeAll void beforeTest() throws IOException {
+		assumeTrue(Boolean.getBoolean(E2E_ENABLED), "Set -D" + E2E_ENABLED + "=true to run");
+		
+		stubSite = new StubMoneyTabSite(STUB_USERNAME, STUB_PASSWORD);
+		stubSite.setLatency(Long.getLong(E2E_LATENCY, 0L));
+		
+		Files.createDirectories(STATE_DIR);
+	}
+	
+	@AfterAll void afterTest() {
+		if (stubSite != null)
+			stubSite.close();
+	}
+	
+	WebBot newWebBot(DRIVER_TYPE driverType) throws IOException {
+		//Every scenario starts without high-water mark, unless the test saved one
+		return newWebBot(driverType, null);
+	}
+	
+	WebBot newWebBot(DRIVER_TYPE driverType, HighWaterMark highWaterMark) throws IOException {
+		Path markFilePath = STATE_DIR.resolve(WebBotConst.WEBBOT_HIGH_WATER_MARK_FILENAME);
+		Files.deleteIfExists(markFilePath);
+		if (highWaterMark != null)
+			assertTrue(highWaterMark.save(markFilePath), "newWebBot - save high-water mark");
+		
+		Properties appProperties = new Properties();
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_TYPE, driverType.name());
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_HEADLESS_MODE, "true");
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_WAIT_TIMEOUT, "5000");
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_WAIT_BEFORE_QUIT, "0");
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_COOKIE, "false");
+		appProperties.put(WebBotConst.APP_PROPERTIES_BROWSER_PERSIST_LOCAL_STORAGE, "false");
+		//Every run must really resolve the videos
+		appProperties.put(WebBotConst.APP_PROPERTIES_VIDEOLINK_CACHE_TTL, "0");
+		appProperties.put(WebBotConst.APP_PROPERTIES_STATE_DIR, STATE_DIR.toString());
+		appProperties.put(WebBotConst.APP_PROPERTIES_SITE_BASE_URL, stubSite.getBaseURL());
+		appProperties.put(WebBotConst.APP_PROPERTIES_LOGIN, STUB_USERNAME);
+		appProperties.put(WebBotConst.APP_PROPERTIES_PASSWORD, STUB_PASSWORD);
+		
+		WebBot webBot = new WebBot();
+		assertEquals(0, webBot.loadAppParameters(appProperties), "newWebBot - loadAppParameters");
+		return webBot;
+	}
+	
+	@Test void chromeTest() throws IOException {
+		runScenarios(DRIVER_TYPE.CHROME);
+	}
+	
+	@Test void firefoxTest() throws IOException {
+		runScenarios(DRIVER_TYPE.FIREFOX);
+	}
+	
+	void runScenarios(DRIVER_TYPE driverType) throws IOException {
+		int videoCount = Integer.getInteger(E2E_VIDEO_COUNT, 10);
+		int repeat = Integer.getInteger(E2E_REPEAT, 3);
+		
+		for (String itemCountStr : System.getProperty(E2E_ITEM_COUNTS, "100,1000").split(",")) {
+			int itemCount = Integer.parseInt(itemCountStr.trim());
+			stubSite.setNotificationCount(itemCount);
+			
+			WebBot webBot = newWebBot(driverType);
+			try {
+				webBot.init();
+				
+				assertTrue(webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword()), "runScenarios - logon");
+				
+				List<NotificationItem> notificationItemList = null;
+				for (int i=0; i<repeat; i++) {
+					notificationItemList = webBot.extractNotificationList(null, null);
+					assertNotNull(notificationItemList, "runScenarios - notificationItemList not null");
+					assertEquals(itemCount, notificationItemList.size(), "runScenarios - all items extracted");
+				}
+				
+				List<NotificationItem> videoItemList = notificationItemList.stream().filter((notificationItem)
+						-> notificationItem.getPageLink() != null).limit(videoCount).collect(Collectors.toList());
+				assertEquals(0, webBot.populateYoutubeLink(videoItemList), "runScenarios - populateYoutubeLink");
+				if (!videoItemList.isEmpty())
+					assertEquals(StubMoneyTabSite.getYoutubeLink(0), videoItemList.get(0).getVideoLink(), "runScenarios - video link");
+				
+				report(driverType + "-" + itemCount, webBot.getMetricsRegistry());
+			} finally {
+				webBot.close();
+			}
+		}
+	}
+	
+	/**
+	 * Dates of stub items are not in order, so the mark item should be reached instead of stopping at first older item
+	 */
+	@Test void incrementalExtractTest() throws IOException {
+		stubSite.setNotificationCount(20);
+		int markIndex = 7;
+		
+		List<NotificationItem> fullItemList = null;
+		WebBot webBot = newWebBot(DRIVER_TYPE.CHROME);
+		try {
+			webBot.init();
+			assertTrue(webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword()), "incrementalExtractTest - logon");
+			fullItemList = webBot.extractNotificationList(null, null);
+			assertEquals(20, fullItemList.size(), "incrementalExtractTest - no mark");
+		} finally {
+			webBot.close();
+		}
+		
+		webBot = newWebBot(DRIVER_TYPE.CHROME, HighWaterMark.of(fullItemList.get(markIndex)));
+		try {
+			webBot.init();
+			assertTrue(webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword()), "incrementalExtractTest - logon");
+			List<NotificationItem> notificationItemList = webBot.extractNotificationList(null, null);
+			assertEquals(toComparableList(fullItemList.subList(0, markIndex)), toComparableList(notificationItemList), "incrementalExtractTest - items before mark");
+		} finally {
+			webBot.close();
+		}
+	}
+	
+	/**
+	 * Http path must read same items as browser, otherwise checksums differ and items are re-sent after switching path
+	 */
+	@Test void httpPathTest() throws IOException {
+		stubSite.setNotificationCount(20);
+		
+		WebBot webBot = newWebBot(DRIVER_TYPE.CHROME);
+		//WebElement.getText() is the reference
+		webBot.setExtractStrategy(EXTRACT_STRATEGY.ELEMENT);
+		try {
+			webBot.init();
+			assertTrue(webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword()), "httpPathTest - logon");
+			
+			List<NotificationItem> browserItemList = webBot.extractNotificationList(null, null);
+			assertNotNull(browserItemList, "httpPathTest - browser items");
+			
+			//innerText of script is normalised to the same text
+			webBot.setExtractStrategy(EXTRACT_STRATEGY.SCRIPT);
+			List<NotificationItem> scriptItemList = webBot.extractNotificationList(null, null);
+			assertEquals(toComparableList(browserItemList), toComparableList(scriptItemList), "httpPathTest - same script items");
+			
+			HashSet<Cookie> cookies = new HashSet<>();
+			cookies.add(new Cookie(StubMoneyTabSite.SESSION_COOKIE_NAME, StubMoneyTabSite.SESSION_COOKIE_VALUE, "localhost", "/", null));
+			try (MoneyTabHttpClient httpClient = new MoneyTabHttpClient(stubSite.getBaseURL(), cookies, 5000L)) {
+				List<NotificationItem> httpItemList = httpClient.fetchNotificationList();
+				assertNotNull(httpItemList, "httpPathTest - http items");
+				
+				assertEquals(toComparableList(browserItemList), toComparableList(httpItemList), "httpPathTest - same items");
+			}
+		} finally {
+			webBot.close();
+		}
+	}
+	
+	/**
+	 * Notification page is polled on same URL, so with NONE strategy the previous document must not be taken as the new one
+	 */
+	@Test void samePageReloadTest() throws IOException {
+		stubSite.setNotificationCount(10);
+		long latency = stubSite.getLatency();
+		//Slow enough that old document is still there right after navigation
+		stubSite.setLatency(Math.max(latency, 500L));
+		
+		WebBot webBot = newWebBot(DRIVER_TYPE.CHROME);
+		webBot.setBrowserPageLoadStrategy(PageLoadStrategy.NONE);
+		try {
+			webBot.init();
+			assertTrue(webBot.loginMoneyTabWeb(webBot.getLogin(), webBot.getPassword()), "samePageReloadTest - logon");
+			assertEquals(10, webBot.extractNotificationList(null, null).size(), "samePageReloadTest - first poll");
+			
+			stubSite.setNotificationCount(11);
+			assertEquals(11, webBot.extractNotificationList(null, null).size(), "samePageReloadTest - items of new document");
+		} finally {
+			webBot.close();
+			stubSite.setLatency(latency);
+		}
+	}
+	
+	static List<String> toComparableList(List<NotificationItem> notificationItemList) {
+		return notificationItemList.stream().map((notificationItem) -> String.join("|", notificationItem.getType(), notificationItem.getDateInString(),
+				notificationItem.getTitle(), notificationItem.getFullDescription(), String.valueOf(notificationItem.getPageLink()))).collect(Collectors.toList());
+	}
+	
+	void report(String scenario, MetricsRegistry metricsRegistry) {
+		for (String stage : REPORT_STAGES) {
+			LatencyHistogram histogram = metricsRegistry.getHistogram(stage);
+			if (histogram == null)
+				continue;
+			
+			myLogger.info("E2E {} - {}: count={}, p50={}ms, p99={}ms, max={}ms", scenario, stage, histogram.getCount(),
+					histogram.getValueAtPercentile(50.0) / 1000.0, histogram.getValueAtPercentile(99.0) / 1000.0, histogram.getMax() / 1000.0);
+		}
+		
+		//For comparing runs with other tools
+		metricsRegistry.writePrometheusFile(REPORT_DIR.resolve(scenario + ".prom"));
+	}
+}
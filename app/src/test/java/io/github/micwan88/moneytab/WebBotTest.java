@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 
+import io.github.micwan88.moneytab.WebBot.EXTRACT_STRATEGY;
 import io.github.micwan88.moneytab.bean.NotificationItem;
 import io.github.micwan88.moneytab.data.NotificationFilter;
 import io.github.micwan88.moneytab.selenium.WebDriverMgr.DRIVER_TYPE;
@@ -136,6 +137,37 @@ class WebBotTest {
         assertTrue(fullListCount >= notificationItemList.size(), "extractNotificationTest - filter work");
     }
     
+	@Test void extractStrategyTest() {
+		myLogger.info("extractStrategyTest");
+		
+		Properties appProperties = new Properties();
+		appProperties.put(WebBotConst.APP_PROPERTIES_LOGIN, "aaaa");
+		appProperties.put(WebBotConst.APP_PROPERTIES_PASSWORD, "bbbb");
+		
+		appProperties.put(WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY, "element");
+		WebBot elementWebBot = new WebBot();
+		assertEquals(0, elementWebBot.loadAppParameters(appProperties), "extractStrategyTest - valid");
+		assertEquals(EXTRACT_STRATEGY.ELEMENT, elementWebBot.getExtractStrategy(), "extractStrategyTest - element");
+		
+		appProperties.put(WebBotConst.APP_PROPERTIES_EXTRACT_STRATEGY, "elements");
+		assertEquals(-1, new WebBot().loadAppParameters(appProperties), "extractStrategyTest - invalid");
+	}
+	
+	/**
+	 * Stop before any cycle, so daemon returns without starting browser and nothing is wrongly treated as session failure
+	 */
+	@Test void stopTest() {
+		myLogger.info("stopTest");
+		
+		WebBot stoppedWebBot = new WebBot();
+		stoppedWebBot.stop();
+		assertTrue(stoppedWebBot.isStopRequested(), "stopTest - stop requested");
+		
+		stoppedWebBot.runDaemon();
+		assertFalse(stoppedWebBot.isSessionFailed(), "stopTest - no session failure");
+		stoppedWebBot.close();
+	}
+	
     @Test void populateYoutubeLinkTest() {
     	assumeTrue(gotRealCredentials);
     	